@@ -0,0 +1,103 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.model.domain.Card;
+import com.checkout.payment.gateway.model.domain.Money;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bank call's JSON either side of the wire: the request as it used to be built (a
+ * {@link Card} and {@link Money} per payment, {@code String.format} and data binding) against
+ * {@link BankJsonCodec} writing straight from the payment request, and the response through
+ * data binding against the streaming decoder.
+ *
+ * <p>Run with {@code -PjmhProfilers=gc} and compare {@code gc.alloc.rate.norm}, the bytes
+ * allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BankRequestBenchmark {
+
+  final ObjectMapper objectMapper = new ObjectMapper();
+
+  final PostPaymentRequest request = PostPaymentRequest.builder()
+      .idempotencyKey("order-12345678")
+      .cardNumber("2222405343248877")
+      .expiryMonth(4)
+      .expiryYear(2030)
+      .currency("GBP")
+      .amount(100)
+      .cvv("123")
+      .build();
+
+  final byte[] responseJson = ("{\"authorized\":true,"
+      + "\"authorization_code\":\"0bb07405-6d44-4b50-a14f-7ae0beff13ad\"}")
+      .getBytes(StandardCharsets.UTF_8);
+
+  @Benchmark
+  public byte[] encodeBefore() throws IOException {
+    Card card = Card.builder()
+        .number(request.getCardNumber())
+        .expiryMonth(request.getExpiryMonth())
+        .expiryYear(request.getExpiryYear())
+        .cvv(request.getCvv())
+        .build();
+    Money money = Money.builder()
+        .amount(request.getAmount())
+        .currency(request.getCurrency())
+        .build();
+    BankRequest bankRequest = BankRequest.builder()
+        .cardNumber(card.getNumber())
+        .expiryDate(String.format("%02d/%d", card.getExpiryMonth(), card.getExpiryYear()))
+        .currency(money.getCurrency())
+        .amount(money.getAmount())
+        .cvv(card.getCvv())
+        .requestReference(UUID.nameUUIDFromBytes(
+            request.getIdempotencyKey().getBytes(StandardCharsets.UTF_8)).toString())
+        .build();
+    return objectMapper.writeValueAsBytes(bankRequest);
+  }
+
+  @Benchmark
+  public byte[] encodeNow() {
+    return BankJsonCodec.encode(BankRequest.from(request));
+  }
+
+  @Benchmark
+  public String expiryDateFormat() {
+    return String.format("%02d/%d", request.getExpiryMonth(), request.getExpiryYear());
+  }
+
+  @Benchmark
+  public String expiryDateNow() {
+    return BankRequest.expiryDate(request.getExpiryMonth(), request.getExpiryYear());
+  }
+
+  @Benchmark
+  public BankResponse decodeBefore() throws IOException {
+    return objectMapper.readValue(responseJson, BankResponse.class);
+  }
+
+  @Benchmark
+  public BankResponse decodeNow() throws IOException {
+    return BankJsonCodec.decode(objectMapper.getFactory(), responseJson);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.metrics.PaymentStageMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of a bank call with hedging on and off, against a bank that is fast
+ * except for an occasional slow answer. Compare the p0.99 lines of the two runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(8)
+public class HedgingLatencyBenchmark {
+
+  private static final long FAST_MS = 5;
+  private static final long SLOW_MS = 200;
+  private static final int SLOW_PERCENT = 3;
+  private static final long NEVER_SLOW_MS = TimeUnit.HOURS.toMillis(1);
+  private static final byte[] AUTHORIZED =
+      "{\"authorized\":true,\"authorization_code\":\"bench\"}".getBytes(StandardCharsets.UTF_8);
+
+  @Param({"off", "on"})
+  String hedging;
+
+  HttpServer bank;
+  CloseableHttpAsyncClient httpClient;
+  AcquiringBankClient client;
+  BankRequest request;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    bank = HttpServer.create(new InetSocketAddress("localhost", 0), 1_000);
+    bank.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    bank.createContext("/payments", exchange -> {
+      boolean slow = ThreadLocalRandom.current().nextInt(100) < SLOW_PERCENT;
+      try {
+        Thread.sleep(slow ? SLOW_MS : FAST_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.getRequestBody().readAllBytes();
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, AUTHORIZED.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(AUTHORIZED);
+      }
+    });
+    bank.start();
+
+    httpClient = HttpAsyncClients.custom()
+        .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnPerRoute(100)
+            .setMaxConnTotal(100)
+            .build())
+        .build();
+    httpClient.start();
+    // Only hedging differs between runs, at most 10% of calls may be hedged
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    client = new AcquiringBankClient(httpClient, new ObjectMapper(),
+        new BankCircuitBreaker(Clock.systemUTC(), 100, 100, 100, 100, NEVER_SLOW_MS, 0, 1,
+            meterRegistry),
+        new AdaptiveConcurrencyLimit(100, 100, 100, NEVER_SLOW_MS, 0.9, meterRegistry),
+        new RetryBudget("bank.retries", Clock.systemUTC(), 0, 0, 1_000, meterRegistry),
+        new RequestHedger(hedging.equals("on"), 95, 1, new RetryBudget("bank.hedges",
+            Clock.systemUTC(), 0.1, 0, 10_000, meterRegistry), meterRegistry),
+        new PaymentStageMetrics(meterRegistry),
+        Runnable::run, "http://localhost:" + bank.getAddress().getPort(), 0, 0, 0);
+    request = BankRequest.builder()
+        .cardNumber("2222405343248877")
+        .expiryDate("04/2030")
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .requestReference("bench")
+        .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    httpClient.close();
+    bank.stop(0);
+  }
+
+  @Benchmark
+  public BankResponse authorize() {
+    return client.processPayment(request);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.metrics.PaymentStageMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bank calls completed per second when the bank is slow: bursts of concurrent requests on a
+ * Tomcat-sized platform pool, on one virtual thread per request, and issued asynchronously
+ * with no request thread held at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SlowBankThroughputBenchmark {
+
+  static final int BURST = 2_000;
+  private static final int TOMCAT_MAX_THREADS = 200; // server.tomcat.threads.max default
+  private static final long NEVER_SLOW_MS = TimeUnit.HOURS.toMillis(1);
+  private static final byte[] AUTHORIZED =
+      "{\"authorized\":true,\"authorization_code\":\"bench\"}".getBytes(StandardCharsets.UTF_8);
+
+  @Param({"50", "200"})
+  long bankLatencyMs;
+
+  @Param({"platform", "virtual", "async"})
+  String threads;
+
+  HttpServer bank;
+  ExecutorService requestThreads;
+  CloseableHttpAsyncClient httpClient;
+  AcquiringBankClient client;
+  BankRequest request;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    bank = HttpServer.create(new InetSocketAddress("localhost", 0), BURST);
+    bank.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    bank.createContext("/payments", exchange -> {
+      try {
+        Thread.sleep(bankLatencyMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.getRequestBody().readAllBytes();
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, AUTHORIZED.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(AUTHORIZED);
+      }
+    });
+    bank.start();
+
+    requestThreads = threads.equals("virtual")
+        ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    // Enough connections for the whole burst, so only the threading model differs
+    httpClient = HttpAsyncClients.custom()
+        .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnPerRoute(BURST)
+            .setMaxConnTotal(BURST)
+            .build())
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setResponseTimeout(Timeout.ofSeconds(30))
+            .build())
+        .build();
+    httpClient.start();
+    // Breaker and limit wide open, nothing but the bank's latency should hold calls back
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    client = new AcquiringBankClient(httpClient, new ObjectMapper(),
+        new BankCircuitBreaker(Clock.systemUTC(), BURST, BURST, 100, 100, NEVER_SLOW_MS, 0, 1,
+            meterRegistry),
+        new AdaptiveConcurrencyLimit(BURST, BURST, BURST, NEVER_SLOW_MS, 0.9, meterRegistry),
+        new RetryBudget("bank.retries", Clock.systemUTC(), 0, 0, 1_000, meterRegistry),
+        new RequestHedger(false, 95, 0, new RetryBudget("bank.hedges", Clock.systemUTC(), 0, 0,
+            1_000, meterRegistry), meterRegistry),
+        new PaymentStageMetrics(meterRegistry), Runnable::run,
+        "http://localhost:" + bank.getAddress().getPort(), 0, 0, 0);
+    request = BankRequest.builder()
+        .cardNumber("2222405343248877")
+        .expiryDate("04/2030")
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    requestThreads.shutdownNow();
+    httpClient.close();
+    bank.stop(0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BURST)
+  public int burst() throws InterruptedException, ExecutionException {
+    List<Future<BankResponse>> responses = new ArrayList<>(BURST);
+    for (int i = 0; i < BURST; i++) {
+      responses.add(threads.equals("async")
+          ? client.processPaymentAsync(request)
+          : requestThreads.submit(() -> client.processPayment(request)));
+    }
+    int authorized = 0;
+    for (Future<BankResponse> response : responses) {
+      authorized += response.get().isAuthorized() ? 1 : 0;
+    }
+    return authorized;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.checkout.payment.gateway.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the bank simulator in {@code imposters/bank_simulator.ejs}, with the
+ * same card-number rules: odd last digit authorized, even declined, 0 unavailable (503), and
+ * 400 when a required field is missing. On top of those it waits out a configurable latency
+ * and fails a share of calls with 503, so retries and the circuit breaker come into play.
+ */
+class FakeBank implements Closeable {
+
+  private static final List<String> REQUIRED_FIELDS =
+      List.of("card_number", "expiry_date", "currency", "amount", "cvv");
+  private static final byte[] MISSING_FIELDS = ("{\"error_message\":"
+      + "\"Not all required properties were sent in the request\"}")
+      .getBytes(StandardCharsets.UTF_8);
+  private static final byte[] DECLINED = "{\"authorized\":false,\"authorization_code\":\"\"}"
+      .getBytes(StandardCharsets.UTF_8);
+  private static final byte[] UNAVAILABLE = "{}".getBytes(StandardCharsets.UTF_8);
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final LatencyDistribution latency;
+  private final double errorPercent;
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Map<String, LongAdder> answers = new ConcurrentHashMap<>();
+
+  FakeBank(int port, LatencyDistribution latency, double errorPercent) throws IOException {
+    this.latency = latency;
+    this.errorPercent = errorPercent;
+    this.server = HttpServer.create(new InetSocketAddress("localhost", port), 4_096);
+    server.setExecutor(executor);
+    server.createContext("/payments", this::handle);
+    server.start();
+  }
+
+  String url() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  // Answers given so far, by outcome
+  Map<String, LongAdder> answers() {
+    return answers;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+      if (!"POST".equals(exchange.getRequestMethod()) || body == null
+          || !REQUIRED_FIELDS.stream().allMatch(body::hasNonNull)) {
+        respond(exchange, "bad_request", 400, MISSING_FIELDS);
+        return;
+      }
+
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      TimeUnit.NANOSECONDS.sleep(latency.sampleNanos(random));
+
+      String cardNumber = body.get("card_number").asText();
+      int lastDigit = cardNumber.isEmpty() ? 0 : cardNumber.charAt(cardNumber.length() - 1) - '0';
+      if (lastDigit == 0 || random.nextDouble(100) < errorPercent) {
+        respond(exchange, "unavailable", 503, UNAVAILABLE);
+      } else if (lastDigit % 2 == 1) {
+        respond(exchange, "authorized", 200, ("{\"authorized\":true,\"authorization_code\":\""
+            + UUID.randomUUID() + "\"}").getBytes(StandardCharsets.UTF_8));
+      } else {
+        respond(exchange, "declined", 200, DECLINED);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void respond(HttpExchange exchange, String answer, int status, byte[] body)
+      throws IOException {
+    answers.computeIfAbsent(answer, key -> new LongAdder()).increment();
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.checkout.payment.gateway.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long the fake bank takes to answer, parsed from {@code fixed:<ms>},
+ * {@code uniform:<min ms>:<max ms>} or {@code lognormal:<median ms>:<p99 ms>}. The log-normal
+ * has the long right tail real banks have.
+ */
+interface LatencyDistribution {
+
+  // z-score of the 99th percentile of a standard normal
+  double Z_99 = 2.3263;
+
+  long sampleNanos(ThreadLocalRandom random);
+
+  static LatencyDistribution parse(String spec) {
+    String[] parts = spec.split(":");
+    try {
+      switch (parts[0]) {
+        case "fixed" -> {
+          long nanos = millis(parts[1]);
+          return random -> nanos;
+        }
+        case "uniform" -> {
+          long min = millis(parts[1]);
+          long max = millis(parts[2]);
+          return random -> random.nextLong(min, max + 1);
+        }
+        case "lognormal" -> {
+          double median = millis(parts[1]);
+          double p99 = millis(parts[2]);
+          double mu = Math.log(median);
+          double sigma = Math.log(p99 / median) / Z_99;
+          return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+        }
+        default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+    }
+  }
+
+  private static long millis(String value) {
+    return TimeUnit.MICROSECONDS.toNanos(Math.round(Double.parseDouble(value) * 1_000));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.checkout.payment.gateway.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends payments at a fixed rate whatever the gateway's latency, the way independent clients
+ * do, rather than waiting for one answer before sending the next.
+ *
+ * <p>Each request has an intended send time on the schedule, and its latency is measured from
+ * that time, not from when it actually went out. A stall in the gateway, or in this driver,
+ * therefore shows up in the latency of every request it delayed, which corrects for
+ * coordinated omission. The time from the actual send is kept too, as service time; the gap
+ * between the two is time spent queued behind the stall.
+ *
+ * <p>A request dropped because {@code maxInFlight} were already outstanding never gets an
+ * answer, so it counts as a failure with a latency of at least the rest of the run, from its
+ * intended send time to the end. Leaving it out would hide the worst of a stall from the
+ * percentiles.
+ */
+class OpenLoopDriver {
+
+  private static final int EXPIRY_YEAR = LocalDate.now().getYear() + 1;
+
+  private final URI payments;
+  private final int rps;
+  private final int maxInFlight;
+  private final String run = UUID.randomUUID().toString().substring(0, 8);
+
+  // Microseconds, resized as needed so no outlier is lost
+  private final Histogram latency = new ConcurrentHistogram(3);
+  private final Histogram serviceTime = new ConcurrentHistogram(3);
+  private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+  private final LongAdder ioErrors = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private long measuredNanos;
+
+  OpenLoopDriver(URI payments, int rps, int maxInFlight) {
+    this.payments = payments;
+    this.rps = rps;
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Sends for the warmup and then the measured duration, and waits for the answers of the
+   * measured requests. Only requests scheduled after the warmup are recorded.
+   */
+  void run(Duration warmup, Duration duration) throws InterruptedException {
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .executor(executor)
+        .build();
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+    long start = System.nanoTime();
+    long measureFrom = start + warmup.toNanos();
+    long end = measureFrom + duration.toNanos();
+
+    for (long i = 0; ; i++) {
+      long intended = start + i * interval;
+      if (intended >= end) {
+        break;
+      }
+      for (long wait = intended - System.nanoTime(); wait > 0;
+          wait = intended - System.nanoTime()) {
+        LockSupport.parkNanos(wait);
+      }
+      boolean measured = intended >= measureFrom;
+      // Bounds memory when the gateway stops answering; each one is a request never sent
+      if (!inFlight.tryAcquire()) {
+        if (measured) {
+          dropped.increment();
+          latency.recordValue(TimeUnit.NANOSECONDS.toMicros(end - intended));
+        }
+        continue;
+      }
+
+      long sent = System.nanoTime();
+      client.sendAsync(request(i), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, failure) -> {
+            long done = System.nanoTime();
+            inFlight.release();
+            if (!measured) {
+              return;
+            }
+            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(done - intended));
+            serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(done - sent));
+            if (failure != null) {
+              ioErrors.increment();
+            } else {
+              statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder())
+                  .increment();
+            }
+          });
+    }
+
+    if (!inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS)) {
+      System.err.println("Gave up waiting for " + (maxInFlight - inFlight.availablePermits())
+          + " outstanding requests");
+    }
+    measuredNanos = end - measureFrom;
+    executor.shutdownNow();
+  }
+
+  void report(PrintStream out) {
+    long answered = latency.getTotalCount() - dropped.sum();
+    out.printf("target:      %d req/s%n", rps);
+    out.printf("throughput:  %.1f req/s answered%n",
+        answered / (measuredNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+    out.printf("answered:    %d, io errors %d, dropped %d (over %d in flight)%n",
+        answered, ioErrors.sum(), dropped.sum(), maxInFlight);
+    out.printf("statuses:    %s%n", new TreeMap<>(statuses));
+    if (dropped.sum() > 0) {
+      out.printf("latency includes the %d dropped requests as failures at their lower bound, "
+          + "raise load.max-in-flight for exact values%n", dropped.sum());
+    }
+    out.println();
+    out.println("ms           latency  service time");
+    for (double percentile : new double[] {50, 90, 99, 99.9, 99.99}) {
+      out.printf("p%-8s %10.2f %13.2f%n", percentile, millis(latency, percentile),
+          millis(serviceTime, percentile));
+    }
+    out.printf("max       %10.2f %13.2f%n", latency.getMaxValue() / 1_000.0,
+        serviceTime.getMaxValue() / 1_000.0);
+  }
+
+  // Full distributions, plottable with HdrHistogram's plotter, in milliseconds
+  void writeDistributions(PrintStream latencyOut, PrintStream serviceTimeOut) {
+    latency.outputPercentileDistribution(latencyOut, 1_000.0);
+    serviceTime.outputPercentileDistribution(serviceTimeOut, 1_000.0);
+  }
+
+  private static double millis(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / 1_000.0;
+  }
+
+  // A new idempotency key each time, so every request is a new payment that reaches the bank
+  private HttpRequest request(long sequence) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    // Last digit 1-9: authorized when odd, declined when even, never the bank's 503 card
+    String body = "{\"idempotency_key\":\"load-" + run + "-" + sequence + "\","
+        + "\"card_number\":\"222240534324887" + (1 + random.nextInt(9)) + "\","
+        + "\"expiry_month\":4,\"expiry_year\":" + EXPIRY_YEAR + ","
+        + "\"currency\":\"GBP\",\"amount\":" + (1 + random.nextInt(100_000)) + ","
+        + "\"cvv\":\"123\"}";
+    return HttpRequest.newBuilder(payments)
+        .timeout(Duration.ofSeconds(30))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.checkout.payment.gateway.load;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.TreeMap;
+
+/**
+ * Open-loop load test of {@code POST /api/payments} against a {@link FakeBank}, all on one
+ * machine. Starts the gateway in this JVM unless {@code load.target} points at one already
+ * running, which then has to be configured with the fake bank's URL ({@code load.bank-port}
+ * fixes its port).
+ *
+ * <p>Run with ./gradlew loadTest [-Pload.rps=500] [-Pload.duration-seconds=60]
+ * [-Pload.warmup-seconds=15] [-Pload.max-in-flight=10000] [-Pload.bank-latency=lognormal:20:200]
+ * [-Pload.bank-error-percent=0] [-Pload.bank-port=0] [-Pload.target=http://localhost:8090]
+ * [-Pload.output=build/results/load]
+ */
+public class PaymentLoadTest {
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int rps = Integer.getInteger("load.rps", 500);
+    Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 60));
+    Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 15));
+    int maxInFlight = Integer.getInteger("load.max-in-flight", 10_000);
+    LatencyDistribution bankLatency = LatencyDistribution.parse(
+        System.getProperty("load.bank-latency", "lognormal:20:200"));
+    double bankErrorPercent =
+        Double.parseDouble(System.getProperty("load.bank-error-percent", "0"));
+    int bankPort = Integer.getInteger("load.bank-port", 0);
+    String target = System.getProperty("load.target");
+    Path output = Path.of(System.getProperty("load.output", "build/results/load"));
+
+    try (FakeBank bank = new FakeBank(bankPort, bankLatency, bankErrorPercent)) {
+      ConfigurableApplicationContext gateway = null;
+      if (target == null) {
+        gateway = new SpringApplicationBuilder(PaymentGatewayApplication.class)
+            .properties(
+                "server.port=0",
+                "bank.simulator.url=" + bank.url(),
+                "logging.level.com.checkout.payment.gateway=WARN")
+            .run();
+        target = "http://localhost:" + gateway.getEnvironment().getProperty("local.server.port");
+      }
+      System.out.printf("Fake bank at %s, gateway at %s%n", bank.url(), target);
+
+      try {
+        OpenLoopDriver driver = new OpenLoopDriver(URI.create(target + "/api/payments"), rps,
+            maxInFlight);
+        driver.run(warmup, duration);
+
+        System.out.println();
+        driver.report(System.out);
+        System.out.printf("bank:        %s%n", new TreeMap<>(bank.answers()));
+
+        Files.createDirectories(output);
+        try (PrintStream latency = new PrintStream(output.resolve("latency.hgrm").toFile());
+            PrintStream serviceTime =
+                new PrintStream(output.resolve("service-time.hgrm").toFile())) {
+          driver.writeDistributions(latency, serviceTime);
+        }
+        System.out.printf("Distributions written to %s%n", output.toAbsolutePath());
+      } finally {
+        if (gateway != null) {
+          gateway.close();
+        }
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.checkout.payment.gateway.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.metrics.PaymentOutcome;
+import com.checkout.payment.gateway.metrics.PaymentStage;
+import com.checkout.payment.gateway.metrics.PaymentTimings;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost per payment on the request threads. {@code perEventLines} is what the gateway
+ * did before: five INFO lines formatted and written by the thread handling the payment, the
+ * controller's, the bank client's two, the repository's and the service's.
+ * {@code asyncRecord} is one {@link AsyncPaymentLog} record, and {@code asyncRecordSampledOut}
+ * a success the sampler skips.
+ *
+ * <p>Logback writes to a discarded stream with a pattern like Spring Boot's console one, so
+ * the numbers are formatting and appender locking rather than disk. Under sustained load the
+ * async writer can fall behind and drop, check {@code payment.log.records} with the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class PaymentLoggingBenchmark {
+
+  private static final Logger EVENTS =
+      LoggerFactory.getLogger("com.checkout.payment.gateway.service.PaymentGatewayService");
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private PostPaymentRequest request;
+  private PaymentResult result;
+  private PaymentTimings timings;
+  private AsyncPaymentLog sampledIn;
+  private AsyncPaymentLog sampledOut;
+  private OutputStreamAppender<ILoggingEvent> appender;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    context.reset();
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern(
+        "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n");
+    encoder.start();
+    appender = new OutputStreamAppender<>();
+    appender.setContext(context);
+    appender.setEncoder(encoder);
+    appender.setOutputStream(OutputStream.nullOutputStream());
+    appender.start();
+    ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+    root.setLevel(ch.qos.logback.classic.Level.INFO);
+    root.addAppender(appender);
+
+    request = PostPaymentRequest.builder()
+        .idempotencyKey("order-12345678")
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .build();
+    result = PaymentResult.authorized(PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .build());
+    timings = new PaymentTimings();
+    for (PaymentStage stage : PaymentStage.values()) {
+      timings.record(stage, timings.getStarted());
+    }
+    sampledIn = new AsyncPaymentLog(8192, 1.0, meterRegistry);
+    sampledOut = new AsyncPaymentLog(8192, 0.0, meterRegistry);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sampledIn.close();
+    sampledOut.close();
+    appender.stop();
+  }
+
+  @Benchmark
+  public void perEventLines() {
+    UUID id = result.getResponse().getId();
+    EVENTS.info("Received payment request");
+    EVENTS.info("Calling bank at {}", "http://localhost:8080/payments");
+    EVENTS.info("Bank responded: authorized={}", true);
+    EVENTS.info("Payment stored: id={}", id);
+    EVENTS.info("Payment processed: id={}, status={}", id, PaymentStatus.AUTHORIZED.getName());
+  }
+
+  @Benchmark
+  public void asyncRecord() {
+    sampledIn.record(request, timings, PaymentOutcome.AUTHORIZED, result, null);
+  }
+
+  @Benchmark
+  public void asyncRecordSampledOut() {
+    sampledOut.record(request, timings, PaymentOutcome.AUTHORIZED, result, null);
+  }
+}
\ No newline at end of file
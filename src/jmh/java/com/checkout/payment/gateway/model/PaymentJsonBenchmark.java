@@ -0,0 +1,94 @@
+package com.checkout.payment.gateway.model;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.PaymentJson;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson binding of the payment API's request and response bodies, both directions, as the
+ * message converters do it: from and to bytes through a shared {@link ObjectMapper}. Next to
+ * them, the stored response encoding of {@link PaymentJson}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentJsonBenchmark {
+
+  final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  PostPaymentRequest request;
+  PostPaymentResponse response;
+  byte[] requestJson;
+  byte[] responseJson;
+
+  @Setup
+  public void setUp() throws IOException {
+    request = PostPaymentRequest.builder()
+        .idempotencyKey("order-12345678")
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .build();
+    response = PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .createdAt(Instant.now())
+        .build();
+    requestJson = objectMapper.writeValueAsBytes(request);
+    responseJson = objectMapper.writeValueAsBytes(response);
+  }
+
+  @Benchmark
+  public PostPaymentRequest readRequest() throws IOException {
+    return objectMapper.readValue(requestJson, PostPaymentRequest.class);
+  }
+
+  @Benchmark
+  public byte[] writeRequest() throws IOException {
+    return objectMapper.writeValueAsBytes(request);
+  }
+
+  @Benchmark
+  public PostPaymentResponse readResponse() throws IOException {
+    return objectMapper.readValue(responseJson, PostPaymentResponse.class);
+  }
+
+  @Benchmark
+  public byte[] writeResponse() throws IOException {
+    return objectMapper.writeValueAsBytes(response);
+  }
+
+  // Paid once per stored payment, reads and replays then write the bytes as they are
+  @Benchmark
+  public byte[] encodeResponse() {
+    return PaymentJson.encode(response).getBody();
+  }
+}
\ No newline at end of file
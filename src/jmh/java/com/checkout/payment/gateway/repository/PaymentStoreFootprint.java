@@ -0,0 +1,91 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.ref.Reference;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bytes retained per stored payment for each {@link PaymentStore} engine, on its own and as the
+ * application runs it: wrapped in {@link IndexedPaymentStore}, with {@link PaymentExpiry}
+ * tracking every payment under the default retention settings.
+ * Run with ./gradlew paymentStoreFootprint [-Precords=N]
+ */
+public class PaymentStoreFootprint {
+
+  private static final long KEY_TTL_MS = TimeUnit.DAYS.toMillis(1);
+  private static final long PAYMENT_TTL_MS = TimeUnit.DAYS.toMillis(30);
+  private static final long TICK_MS = TimeUnit.MINUTES.toMillis(1);
+
+  public static void main(String[] args) throws InterruptedException {
+    int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+    System.out.printf("records=%d%n", records);
+    measure("heap", records, HeapPaymentStore::new, false);
+    measure("heap", records, HeapPaymentStore::new, true);
+    measure("off-heap", records, () -> new OffHeapPaymentStore(records), false);
+    measure("off-heap", records, () -> new OffHeapPaymentStore(records), true);
+  }
+
+  private static void measure(String name, int records, Supplier<PaymentStore> engines,
+      boolean indexedAndExpiring) throws InterruptedException {
+    long before = usedHeap();
+    PaymentStore engine = engines.get();
+    PaymentStore store = engine;
+    PaymentExpiry expiry = null;
+    if (indexedAndExpiring) {
+      store = new IndexedPaymentStore(engine, new PaymentIndex());
+      expiry = new PaymentExpiry(store, Clock.systemUTC(), KEY_TTL_MS, PAYMENT_TTL_MS, TICK_MS,
+          new SimpleMeterRegistry());
+    }
+    fill(store, expiry, records);
+    long heapBytes = usedHeap() - before;
+    long directBytes = engine instanceof OffHeapPaymentStore offHeap
+        ? offHeap.allocatedBytes()
+        : 0;
+
+    System.out.printf("%-8s %-26s %6.1f bytes/payment on heap, %6.1f direct%n", name,
+        indexedAndExpiring ? "with indexes and expiry:" : "store only:",
+        (double) heapBytes / records, (double) directBytes / records);
+    // Keep everything reachable until after the measurement
+    Reference.reachabilityFence(store);
+    Reference.reachabilityFence(expiry);
+  }
+
+  private static void fill(PaymentStore store, PaymentExpiry expiry, int records) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < records; i++) {
+      PostPaymentResponse payment = PostPaymentResponse.builder()
+          .id(new UUID(random.nextLong(), random.nextLong()))
+          .status(random.nextBoolean() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED)
+          .cardNumberLastFour(String.format("%04d", random.nextInt(10_000)))
+          .expiryMonth(1 + random.nextInt(12))
+          .expiryYear(2030)
+          .currency("GBP")
+          .amount(1 + random.nextInt(100_000))
+          .createdAt(Instant.ofEpochMilli(now - random.nextInt(60_000)))
+          .build();
+      store.putIfAbsent(payment, "order-" + Long.toHexString(random.nextLong()) + "-" + i);
+      if (expiry != null) {
+        expiry.track(payment);
+      }
+    }
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
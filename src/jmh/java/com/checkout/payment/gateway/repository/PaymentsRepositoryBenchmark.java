@@ -0,0 +1,153 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PaymentsRepository} reads by ID and by idempotency key against a store of
+ * {@value #PAYMENTS} payments, and idempotent writes of new keys, on 1, 8 and 32 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentsRepositoryBenchmark {
+
+  static final int PAYMENTS = 100_000;
+
+  @State(Scope.Benchmark)
+  public static class Repository {
+
+    PaymentsRepository repository;
+    UUID[] ids;
+    String[] keys;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      repository = new PaymentsRepository(
+          new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()), Optional.empty(),
+          Optional.empty(), Optional.empty());
+      ids = new UUID[PAYMENTS];
+      keys = new String[PAYMENTS];
+      for (int i = 0; i < PAYMENTS; i++) {
+        PostPaymentResponse payment = payment();
+        ids[i] = payment.getId();
+        keys[i] = "stored-" + i;
+        repository.addWithIdempotencyKey(payment, keys[i]);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Writer {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final String prefix = "writer-" + THREADS.incrementAndGet() + "-";
+    private long sequence;
+
+    String nextKey() {
+      return prefix + sequence++;
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Optional<PostPaymentResponse> getById1(Repository repository) {
+    return getById(repository);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Optional<PostPaymentResponse> getById8(Repository repository) {
+    return getById(repository);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Optional<PostPaymentResponse> getById32(Repository repository) {
+    return getById(repository);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Optional<PostPaymentResponse> getByIdempotencyKey1(Repository repository) {
+    return getByIdempotencyKey(repository);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Optional<PostPaymentResponse> getByIdempotencyKey8(Repository repository) {
+    return getByIdempotencyKey(repository);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Optional<PostPaymentResponse> getByIdempotencyKey32(Repository repository) {
+    return getByIdempotencyKey(repository);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Optional<PostPaymentResponse> write1(Repository repository, Writer writer) {
+    return write(repository, writer);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Optional<PostPaymentResponse> write8(Repository repository, Writer writer) {
+    return write(repository, writer);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Optional<PostPaymentResponse> write32(Repository repository, Writer writer) {
+    return write(repository, writer);
+  }
+
+  private static Optional<PostPaymentResponse> getById(Repository repository) {
+    return repository.repository.get(
+        repository.ids[ThreadLocalRandom.current().nextInt(PAYMENTS)]);
+  }
+
+  private static Optional<PostPaymentResponse> getByIdempotencyKey(Repository repository) {
+    return repository.repository.getByIdempotencyKey(
+        repository.keys[ThreadLocalRandom.current().nextInt(PAYMENTS)]);
+  }
+
+  private static Optional<PostPaymentResponse> write(Repository repository, Writer writer) {
+    return repository.repository.addWithIdempotencyKey(payment(), writer.nextKey());
+  }
+
+  private static PostPaymentResponse payment() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return PostPaymentResponse.builder()
+        .id(new UUID(random.nextLong(), random.nextLong()))
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .build();
+  }
+}
\ No newline at end of file
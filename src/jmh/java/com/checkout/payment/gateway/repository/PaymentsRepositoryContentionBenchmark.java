@@ -0,0 +1,106 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Idempotent write throughput with every core writing distinct keys: the lock-free
+ * {@link PaymentsRepository} against the previous single-monitor implementation. The repository
+ * also keeps the query indexes up to date, as in production, which the baseline predates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class PaymentsRepositoryContentionBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Stores {
+
+    PaymentsRepository lockFree;
+    SynchronizedRepository synchronizedRepository;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      lockFree = new PaymentsRepository(
+          new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()), Optional.empty(),
+          Optional.empty(), Optional.empty());
+      synchronizedRepository = new SynchronizedRepository();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Writer {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final String prefix = "writer-" + THREADS.incrementAndGet() + "-";
+    private long sequence;
+
+    PostPaymentResponse nextPayment() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      return PostPaymentResponse.builder()
+          .id(new UUID(random.nextLong(), random.nextLong()))
+          .status(PaymentStatus.AUTHORIZED)
+          .cardNumberLastFour("8877")
+          .expiryMonth(12)
+          .expiryYear(2030)
+          .currency("GBP")
+          .amount(100)
+          .build();
+    }
+
+    String nextKey() {
+      return prefix + sequence++;
+    }
+  }
+
+  @Benchmark
+  public Optional<PostPaymentResponse> lockFreeWrite(Stores stores, Writer writer) {
+    return stores.lockFree.addWithIdempotencyKey(writer.nextPayment(), writer.nextKey());
+  }
+
+  @Benchmark
+  public Optional<PostPaymentResponse> synchronizedWrite(Stores stores, Writer writer) {
+    return stores.synchronizedRepository.addWithIdempotencyKey(writer.nextPayment(),
+        writer.nextKey());
+  }
+
+  // The write path as it was before the lock was removed, kept as the baseline
+  static class SynchronizedRepository {
+
+    private final ConcurrentHashMap<UUID, PostPaymentResponse> payments = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UUID> idempotencyIndex = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+
+    Optional<PostPaymentResponse> addWithIdempotencyKey(PostPaymentResponse payment,
+        String idempotencyKey) {
+      synchronized (lock) {
+        idempotencyIndex.put(idempotencyKey, payment.getId());
+        payments.put(payment.getId(), payment);
+      }
+      return Optional.empty();
+    }
+  }
+}
\ No newline at end of file
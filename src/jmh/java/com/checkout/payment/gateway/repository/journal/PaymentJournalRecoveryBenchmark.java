@@ -0,0 +1,104 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup cost of rebuilding the store: full journal replay against loading the latest snapshot
+ * and replaying the tail after it. The snapshot covers 90% of the records. Divide the record
+ * count by the reported time for recovery throughput in records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class PaymentJournalRecoveryBenchmark {
+
+  private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  @Param({"1000000", "10000000"})
+  int records;
+
+  Path directory;
+  HeapPaymentStore store;
+
+  @Setup(Level.Trial)
+  public void writeJournal() throws IOException {
+    directory = Files.createTempDirectory("payment-journal-bench");
+    HeapPaymentStore source = new HeapPaymentStore();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE, FsyncPolicy.OS, 0)) {
+      journal.replay((payment, key) -> { });
+      for (int i = 0; i < records; i++) {
+        if (i == records - records / 10) {
+          new PaymentSnapshotter(directory, journal, source, 1, Long.MAX_VALUE).snapshot();
+        }
+        PostPaymentResponse payment = PostPaymentResponse.builder()
+            .id(new UUID(random.nextLong(), random.nextLong()))
+            .status(PaymentStatus.AUTHORIZED)
+            .cardNumberLastFour("8877")
+            .expiryMonth(12)
+            .expiryYear(2030)
+            .currency("GBP")
+            .amount(100)
+            .build();
+        source.putIfAbsent(payment, "order-" + i);
+        journal.append(payment, "order-" + i);
+      }
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void freshStore() {
+    store = new HeapPaymentStore();
+  }
+
+  @Benchmark
+  public long fullReplay() throws IOException {
+    try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE, FsyncPolicy.OS, 0)) {
+      return journal.replay(store::restore);
+    }
+  }
+
+  @Benchmark
+  public long snapshotPlusTail() throws IOException {
+    try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE, FsyncPolicy.OS, 0)) {
+      PaymentSnapshotter snapshotter = new PaymentSnapshotter(directory, journal, store, 1,
+          Long.MAX_VALUE);
+      JournalPosition from = snapshotter.loadLatest(store::restore, store::clear);
+      return journal.replayFrom(from, store::restore);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteJournal() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
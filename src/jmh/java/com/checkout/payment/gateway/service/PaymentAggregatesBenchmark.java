@@ -0,0 +1,55 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of recording a payment outcome with every core recording at once, against a pair of
+ * shared {@link AtomicLong}s that all threads contend on. Either is nanoseconds next to a
+ * bank call of milliseconds; the atomic pair is here to show what striping saves under load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class PaymentAggregatesBenchmark {
+
+  private static final String[] CURRENCIES = {"GBP", "USD", "EUR"};
+
+  final PaymentAggregates aggregates =
+      new PaymentAggregates(Clock.systemUTC(), Set.of(CURRENCIES));
+  final AtomicLong count = new AtomicLong();
+  final AtomicLong amount = new AtomicLong();
+
+  @Benchmark
+  public void record() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    aggregates.record(random.nextBoolean() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED,
+        CURRENCIES[random.nextInt(CURRENCIES.length)], random.nextInt(10_000));
+  }
+
+  @Benchmark
+  public void sharedAtomics() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    count.incrementAndGet();
+    amount.addAndGet(random.nextInt(10_000));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.checkout.payment.gateway.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payment ids generated per microsecond on 1, 8 and 64 threads: {@link UUID#randomUUID},
+ * which every thread draws from one shared {@link java.security.SecureRandom}, against
+ * {@link TimeOrderedPaymentIdGenerator} and its striped generators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentIdGeneratorBenchmark {
+
+  final PaymentIdGenerator random = UUID::randomUUID;
+  final PaymentIdGenerator timeOrdered =
+      new TimeOrderedPaymentIdGenerator(Clock.systemUTC(), 0);
+
+  @Benchmark
+  @Threads(1)
+  public UUID random1() {
+    return random.next();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public UUID random8() {
+    return random.next();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public UUID random64() {
+    return random.next();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public UUID timeOrdered1() {
+    return timeOrdered.next();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public UUID timeOrdered8() {
+    return timeOrdered.next();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public UUID timeOrdered64() {
+    return timeOrdered.next();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentNotFoundException;
+import com.checkout.payment.gateway.model.ErrorResponse;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import com.checkout.payment.gateway.repository.IndexedPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentIndex;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payments read per microsecond, one {@code GET /api/payments/{id}} at a time against one
+ * {@code /api/payments/lookup} for the whole list. Both include the service, the repository and
+ * the JSON body, the stored encoding on both paths, and a miss on the single path pays for the
+ * not-found exception and its error body. Servlet and HTTP overhead per request come on top of
+ * the single path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentLookupBenchmark {
+
+  private static final int IDS = 1000;
+  private static final int STORED = 100_000;
+
+  @Param({"0", "10"})
+  int missPercent;
+
+  ObjectMapper objectMapper;
+  PaymentGatewayService gatewayService;
+  PaymentLookupService lookupService;
+  List<UUID> ids;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    objectMapper = new ObjectMapper().findAndRegisterModules();
+    PaymentsRepository repository = new PaymentsRepository(
+        new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()),
+        Optional.empty(), Optional.empty(), Optional.empty());
+    gatewayService = new PaymentGatewayService(repository, null, null, null, null, null, null,
+        null);
+    lookupService = new PaymentLookupService(repository);
+
+    List<UUID> stored = new ArrayList<>(STORED);
+    for (int i = 0; i < STORED; i++) {
+      PostPaymentResponse payment = PostPaymentResponse.builder()
+          .id(UUID.randomUUID())
+          .status(PaymentStatus.AUTHORIZED)
+          .cardNumberLastFour("8877")
+          .expiryMonth(12)
+          .expiryYear(2030)
+          .currency("GBP")
+          .amount(100 + i)
+          .createdAt(Instant.now())
+          .build();
+      repository.addWithIdempotencyKey(payment, "order-" + i);
+      stored.add(payment.getId());
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    ids = new ArrayList<>(IDS);
+    for (int i = 0; i < IDS; i++) {
+      ids.add(random.nextInt(100) < missPercent
+          ? UUID.randomUUID()
+          : stored.get(random.nextInt(STORED)));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(IDS)
+  public void singleGets(Blackhole blackhole) throws IOException {
+    for (UUID id : ids) {
+      try {
+        blackhole.consume(gatewayService.getPaymentById(id).getBody());
+      } catch (PaymentNotFoundException e) {
+        blackhole.consume(objectMapper.writeValueAsBytes(new ErrorResponse(e.getMessage())));
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(IDS)
+  public int lookup() throws IOException {
+    return lookupService.lookup(ids, OutputStream.nullOutputStream());
+  }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.checkout.payment.gateway.validation;
+
+import com.checkout.payment.gateway.model.domain.Card;
+import com.checkout.payment.gateway.model.domain.Money;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of a payment, accepted and rejected, and the two domain checks the previous
+ * business validation was made of. The {@code fullValidation*} pair compares the whole path a
+ * valid request takes, bean validation followed by business validation, as it was before
+ * ({@link LegacyPaymentValidator} after Hibernate Validator) and as it is now.
+ * Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentValidatorBenchmark {
+
+  final PaymentValidator validator = new PaymentValidator(List.of("USD", "GBP", "EUR"));
+  final PaymentRequestValidator requestValidator = new PaymentRequestValidator();
+  final LegacyPaymentValidator legacyValidator = new LegacyPaymentValidator();
+
+  final PostPaymentRequest valid = request(2030, "GBP");
+  final PostPaymentRequest invalid = request(2020, "JPY");
+
+  final Card card = Card.builder()
+      .number("2222405343248877")
+      .expiryMonth(4)
+      .expiryYear(2030)
+      .cvv("123")
+      .build();
+
+  final Money money = Money.builder()
+      .amount(100)
+      .currency("gbp")
+      .build();
+
+  ValidatorFactory validatorFactory;
+  Validator beanValidator;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    beanValidator = validatorFactory.getValidator();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Benchmark
+  public List<String> validateAccepted() {
+    return validator.validate(valid);
+  }
+
+  @Benchmark
+  public List<String> validateRejected() {
+    return validator.validate(invalid);
+  }
+
+  @Benchmark
+  public List<String> legacyValidateAccepted() {
+    return legacyValidator.validate(valid);
+  }
+
+  @Benchmark
+  public boolean cardIsExpired() {
+    return card.isExpired();
+  }
+
+  @Benchmark
+  public boolean moneyIsCurrencySupported() {
+    return money.isCurrencySupported();
+  }
+
+  @Benchmark
+  public void fullValidationBefore(Blackhole blackhole) {
+    Set<ConstraintViolation<PostPaymentRequest>> violations = beanValidator.validate(valid);
+    blackhole.consume(violations);
+    blackhole.consume(legacyValidator.validate(valid));
+  }
+
+  @Benchmark
+  public void fullValidationNow(Blackhole blackhole) {
+    blackhole.consume(requestValidator.validate(valid));
+    blackhole.consume(validator.validate(valid));
+  }
+
+  private static PostPaymentRequest request(int expiryYear, String currency) {
+    return PostPaymentRequest.builder()
+        .idempotencyKey("order-12345678")
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(expiryYear)
+        .currency(currency)
+        .amount(100)
+        .cvv("123")
+        .build();
+  }
+
+  // Business validation as it was, building a Card and Money per request, kept as the baseline
+  static class LegacyPaymentValidator {
+
+    List<String> validate(PostPaymentRequest request) {
+      List<String> errors = new ArrayList<>();
+
+      Card card = Card.builder()
+          .number(request.getCardNumber())
+          .expiryMonth(request.getExpiryMonth())
+          .expiryYear(request.getExpiryYear())
+          .cvv(request.getCvv())
+          .build();
+
+      Money money = Money.builder()
+          .amount(request.getAmount())
+          .currency(request.getCurrency())
+          .build();
+
+      if (card.isExpired()) {
+        errors.add("Card has expired");
+      }
+
+      if (!money.isCurrencySupported()) {
+        errors.add("Currency '" + request.getCurrency() + "' is not supported. " +
+            "Allowed: " + Money.getSupportedCurrencies());
+      }
+
+      return errors;
+    }
+  }
+}
\ No newline at end of file
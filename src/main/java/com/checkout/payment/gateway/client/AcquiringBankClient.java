@@ -1,74 +1,261 @@
 package com.checkout.payment.gateway.client;
 
 import com.checkout.payment.gateway.exception.BankUnavailableException;
+import com.checkout.payment.gateway.metrics.PaymentStageMetrics;
+import com.checkout.payment.gateway.util.Futures;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking bank client: no thread waits on the bank while a call or a retry delay is
+ * outstanding. Responses are handed from the HTTP client's I/O threads to the callback
+ * executor, so the stages that follow (storing the payment) never stall the I/O reactor.
+ *
+ * <p>Retries wait out an exponential backoff with full jitter and draw on a process-wide
+ * {@link RetryBudget}. Every attempt, retries included, needs a slot from the concurrency
+ * limit and a permit from the circuit breaker, and reports its latency and outcome to both.
+ * When either refuses, the call fails fast with {@link BankUnavailableException} and is not
+ * retried. With hedging enabled a slow attempt is raced by a second one and the loser is
+ * cancelled, see {@link RequestHedger}; backoff and retries happen once per payment, whichever
+ * call of an attempt answers.
+ *
+ * <p>Bank JSON is written and read by {@link BankJsonCodec}, without data binding.
+ */
 @Component
 @Slf4j
 public class AcquiringBankClient implements BankClient {
 
-  private final RestTemplate restTemplate;
+  private final CloseableHttpAsyncClient httpClient;
+  private final JsonFactory jsonFactory;
+  private final BankCircuitBreaker circuitBreaker;
+  private final AdaptiveConcurrencyLimit concurrencyLimit;
+  private final RetryBudget retryBudget;
+  private final RequestHedger hedger;
+  private final PaymentStageMetrics stageMetrics;
+  private final Executor callbackExecutor;
   private final String bankUrl;
   private final int maxRetries;
   private final long retryDelayMs;
+  private final long retryMaxDelayMs;
 
   public AcquiringBankClient(
-      RestTemplate restTemplate,
+      CloseableHttpAsyncClient httpClient,
+      ObjectMapper objectMapper,
+      BankCircuitBreaker circuitBreaker,
+      AdaptiveConcurrencyLimit concurrencyLimit,
+      RetryBudget retryBudget,
+      RequestHedger hedger,
+      PaymentStageMetrics stageMetrics,
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+      Executor callbackExecutor,
       @Value("${bank.simulator.url}") String bankUrl,
       @Value("${bank.simulator.max-retries:1}") int maxRetries,
-      @Value("${bank.simulator.retry-delay-ms:1000}") long retryDelayMs) {
-    this.restTemplate = restTemplate;
+      @Value("${bank.simulator.retry-delay-ms:1000}") long retryDelayMs,
+      @Value("${bank.simulator.retry-max-delay-ms:5000}") long retryMaxDelayMs) {
+    this.httpClient = httpClient;
+    this.jsonFactory = objectMapper.getFactory();
+    this.circuitBreaker = circuitBreaker;
+    this.concurrencyLimit = concurrencyLimit;
+    this.retryBudget = retryBudget;
+    this.hedger = hedger;
+    this.stageMetrics = stageMetrics;
+    this.callbackExecutor = callbackExecutor;
     this.bankUrl = bankUrl;
     this.maxRetries = maxRetries;
     this.retryDelayMs = retryDelayMs;
+    this.retryMaxDelayMs = retryMaxDelayMs;
   }
 
   @Override
-  public BankResponse processPayment(BankRequest request) {
+  public CompletableFuture<BankResponse> processPaymentAsync(BankRequest request) {
+    byte[] body = BankJsonCodec.encode(request);
+    long started = System.nanoTime();
+    retryBudget.onRequest();
+    return hedger.timed(call(body, 0), started);
+  }
+
+  // One attempt, hedged if enabled, then the retries its failure calls for
+  private CompletableFuture<BankResponse> call(byte[] body, int attempt) {
+    return hedger.execute(() -> send(body, attempt), callbackExecutor)
+        .exceptionallyCompose(failure -> retry(body, attempt, failure));
+  }
+
+  // A single call to the bank. Cancelling it aborts the exchange and gives back its slot
+  private CompletableFuture<BankResponse> send(byte[] body, int attempt) {
+    if (!concurrencyLimit.tryAcquire()) {
+      log.debug("Bank call refused: {} calls already in flight", concurrencyLimit.getInFlight());
+      return CompletableFuture.failedFuture(
+          new BankUnavailableException("Too many concurrent bank calls"));
+    }
+    if (!circuitBreaker.tryAcquirePermission()) {
+      concurrencyLimit.release();
+      log.debug("Bank call refused: circuit breaker is {}", circuitBreaker.getState());
+      return CompletableFuture.failedFuture(new BankUnavailableException("Bank circuit is open"));
+    }
+
     String endpoint = bankUrl + "/payments";
-    int attempt = 0;
-    Exception lastException = null;
-
-    // Personal opinion: Could've used a library for retry but this was faster this way
-    while (attempt <= maxRetries) {
-      try {
-        if (attempt > 0) {
-          log.info("Retrying bank call, attempt {}/{}", attempt + 1, maxRetries + 1);
-          Thread.sleep(retryDelayMs * attempt);
-        }
+    log.debug("Calling bank at {}", endpoint);
+
+    long started = System.nanoTime();
+    CompletableFuture<SimpleHttpResponse> exchange = exchange(endpoint,
+        SimpleRequestBuilder.post(endpoint)
+            .setBody(body, ContentType.APPLICATION_JSON)
+            .build());
+    CompletableFuture<BankResponse> call = exchange
+        .whenComplete((response, failure) -> {
+          // Measured on the I/O thread, before any executor queueing
+          long duration = System.nanoTime() - started;
+          if (failure instanceof CancellationException) {
+            // Lost a hedging race: no outcome to report, only the slot and permit to give back
+            concurrencyLimit.release();
+            circuitBreaker.release();
+            stageMetrics.recordBankAttempt(attempt + 1, "cancelled", duration);
+            return;
+          }
+          boolean failed = failure != null || response.getCode() >= 500;
+          circuitBreaker.onResult(duration, failed);
+          concurrencyLimit.onResult(duration, failed);
+          if (!failed) {
+            hedger.recordLatency(duration);
+          }
+          stageMetrics.recordBankAttempt(attempt + 1, attemptResult(response, failure), duration);
+        })
+        .thenApplyAsync(this::readResponse, callbackExecutor);
+    call.whenComplete((response, failure) -> {
+      if (call.isCancelled()) {
+        exchange.cancel(true);
+      }
+    });
+    return call;
+  }
 
-        log.info("Calling bank at {}", endpoint);
-        ResponseEntity<BankResponse> response = restTemplate.postForEntity(
-            endpoint, request, BankResponse.class);
+  private CompletableFuture<BankResponse> retry(byte[] body, int attempt, Throwable failure) {
+    Throwable cause = Futures.unwrap(failure);
+    if (cause instanceof ResourceAccessException) {
+      log.warn("Bank connection failed (attempt {}): {}", attempt + 1, cause.getMessage());
+    } else if (cause instanceof HttpServerErrorException serverError) {
+      log.warn("Bank returned error {} (attempt {})", serverError.getStatusCode(), attempt + 1);
+    } else {
+      return CompletableFuture.failedFuture(cause);
+    }
 
-        BankResponse body = response.getBody();
-        log.info("Bank responded: authorized={}", body != null && body.isAuthorized());
-        return body;
+    if (attempt >= maxRetries) {
+      log.error("Bank unavailable after {} attempts", maxRetries + 1);
+      return CompletableFuture.failedFuture(new BankUnavailableException(
+          "Bank did not respond after " + (maxRetries + 1) + " attempts", cause));
+    }
 
-      } catch (ResourceAccessException e) {
-        log.warn("Bank connection failed (attempt {}): {}", attempt + 1, e.getMessage());
-        lastException = e;
-        attempt++;
+    if (!retryBudget.tryRetry()) {
+      log.error("Bank unavailable after {} attempts, retry budget exhausted", attempt + 1);
+      return CompletableFuture.failedFuture(new BankUnavailableException(
+          "Bank did not respond and the retry budget is exhausted", cause));
+    }
 
-      } catch (HttpServerErrorException e) {
-        log.warn("Bank returned error {} (attempt {})", e.getStatusCode(), attempt + 1);
-        lastException = e;
-        attempt++;
+    // Back off on a timer without holding a thread, then try again
+    int next = attempt + 1;
+    Executor delayed = CompletableFuture.delayedExecutor(backoffMs(attempt),
+        TimeUnit.MILLISECONDS, callbackExecutor);
+    return CompletableFuture.supplyAsync(() -> next, delayed)
+        .thenCompose(retry -> {
+          log.info("Retrying bank call, attempt {}/{}", retry + 1, maxRetries + 1);
+          return call(body, retry);
+        });
+  }
 
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        throw new BankUnavailableException("Interrupted while waiting to retry", e);
+  private static String attemptResult(SimpleHttpResponse response, Throwable failure) {
+    if (failure != null) {
+      return "io_error";
+    }
+    return response.getCode() >= 500 ? "server_error"
+        : response.getCode() >= 400 ? "client_error"
+        : "ok";
+  }
+
+  // Exponential backoff with full jitter, so callers that failed together do not retry together
+  long backoffMs(int attempt) {
+    long ceiling = retryDelayMs << Math.min(attempt, 20);
+    return ThreadLocalRandom.current().nextLong(Math.min(ceiling, retryMaxDelayMs) + 1);
+  }
+
+  // Cancelling the returned future aborts the exchange, which frees its pooled connection
+  private CompletableFuture<SimpleHttpResponse> exchange(String endpoint,
+      SimpleHttpRequest request) {
+    CompletableFuture<SimpleHttpResponse> response = new CompletableFuture<>();
+    FutureCallback<SimpleHttpResponse> callback = new FutureCallback<>() {
+      @Override
+      public void completed(SimpleHttpResponse result) {
+        response.complete(result);
+      }
+
+      @Override
+      public void failed(Exception e) {
+        response.completeExceptionally(new ResourceAccessException(
+            "I/O error on POST request for \"" + endpoint + "\": " + e.getMessage(),
+            e instanceof IOException io ? io : new IOException(e)));
       }
+
+      @Override
+      public void cancelled() {
+        response.completeExceptionally(new CancellationException("Bank call cancelled"));
+      }
+    };
+    try {
+      Future<SimpleHttpResponse> exchange = httpClient.execute(request, callback);
+      response.whenComplete((result, failure) -> {
+        if (response.isCancelled()) {
+          exchange.cancel(true);
+        }
+      });
+    } catch (RuntimeException e) { // A client that is shutting down throws rather than fails
+      callback.failed(e);
     }
+    return response;
+  }
 
-    log.error("Bank unavailable after {} attempts", maxRetries + 1);
-    throw new BankUnavailableException(
-        "Bank did not respond after " + (maxRetries + 1) + " attempts", lastException);
+  // Same outcomes RestTemplate used to give: 5xx and 4xx as exceptions, otherwise the body
+  private BankResponse readResponse(SimpleHttpResponse response) {
+    HttpStatusCode status = HttpStatusCode.valueOf(response.getCode());
+    if (status.is5xxServerError()) {
+      throw new HttpServerErrorException(status);
+    }
+    if (status.is4xxClientError()) {
+      throw new HttpClientErrorException(status);
+    }
+
+    BankResponse body;
+    try {
+      byte[] bytes = response.getBodyBytes();
+      body = bytes == null || bytes.length == 0
+          ? null
+          : BankJsonCodec.decode(jsonFactory, bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unreadable bank response", e);
+    }
+    log.debug("Bank responded: authorized={}", body != null && body.isAuthorized());
+    return body;
   }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.checkout.payment.gateway.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps bank calls in flight with a limit that adapts to the bank, additive increase and
+ * multiplicative decrease (AIMD).
+ *
+ * <p>A call that completes within {@code latencyThresholdMs} raises the limit by one, but only
+ * while at least half of it is in use, so an idle gateway does not grow it without bound. A
+ * call that fails or is slower than the threshold multiplies it by {@code backoffRatio}. The
+ * limit stays within {@code [minLimit, maxLimit]}; calls beyond it are refused rather than
+ * queued, so a slow bank sheds load instead of piling it up.
+ *
+ * <p>Lock-free: the slot count and the limit are both updated by compare-and-set.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Counter rejected;
+  private final AtomicLong limitBits; // the limit as a double, raw long bits
+
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+      long latencyThresholdMs, double backoffRatio, MeterRegistry meterRegistry) {
+    if (minLimit <= 0 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("Concurrency limit needs 0 < min <= max and a backoff"
+          + " ratio between 0 and 1");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = latencyThresholdMs * 1_000_000;
+    this.backoffRatio = backoffRatio;
+    this.limitBits = new AtomicLong(
+        Double.doubleToRawLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+
+    this.rejected = Counter.builder("bank.calls.rejected")
+        .description("Bank calls refused before being sent")
+        .tag("reason", "concurrency_limit")
+        .register(meterRegistry);
+    Gauge.builder("bank.concurrency.limit", this, AdaptiveConcurrencyLimit::getLimit)
+        .description("Bank calls allowed in flight")
+        .register(meterRegistry);
+    Gauge.builder("bank.concurrency.inflight", inFlight, AtomicInteger::get)
+        .description("Bank calls in flight")
+        .register(meterRegistry);
+  }
+
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(limitBits.get());
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  // False if the limit is reached, an acquired call must report back with onResult or release
+  public boolean tryAcquire() {
+    for (int current = inFlight.get(); ; current = inFlight.get()) {
+      if (current >= getLimit()) {
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  // Gives the slot back without a latency sample, for calls that were never sent
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  public void onResult(long durationNanos, boolean failed) {
+    int inFlightBefore = inFlight.getAndDecrement();
+    boolean backOff = failed || durationNanos > latencyThresholdNanos;
+    for (long bits = limitBits.get(); ; bits = limitBits.get()) {
+      double limit = Double.longBitsToDouble(bits);
+      double next;
+      if (backOff) {
+        next = Math.max(minLimit, limit * backoffRatio);
+      } else if (inFlightBefore * 2 >= limit) {
+        next = Math.min(maxLimit, limit + 1);
+      } else {
+        return;
+      }
+      if (next == limit || limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+        return;
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.checkout.payment.gateway.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker for bank calls, driven by the outcomes of the last {@code windowSize} calls.
+ *
+ * <p>While CLOSED every call is let through. Once the window holds at least
+ * {@code minimumCalls} outcomes and the share of failed or slow calls reaches its threshold
+ * the breaker OPENs and calls fail fast. After {@code openDurationMs} it goes HALF_OPEN and
+ * lets {@code halfOpenCalls} trial calls through: if all of them succeed in time it closes,
+ * otherwise it opens again. Transitions are logged and published as metrics.
+ *
+ * <p>A closed breaker lets calls through without locking; outcomes and transitions are kept
+ * under a {@link ReentrantLock}, which unlike {@code synchronized} does not pin a virtual
+ * thread to its carrier.
+ */
+@Slf4j
+public class BankCircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private static final byte SUCCEEDED = 0;
+  private static final byte FAILED = 1;
+  private static final byte SLOW = 2;
+
+  private final Clock clock;
+  private final int minimumCalls;
+  private final int failureRateThreshold;
+  private final int slowCallRateThreshold;
+  private final long slowCallThresholdNanos;
+  private final long openDurationMs;
+  private final int halfOpenCalls;
+  private final byte[] window; // ring of outcomes, failures take precedence over slowness
+  private final Counter rejected;
+  private final Map<State, Counter> transitions = new EnumMap<>(State.class);
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // Guarded by lock
+  private int nextSlot;
+  private int recorded;
+  private int failures;
+  private int slowCalls;
+  private volatile State state = State.CLOSED;
+  private long openedAt;
+  private int halfOpenPermits;
+  private int halfOpenSucceeded;
+
+  public BankCircuitBreaker(Clock clock, int windowSize, int minimumCalls,
+      int failureRatePercent, int slowCallRatePercent, long slowCallThresholdMs,
+      long openDurationMs, int halfOpenCalls, MeterRegistry meterRegistry) {
+    if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || halfOpenCalls <= 0) {
+      throw new IllegalArgumentException("Circuit breaker needs a positive window, at most"
+          + " windowSize minimum calls and at least one half-open call");
+    }
+    this.clock = clock;
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRatePercent;
+    this.slowCallRateThreshold = slowCallRatePercent;
+    this.slowCallThresholdNanos = slowCallThresholdMs * 1_000_000;
+    this.openDurationMs = openDurationMs;
+    this.halfOpenCalls = halfOpenCalls;
+    this.window = new byte[windowSize];
+
+    this.rejected = Counter.builder("bank.calls.rejected")
+        .description("Bank calls refused before being sent")
+        .tag("reason", "circuit_open")
+        .register(meterRegistry);
+    for (State to : State.values()) {
+      transitions.put(to, Counter.builder("bank.circuit.transitions")
+          .description("Circuit breaker state changes by the state entered")
+          .tag("state", to.name().toLowerCase())
+          .register(meterRegistry));
+      Gauge.builder("bank.circuit.state", this, breaker -> breaker.state == to ? 1 : 0)
+          .description("1 for the circuit breaker's current state, 0 otherwise")
+          .tag("state", to.name().toLowerCase())
+          .register(meterRegistry);
+    }
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  // False if the call must not be sent, a permitted call must report back with onResult or
+  // release
+  public boolean tryAcquirePermission() {
+    // A call that races the breaker opening is let through, its outcome is then ignored
+    if (state == State.CLOSED) {
+      return true;
+    }
+    boolean permitted;
+    lock.lock();
+    try {
+      if (state == State.OPEN && clock.millis() - openedAt >= openDurationMs) {
+        transitionTo(State.HALF_OPEN);
+      }
+      permitted = switch (state) {
+        case CLOSED -> true;
+        case HALF_OPEN -> takeHalfOpenPermit();
+        case OPEN -> false;
+      };
+    } finally {
+      lock.unlock();
+    }
+    if (!permitted) {
+      rejected.increment();
+    }
+    return permitted;
+  }
+
+  // Gives the permit back without an outcome, for a call abandoned before the bank answered
+  public void release() {
+    if (state != State.HALF_OPEN) {
+      return;
+    }
+    lock.lock();
+    try {
+      if (state == State.HALF_OPEN) {
+        halfOpenPermits++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void onResult(long durationNanos, boolean failed) {
+    byte outcome = failed ? FAILED : durationNanos >= slowCallThresholdNanos ? SLOW : SUCCEEDED;
+    lock.lock();
+    try {
+      decide(outcome);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void decide(byte outcome) {
+    switch (state) {
+      case CLOSED -> {
+        record(outcome);
+        if (recorded >= minimumCalls
+            && (failures * 100 >= failureRateThreshold * recorded
+                || slowCalls * 100 >= slowCallRateThreshold * recorded)) {
+          transitionTo(State.OPEN);
+        }
+      }
+      case HALF_OPEN -> {
+        if (outcome != SUCCEEDED) {
+          transitionTo(State.OPEN);
+        } else if (++halfOpenSucceeded >= halfOpenCalls) {
+          transitionTo(State.CLOSED);
+        }
+      }
+      case OPEN -> {
+        // A call let through before the breaker opened, nothing left to decide
+      }
+    }
+  }
+
+  private boolean takeHalfOpenPermit() {
+    if (halfOpenPermits == 0) {
+      return false;
+    }
+    halfOpenPermits--;
+    return true;
+  }
+
+  private void record(byte outcome) {
+    if (recorded == window.length) {
+      forget(window[nextSlot]);
+    } else {
+      recorded++;
+    }
+    window[nextSlot] = outcome;
+    if (outcome == FAILED) {
+      failures++;
+    } else if (outcome == SLOW) {
+      slowCalls++;
+    }
+    nextSlot = (nextSlot + 1) % window.length;
+  }
+
+  private void forget(byte outcome) {
+    if (outcome == FAILED) {
+      failures--;
+    } else if (outcome == SLOW) {
+      slowCalls--;
+    }
+  }
+
+  private void transitionTo(State to) {
+    log.warn("Bank circuit breaker {} -> {} (failures={}, slow={}, calls={})", state, to,
+        failures, slowCalls, recorded);
+    state = to;
+    transitions.get(to).increment();
+    switch (to) {
+      case OPEN -> openedAt = clock.millis();
+      case HALF_OPEN -> {
+        halfOpenPermits = halfOpenCalls;
+        halfOpenSucceeded = 0;
+      }
+      case CLOSED -> {
+        nextSlot = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+      }
+    }
+  }
+}
\ No newline at end of file
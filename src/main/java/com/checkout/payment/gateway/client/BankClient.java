@@ -1,5 +1,16 @@
 package com.checkout.payment.gateway.client;
 
+import com.checkout.payment.gateway.util.Futures;
+
+import java.util.concurrent.CompletableFuture;
+
 public interface BankClient {
-  BankResponse processPayment(BankRequest request);
+
+  // Completes with the bank's answer, or exceptionally with BankUnavailableException
+  CompletableFuture<BankResponse> processPaymentAsync(BankRequest request);
+
+  // Blocking variant for callers that own their thread, e.g. a virtual thread
+  default BankResponse processPayment(BankRequest request) {
+    return Futures.join(processPaymentAsync(request));
+  }
 }
\ No newline at end of file
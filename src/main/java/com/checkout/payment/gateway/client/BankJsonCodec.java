@@ -0,0 +1,184 @@
+package com.checkout.payment.gateway.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The bank's JSON, written and read without data binding.
+ *
+ * <p>A request is measured first and then written once into a body of exactly its size, the
+ * only allocation. A pooled buffer would need copying out anyway: the body has to outlive the
+ * call, since retries and hedges send it again. Responses are read token by token, unknown
+ * fields skipped.
+ */
+final class BankJsonCodec {
+
+  private static final byte[] CARD_NUMBER = ascii("{\"card_number\":");
+  private static final byte[] EXPIRY_DATE = ascii(",\"expiry_date\":");
+  private static final byte[] CURRENCY = ascii(",\"currency\":");
+  private static final byte[] AMOUNT = ascii(",\"amount\":");
+  private static final byte[] CVV = ascii(",\"cvv\":");
+  private static final byte[] REQUEST_REFERENCE = ascii(",\"request_reference\":");
+  private static final byte[] NULL = ascii("null");
+  private static final byte[] HEX = ascii("0123456789abcdef");
+
+  private BankJsonCodec() {
+  }
+
+  // Same document Jackson writes for a BankRequest, field order included
+  static byte[] encode(BankRequest request) {
+    String reference = request.getRequestReference();
+    int size = CARD_NUMBER.length + stringSize(request.getCardNumber())
+        + EXPIRY_DATE.length + stringSize(request.getExpiryDate())
+        + CURRENCY.length + stringSize(request.getCurrency())
+        + AMOUNT.length + intSize(request.getAmount())
+        + CVV.length + stringSize(request.getCvv())
+        + (reference == null ? 0 : REQUEST_REFERENCE.length + stringSize(reference))
+        + 1;
+
+    byte[] body = new byte[size];
+    int at = put(body, 0, CARD_NUMBER);
+    at = putString(body, at, request.getCardNumber());
+    at = put(body, at, EXPIRY_DATE);
+    at = putString(body, at, request.getExpiryDate());
+    at = put(body, at, CURRENCY);
+    at = putString(body, at, request.getCurrency());
+    at = put(body, at, AMOUNT);
+    at = putInt(body, at, request.getAmount());
+    at = put(body, at, CVV);
+    at = putString(body, at, request.getCvv());
+    if (reference != null) {
+      at = put(body, at, REQUEST_REFERENCE);
+      at = putString(body, at, reference);
+    }
+    body[at] = '}';
+    return body;
+  }
+
+  static BankResponse decode(JsonFactory jsonFactory, byte[] body) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Bank response is not a JSON object");
+      }
+      BankResponse response = new BankResponse();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        switch (field) {
+          case "authorized" -> response.setAuthorized(parser.getValueAsBoolean());
+          case "authorization_code" -> response.setAuthorizationCode(parser.getValueAsString());
+          default -> parser.skipChildren();
+        }
+      }
+      return response;
+    }
+  }
+
+  private static int stringSize(String value) {
+    if (value == null) {
+      return NULL.length;
+    }
+    int size = 2;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        size += 2;
+      } else if (c < 0x20) {
+        size += 6;
+      } else if (c < 0x80) {
+        size += 1;
+      } else if (c < 0x800) {
+        size += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        size += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        size += 1;
+      } else {
+        size += 3;
+      }
+    }
+    return size;
+  }
+
+  // JSON string in UTF-8, escaping quotes, backslashes and control characters
+  private static int putString(byte[] body, int at, String value) {
+    if (value == null) {
+      return put(body, at, NULL);
+    }
+    body[at++] = '"';
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        body[at++] = '\\';
+        body[at++] = (byte) c;
+      } else if (c < 0x20) {
+        body[at++] = '\\';
+        body[at++] = 'u';
+        body[at++] = '0';
+        body[at++] = '0';
+        body[at++] = HEX[c >> 4];
+        body[at++] = HEX[c & 0xf];
+      } else if (c < 0x80) {
+        body[at++] = (byte) c;
+      } else if (c < 0x800) {
+        body[at++] = (byte) (0xc0 | c >> 6);
+        body[at++] = (byte) (0x80 | c & 0x3f);
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        body[at++] = (byte) (0xf0 | codePoint >> 18);
+        body[at++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+        body[at++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+        body[at++] = (byte) (0x80 | codePoint & 0x3f);
+      } else if (Character.isSurrogate(c)) {
+        body[at++] = '?'; // Unpaired, as String.getBytes replaces it
+      } else {
+        body[at++] = (byte) (0xe0 | c >> 12);
+        body[at++] = (byte) (0x80 | c >> 6 & 0x3f);
+        body[at++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+    body[at++] = '"';
+    return at;
+  }
+
+  private static int intSize(int value) {
+    if (value == Integer.MIN_VALUE) {
+      return 11;
+    }
+    int size = value < 0 ? 2 : 1;
+    for (int rest = Math.abs(value); rest >= 10; rest /= 10) {
+      size++;
+    }
+    return size;
+  }
+
+  private static int putInt(byte[] body, int at, int value) {
+    int end = at + intSize(value);
+    long rest = Math.abs((long) value);
+    for (int i = end - 1; i >= at; i--) {
+      body[i] = (byte) ('0' + rest % 10);
+      rest /= 10;
+    }
+    if (value < 0) {
+      body[at] = '-';
+    }
+    return end;
+  }
+
+  private static int put(byte[] body, int at, byte[] bytes) {
+    System.arraycopy(bytes, 0, body, at, bytes.length);
+    return at + bytes.length;
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+}
\ No newline at end of file
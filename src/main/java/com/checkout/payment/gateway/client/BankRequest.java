@@ -1,13 +1,16 @@
 package com.checkout.payment.gateway.client;
 
-import com.checkout.payment.gateway.model.domain.Card;
-import com.checkout.payment.gateway.model.domain.Money;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -26,15 +29,32 @@ public class BankRequest {
 
   private String cvv;
 
-  public static BankRequest from(Card card, Money money) {
-    String expiryDate = String.format("%02d/%d", card.getExpiryMonth(), card.getExpiryYear());
+  // Stable per idempotency key, so the bank can tell a hedged or retried call from a new payment
+  @JsonProperty("request_reference")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String requestReference;
 
+  // Straight from the validated request, the card's strings are shared rather than copied
+  public static BankRequest from(PostPaymentRequest request) {
     return BankRequest.builder()
-        .cardNumber(card.getNumber())
-        .expiryDate(expiryDate)
-        .currency(money.getCurrency())
-        .amount(money.getAmount())
-        .cvv(card.getCvv())
+        .cardNumber(request.getCardNumber())
+        .expiryDate(expiryDate(request.getExpiryMonth(), request.getExpiryYear()))
+        .currency(request.getCurrency())
+        .amount(request.getAmount())
+        .cvv(request.getCvv())
+        .requestReference(UUID.nameUUIDFromBytes(
+            request.getIdempotencyKey().getBytes(StandardCharsets.UTF_8)).toString())
         .build();
   }
+
+  // "MM/YYYY", as String.format("%02d/%d") gives it for a validated month and year
+  static String expiryDate(int month, int year) {
+    if (year < 1000 || year > 9999) {
+      return String.format("%02d/%d", month, year);
+    }
+    char[] chars = {(char) ('0' + month / 10), (char) ('0' + month % 10), '/',
+        (char) ('0' + year / 1000), (char) ('0' + year / 100 % 10),
+        (char) ('0' + year / 10 % 10), (char) ('0' + year % 10)};
+    return new String(chars);
+  }
 }
\ No newline at end of file
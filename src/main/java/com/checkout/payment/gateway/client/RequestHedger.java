@@ -0,0 +1,162 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.util.Futures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests: when a call has not answered within the observed p95 (by default) of recent
+ * bank latencies, a second identical call is sent and whichever succeeds first wins, the other
+ * being cancelled. Tail latency then tracks the slower of two typical calls rather than the
+ * occasional slow one. Only a single call is hedged, so retries around it happen once.
+ *
+ * <p>The threshold is recomputed every {@value #RECOMPUTE_EVERY} samples from the last
+ * {@value #SAMPLES} call latencies, and no hedging happens until enough samples exist. Hedges
+ * draw on their own {@link RetryBudget}, which keeps them to a small share of traffic. Both
+ * calls carry the payment's request reference, but only a bank that deduplicates on it sees
+ * them as one payment. End-to-end latency is timed with a {@code hedging} tag, so p99 can be
+ * compared on and off.
+ */
+@Slf4j
+public class RequestHedger {
+
+  private static final int SAMPLES = 1024;
+  private static final int RECOMPUTE_EVERY = 64;
+  private static final int MIN_SAMPLES = 100;
+
+  private final boolean enabled;
+  private final double percentile;
+  private final long minDelayNanos;
+  private final RetryBudget hedgeBudget;
+  private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+  private final AtomicLong recorded = new AtomicLong();
+  private final AtomicBoolean recomputing = new AtomicBoolean();
+  private final Timer latency;
+  private final Counter hedgesSent;
+  private final Counter hedgesWon;
+  private volatile long delayNanos = -1; // -1 until enough samples
+
+  public RequestHedger(boolean enabled, int percentile, long minDelayMs, RetryBudget hedgeBudget,
+      MeterRegistry meterRegistry) {
+    if (percentile <= 0 || percentile >= 100) {
+      throw new IllegalArgumentException("Hedging percentile must be between 0 and 100");
+    }
+    this.enabled = enabled;
+    this.percentile = percentile / 100.0;
+    this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+    this.hedgeBudget = hedgeBudget;
+
+    this.latency = Timer.builder("bank.payment.latency")
+        .description("Time to the bank's answer for a payment, retries and hedges included")
+        .tag("hedging", enabled ? "on" : "off")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+    this.hedgesSent = Counter.builder("bank.hedges.sent")
+        .description("Second calls sent because the first had not answered in time")
+        .register(meterRegistry);
+    this.hedgesWon = Counter.builder("bank.hedges.won")
+        .description("Payments answered by the hedged call rather than the first one")
+        .register(meterRegistry);
+    Gauge.builder("bank.hedges.delay", this, hedger -> hedger.delayNanos / 1e6)
+        .description("Milliseconds before a second call is sent, -1 until enough samples")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  // Latency of one bank call, the source of the hedging threshold
+  public void recordLatency(long durationNanos) {
+    long sample = recorded.getAndIncrement();
+    latencies.set((int) (sample % SAMPLES), durationNanos);
+    if ((sample + 1) % RECOMPUTE_EVERY == 0 && sample + 1 >= MIN_SAMPLES
+        && recomputing.compareAndSet(false, true)) {
+      try {
+        recompute(Math.min(sample + 1, SAMPLES));
+      } finally {
+        recomputing.set(false);
+      }
+    }
+  }
+
+  // Runs a single call, hedging it if enabled. The call must abort itself when cancelled
+  public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call,
+      Executor executor) {
+    if (enabled) {
+      hedgeBudget.onRequest();
+    }
+    long delay = delayNanos;
+    return enabled && delay >= 0
+        ? hedge(call, delay, executor)
+        : call.get();
+  }
+
+  // Times a payment's calls, retries and hedges included, to its final answer
+  public <T> CompletableFuture<T> timed(CompletableFuture<T> payment, long startedNanos) {
+    return payment.whenComplete((response, failure) ->
+        latency.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS));
+  }
+
+  private <T> CompletableFuture<T> hedge(Supplier<CompletableFuture<T>> call, long delay,
+      Executor executor) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    AtomicInteger outstanding = new AtomicInteger(1);
+    CompletableFuture<T> first = call.get();
+    first.whenComplete((response, failure) -> settle(result, outstanding, response, failure));
+
+    Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor);
+    delayed.execute(() -> {
+      if (result.isDone() || !hedgeBudget.tryRetry()) {
+        return;
+      }
+      outstanding.incrementAndGet();
+      hedgesSent.increment();
+      log.debug("Bank has not answered in {} ms, sending a hedged call", delay / 1_000_000);
+      CompletableFuture<T> second = call.get();
+      second.whenComplete((response, failure) -> {
+        if (settle(result, outstanding, response, failure)) {
+          hedgesWon.increment();
+        }
+      });
+      // The loser is cancelled rather than left holding a connection until it answers
+      result.whenComplete((response, failure) -> {
+        first.cancel(true);
+        second.cancel(true);
+      });
+    });
+    return result;
+  }
+
+  // The first success wins, a failure only counts once no other call is outstanding
+  private static <T> boolean settle(CompletableFuture<T> result, AtomicInteger outstanding,
+      T response, Throwable failure) {
+    if (failure == null) {
+      return result.complete(response);
+    }
+    if (outstanding.decrementAndGet() == 0) {
+      return result.completeExceptionally(Futures.unwrap(failure));
+    }
+    return false;
+  }
+
+  private void recompute(long samples) {
+    long[] sorted = new long[(int) samples];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = latencies.get(i);
+    }
+    Arrays.sort(sorted);
+    long threshold = sorted[(int) Math.min(sorted.length - 1, sorted.length * percentile)];
+    delayNanos = Math.max(minDelayNanos, threshold);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.checkout.payment.gateway.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide cap on bank retries: over the last {@code windowMs}, retries may not exceed
+ * {@code ratio} of the payments sent to the bank, plus {@code minRetriesPerSecond} so a quiet
+ * gateway can still retry. When the bank struggles every caller sees failures at once, and
+ * without the cap each of them would multiply the load by up to {@code max-retries}. Hedged
+ * calls are capped the same way by a budget of their own.
+ *
+ * <p>Counts are kept in one-second buckets of a ring, each tagged with the second it counts,
+ * so a stale bucket is reset by the first caller that lands in it. Bookkeeping is lock-free
+ * and approximate: a reset can race an increment, which only ever loses a count.
+ */
+public class RetryBudget {
+
+  private static final long BUCKET_MS = 1_000;
+
+  private final Clock clock;
+  private final double ratio;
+  private final long minRetries;
+  private final int buckets;
+  private final AtomicLongArray seconds;
+  private final AtomicLongArray requests;
+  private final AtomicLongArray retries;
+  private final Counter allowed;
+  private final Counter denied;
+
+  // Name of the metric counting allowed and denied withdrawals, e.g. bank.retries
+  public RetryBudget(String metricName, Clock clock, double ratio, int minRetriesPerSecond,
+      long windowMs, MeterRegistry meterRegistry) {
+    if (ratio < 0 || minRetriesPerSecond < 0 || windowMs < BUCKET_MS) {
+      throw new IllegalArgumentException("Retry budget needs a non-negative ratio and minimum,"
+          + " and a window of at least a second");
+    }
+    this.clock = clock;
+    this.ratio = ratio;
+    this.buckets = (int) (windowMs / BUCKET_MS);
+    this.minRetries = (long) minRetriesPerSecond * buckets;
+    this.seconds = new AtomicLongArray(buckets);
+    this.requests = new AtomicLongArray(buckets);
+    this.retries = new AtomicLongArray(buckets);
+
+    this.allowed = Counter.builder(metricName)
+        .description("Withdrawals by whether the budget allowed them")
+        .tag("outcome", "allowed")
+        .register(meterRegistry);
+    this.denied = Counter.builder(metricName)
+        .description("Withdrawals by whether the budget allowed them")
+        .tag("outcome", "denied")
+        .register(meterRegistry);
+  }
+
+  // Deposits into the budget, once per payment sent to the bank
+  public void onRequest() {
+    requests.incrementAndGet(current());
+  }
+
+  // Withdraws one retry if the budget allows it
+  public boolean tryRetry() {
+    int bucket = current();
+    long now = clock.millis() / BUCKET_MS;
+    long windowRequests = 0;
+    long windowRetries = 0;
+    for (int i = 0; i < buckets; i++) {
+      if (now - seconds.get(i) < buckets) {
+        windowRequests += requests.get(i);
+        windowRetries += retries.get(i);
+      }
+    }
+    if (windowRetries >= minRetries + (long) (windowRequests * ratio)) {
+      denied.increment();
+      return false;
+    }
+    retries.incrementAndGet(bucket);
+    allowed.increment();
+    return true;
+  }
+
+  // The bucket for the current second, reset first if it still holds an older second
+  private int current() {
+    long second = clock.millis() / BUCKET_MS;
+    int bucket = (int) (second % buckets);
+    long tagged = seconds.get(bucket);
+    if (tagged != second && seconds.compareAndSet(bucket, tagged, second)) {
+      requests.set(bucket, 0);
+      retries.set(bucket, 0);
+    }
+    return bucket;
+  }
+}
\ No newline at end of file
@@ -1,24 +1,197 @@
 package com.checkout.payment.gateway.configuration;
 
+import com.checkout.payment.gateway.client.AdaptiveConcurrencyLimit;
+import com.checkout.payment.gateway.client.BankCircuitBreaker;
+import com.checkout.payment.gateway.client.RequestHedger;
+import com.checkout.payment.gateway.client.RetryBudget;
+import com.checkout.payment.gateway.logging.AsyncPaymentLog;
+import com.checkout.payment.gateway.logging.PaymentLog;
+import com.checkout.payment.gateway.service.PaymentAggregates;
+import com.checkout.payment.gateway.service.PaymentIdGenerator;
+import com.checkout.payment.gateway.service.TimeOrderedPaymentIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.Duration;
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
 
+@Slf4j
 @Configuration
 public class ApplicationConfiguration {
 
-  @Bean
-  public RestTemplate restTemplate(
-      RestTemplateBuilder builder,
+  // Keep-alive connections to the bank, reused most recently released first so the ones
+  // left idle are the ones evicted. Closed by the client that owns it
+  @Bean(destroyMethod = "")
+  public PoolingAsyncClientConnectionManager bankConnectionManager(
       @Value("${bank.simulator.connect-timeout-ms:5000}") int connectTimeout,
-      @Value("${bank.simulator.read-timeout-ms:5000}") int readTimeout) {
-    return builder
-        .setConnectTimeout(Duration.ofMillis(connectTimeout))
-        .setReadTimeout(Duration.ofMillis(readTimeout))
+      @Value("${bank.simulator.pool.max-connections:200}") int maxConnections,
+      @Value("${bank.simulator.pool.max-connections-per-route:200}") int maxPerRoute,
+      @Value("${bank.simulator.pool.connection-ttl-ms:300000}") long connectionTtl,
+      MeterRegistry meterRegistry) {
+    PoolingAsyncClientConnectionManager connectionManager =
+        PoolingAsyncClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxPerRoute)
+            .setConnPoolPolicy(PoolReusePolicy.LIFO)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                .setTimeToLive(TimeValue.ofMilliseconds(connectionTtl))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build())
+            .build();
+
+    gauge(meterRegistry, connectionManager, "leased", PoolStats::getLeased);
+    gauge(meterRegistry, connectionManager, "pending", PoolStats::getPending);
+    gauge(meterRegistry, connectionManager, "available", PoolStats::getAvailable);
+    Gauge.builder("bank.connections.max", connectionManager,
+            pool -> pool.getTotalStats().getMax())
+        .description("Connections the bank pool may open")
+        .register(meterRegistry);
+    return connectionManager;
+  }
+
+  // Non-blocking client for the bank: a few I/O threads multiplex every outstanding call.
+  // Its own retries are off, a retried POST would bypass the retry budget and circuit breaker
+  @Bean(destroyMethod = "close")
+  public CloseableHttpAsyncClient bankHttpClient(
+      PoolingAsyncClientConnectionManager bankConnectionManager,
+      @Value("${bank.simulator.read-timeout-ms:5000}") int readTimeout,
+      @Value("${bank.simulator.pool.acquire-timeout-ms:1000}") int acquireTimeout,
+      @Value("${bank.simulator.pool.idle-eviction-ms:30000}") long idleEviction) {
+    CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+        .setConnectionManager(bankConnectionManager)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeout))
+            .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+            .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.ofMilliseconds(idleEviction))
+        .disableAutomaticRetries()
         .build();
+    client.start();
+    return client;
+  }
+
+  @Bean
+  public BankCircuitBreaker bankCircuitBreaker(
+      @Value("${bank.simulator.circuit-breaker.window-size:50}") int windowSize,
+      @Value("${bank.simulator.circuit-breaker.minimum-calls:20}") int minimumCalls,
+      @Value("${bank.simulator.circuit-breaker.failure-rate-percent:50}") int failureRate,
+      @Value("${bank.simulator.circuit-breaker.slow-call-rate-percent:80}") int slowCallRate,
+      @Value("${bank.simulator.circuit-breaker.slow-call-ms:2000}") long slowCallMs,
+      @Value("${bank.simulator.circuit-breaker.open-ms:10000}") long openMs,
+      @Value("${bank.simulator.circuit-breaker.half-open-calls:5}") int halfOpenCalls,
+      MeterRegistry meterRegistry) {
+    return new BankCircuitBreaker(Clock.systemUTC(), windowSize, minimumCalls, failureRate,
+        slowCallRate, slowCallMs, openMs, halfOpenCalls, meterRegistry);
+  }
+
+  // The upper bound only matters up to the pool size, beyond it calls wait for a connection
+  @Bean
+  public AdaptiveConcurrencyLimit bankConcurrencyLimit(
+      @Value("${bank.simulator.concurrency.initial-limit:50}") int initialLimit,
+      @Value("${bank.simulator.concurrency.min-limit:5}") int minLimit,
+      @Value("${bank.simulator.concurrency.max-limit:200}") int maxLimit,
+      @Value("${bank.simulator.concurrency.latency-threshold-ms:1000}") long latencyThresholdMs,
+      @Value("${bank.simulator.concurrency.backoff-ratio:0.9}") double backoffRatio,
+      MeterRegistry meterRegistry) {
+    return new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, latencyThresholdMs,
+        backoffRatio, meterRegistry);
+  }
+
+  @Bean
+  public RetryBudget bankRetryBudget(
+      @Value("${bank.simulator.retry-budget.ratio:0.1}") double ratio,
+      @Value("${bank.simulator.retry-budget.min-per-second:5}") int minRetriesPerSecond,
+      @Value("${bank.simulator.retry-budget.window-ms:10000}") long windowMs,
+      MeterRegistry meterRegistry) {
+    return new RetryBudget("bank.retries", Clock.systemUTC(), ratio, minRetriesPerSecond,
+        windowMs, meterRegistry);
+  }
+
+  @Bean
+  public RequestHedger bankRequestHedger(
+      @Value("${bank.simulator.hedging.enabled:false}") boolean enabled,
+      @Value("${bank.simulator.hedging.percentile:95}") int percentile,
+      @Value("${bank.simulator.hedging.min-delay-ms:10}") long minDelayMs,
+      @Value("${bank.simulator.hedging.max-percent:5}") int maxPercent,
+      @Value("${bank.simulator.retry-budget.window-ms:10000}") long windowMs,
+      MeterRegistry meterRegistry) {
+    RetryBudget hedgeBudget = new RetryBudget("bank.hedges", Clock.systemUTC(),
+        maxPercent / 100.0, 0, windowMs, meterRegistry);
+    return new RequestHedger(enabled, percentile, minDelayMs, hedgeBudget, meterRegistry);
+  }
+
+  @Bean
+  public PaymentAggregates paymentAggregates(
+      @Value("${payment.supported-currencies:USD,GBP,EUR}") List<String> supportedCurrencies) {
+    return new PaymentAggregates(Clock.systemUTC(), supportedCurrencies);
+  }
+
+  // The node must differ between instances sharing a store or reconciling payments by id
+  @Bean
+  @ConditionalOnProperty(name = "payment.id.generator", havingValue = "time-ordered",
+      matchIfMissing = true)
+  public PaymentIdGenerator timeOrderedPaymentIdGenerator(
+      @Value("${payment.id.node:0}") int node) {
+    if (node == 0) {
+      log.warn("payment.id.node is left at 0, ids are only unique across instances that are"
+          + " each given a distinct node");
+    }
+    return new TimeOrderedPaymentIdGenerator(Clock.systemUTC(), node);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payment.id.generator", havingValue = "random")
+  public PaymentIdGenerator randomPaymentIdGenerator() {
+    return UUID::randomUUID;
+  }
+
+  // One record per payment, written off the request thread. Closed on shutdown, which writes
+  // out what is still queued
+  @Bean
+  @ConditionalOnProperty(name = "payment.logging.records.enabled", havingValue = "true",
+      matchIfMissing = true)
+  public PaymentLog asyncPaymentLog(
+      @Value("${payment.logging.records.buffer-size:8192}") int bufferSize,
+      @Value("${payment.logging.records.success-sample-rate:1.0}") double successSampleRate,
+      MeterRegistry meterRegistry) {
+    return new AsyncPaymentLog(bufferSize, successSampleRate, meterRegistry);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payment.logging.records.enabled", havingValue = "false")
+  public PaymentLog noPaymentLog() {
+    return (request, timings, outcome, result, failure) -> {
+    };
+  }
+
+  // Size the pool against bank latency: leased near max with pending above zero means calls
+  // are queueing for a connection
+  private static void gauge(MeterRegistry meterRegistry,
+      PoolingAsyncClientConnectionManager connectionManager, String state,
+      ToIntFunction<PoolStats> value) {
+    Gauge.builder("bank.connections", connectionManager,
+            pool -> value.applyAsInt(pool.getTotalStats()))
+        .description("Connections in the bank pool by state")
+        .tag("state", state)
+        .register(meterRegistry);
   }
 }
\ No newline at end of file
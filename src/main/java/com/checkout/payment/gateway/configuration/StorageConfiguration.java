@@ -0,0 +1,79 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import com.checkout.payment.gateway.repository.IndexedPaymentStore;
+import com.checkout.payment.gateway.repository.OffHeapPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentExpiry;
+import com.checkout.payment.gateway.repository.PaymentIndex;
+import com.checkout.payment.gateway.repository.PaymentStore;
+import com.checkout.payment.gateway.repository.QueryablePaymentStore;
+import com.checkout.payment.gateway.repository.journal.FsyncPolicy;
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import com.checkout.payment.gateway.repository.journal.PaymentSnapshotter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+
+@Configuration
+public class StorageConfiguration {
+
+  // Either engine is wrapped so the query indexes see every write, recovery and expiry
+  @Bean
+  @ConditionalOnProperty(name = "payment.storage.engine", havingValue = "heap", matchIfMissing = true)
+  public QueryablePaymentStore heapPaymentStore() {
+    return new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex());
+  }
+
+  // Direct memory is bounded by -XX:MaxDirectMemorySize, size the JVM flag with the capacity.
+  // The query indexes and retention stay on the heap, see paymentStoreFootprint
+  @Bean
+  @ConditionalOnProperty(name = "payment.storage.engine", havingValue = "off-heap")
+  public QueryablePaymentStore offHeapPaymentStore(
+      @Value("${payment.storage.off-heap.capacity:1000000}") int capacity) {
+    return new IndexedPaymentStore(new OffHeapPaymentStore(capacity), new PaymentIndex());
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payment.journal.enabled", havingValue = "true")
+  public PaymentJournal paymentJournal(
+      @Value("${payment.journal.directory:data/journal}") String directory,
+      @Value("${payment.journal.segment-size-bytes:67108864}") int segmentSize,
+      @Value("${payment.journal.fsync-policy:GROUP}") FsyncPolicy fsyncPolicy,
+      @Value("${payment.journal.group-commit-interval-ms:5}") long groupCommitIntervalMs)
+      throws IOException {
+    return new PaymentJournal(Path.of(directory), segmentSize, fsyncPolicy, groupCommitIntervalMs);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = {"payment.journal.enabled", "payment.journal.snapshot.enabled"},
+      havingValue = "true")
+  public PaymentSnapshotter paymentSnapshotter(
+      PaymentJournal journal,
+      PaymentStore store,
+      @Value("${payment.journal.directory:data/journal}") String directory,
+      @Value("${payment.journal.snapshot.retained:2}") int retainedSnapshots,
+      @Value("${payment.journal.snapshot.interval-ms:300000}") long intervalMs)
+      throws IOException {
+    return new PaymentSnapshotter(Path.of(directory), journal, store, retainedSnapshots,
+        intervalMs);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payment.retention.enabled", havingValue = "true",
+      matchIfMissing = true)
+  public PaymentExpiry paymentExpiry(
+      PaymentStore store,
+      MeterRegistry meterRegistry,
+      @Value("${payment.retention.idempotency-key-ttl-ms:86400000}") long idempotencyKeyTtlMs,
+      @Value("${payment.retention.payment-ttl-ms:2592000000}") long paymentTtlMs,
+      @Value("${payment.retention.tick-ms:60000}") long tickMs) {
+    return new PaymentExpiry(store, Clock.systemUTC(), idempotencyKeyTtlMs, paymentTtlMs, tickMs,
+        meterRegistry);
+  }
+}
\ No newline at end of file
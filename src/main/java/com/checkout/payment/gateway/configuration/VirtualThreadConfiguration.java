@@ -0,0 +1,35 @@
+package com.checkout.payment.gateway.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in virtual-thread mode: every request, and the bank call it makes, runs on its own
+ * virtual thread, so a request waiting on the bank parks instead of holding one of Tomcat's
+ * platform threads. Shared state on the request path uses j.u.c locks rather than
+ * {@code synchronized}, which would pin the carrier thread on JDK 21.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payment.threads.virtual", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    return protocolHandler -> protocolHandler.setExecutor(
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+  }
+
+  // Replaces the bounded pool behind @Async and async MVC request handling
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor() {
+    return new TaskExecutorAdapter(
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-vt-", 0).factory()));
+  }
+}
\ No newline at end of file
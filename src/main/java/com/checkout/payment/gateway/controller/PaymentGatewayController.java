@@ -1,18 +1,38 @@
 package com.checkout.payment.gateway.controller;
 
+import com.checkout.payment.gateway.metrics.PaymentStage;
+import com.checkout.payment.gateway.metrics.PaymentTimings;
 import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PaymentLookupRequest;
+import com.checkout.payment.gateway.model.request.PaymentQueryRequest;
+import com.checkout.payment.gateway.model.request.PostBatchPaymentRequest;
 import com.checkout.payment.gateway.model.request.PostPaymentRequest;
-import com.checkout.payment.gateway.model.response.GetPaymentResponse;
+import com.checkout.payment.gateway.model.response.PaymentJson;
+import com.checkout.payment.gateway.model.response.PaymentQueryResponse;
+import com.checkout.payment.gateway.model.response.PaymentStatsResponse;
+import com.checkout.payment.gateway.model.response.PostBatchPaymentResponse;
 import com.checkout.payment.gateway.model.response.RejectedPaymentResponse;
+import com.checkout.payment.gateway.service.BatchPaymentService;
+import com.checkout.payment.gateway.service.PaymentAggregates;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.PaymentLookupService;
+import com.checkout.payment.gateway.service.PaymentQueryService;
+import com.checkout.payment.gateway.service.PaymentStreamService;
+import com.checkout.payment.gateway.validation.PaymentRequestValidator;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -21,13 +41,116 @@ import java.util.UUID;
 public class PaymentGatewayController {
 
   private final PaymentGatewayService paymentGatewayService;
+  private final BatchPaymentService batchPaymentService;
+  private final PaymentStreamService paymentStreamService;
+  private final PaymentLookupService paymentLookupService;
+  private final PaymentQueryService paymentQueryService;
+  private final PaymentAggregates paymentAggregates;
+  private final PaymentRequestValidator paymentRequestValidator;
 
+  // @Valid on a single payment runs the compiled checks rather than reflective bean validation
+  @InitBinder("postPaymentRequest")
+  public void usePaymentRequestValidator(WebDataBinder binder) {
+    binder.setValidator(paymentRequestValidator);
+  }
+
+  // The servlet response is completed when the bank answers, the request thread is released
   @PostMapping("/payments")
-  public ResponseEntity<?> processPayment(@Valid @RequestBody PostPaymentRequest request) {
-    log.info("Received payment request");
+  public CompletableFuture<ResponseEntity<?>> processPayment(
+      @Valid @RequestBody PostPaymentRequest request,
+      @RequestAttribute(name = PaymentTimings.ATTRIBUTE, required = false)
+      PaymentTimings timings) {
+    log.debug("Received payment request");
+
+    // Started by PaymentTimingAdvice while the body was read, bean validation ran since
+    if (timings == null) {
+      timings = new PaymentTimings();
+    } else {
+      timings.recordSinceMark(PaymentStage.BEAN_VALIDATION);
+    }
+    return paymentGatewayService.processPayment(request, timings).thenApply(this::toResponse);
+  }
+
+  // One result per payment in request order, each with the status it would have had on its own
+  @PostMapping("/payments/batch")
+  public CompletableFuture<ResponseEntity<PostBatchPaymentResponse>> processBatch(
+      @Valid @RequestBody PostBatchPaymentRequest request) {
+    log.info("Received batch of {} payments", request.getPayments().size());
+
+    return batchPaymentService.processBatch(request.getPayments()).thenApply(ResponseEntity::ok);
+  }
+
+  // NDJSON in, NDJSON out: results are written while the rest of the input is still arriving
+  @PostMapping(value = "/payments/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void streamPayments(InputStream body, HttpServletResponse response) throws IOException {
+    log.info("Receiving payment stream");
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    paymentStreamService.processStream(body, response.getOutputStream());
+  }
 
-    PaymentResult result = paymentGatewayService.processPayment(request);
+  // Reconciliation: many payments per request, unknown IDs listed rather than answered with 404
+  @GetMapping(value = "/payments/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void lookupPayments(@Valid PaymentLookupRequest request, HttpServletResponse response)
+      throws IOException {
+    writeLookup(request, response);
+  }
 
+  // Same as the GET, for lists of IDs too long for a query string
+  @PostMapping(value = "/payments/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void lookupPaymentsInBody(@Valid @RequestBody PaymentLookupRequest request,
+      HttpServletResponse response) throws IOException {
+    writeLookup(request, response);
+  }
+
+  // Filters are optional and combined; pages are newest first, continue with next_cursor
+  @GetMapping("/payments")
+  public ResponseEntity<PaymentQueryResponse> queryPayments(
+      @RequestParam(required = false) String status,
+      @RequestParam(required = false) String currency,
+      @RequestParam(name = "card_last_four", required = false) String cardLastFour,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    log.info("Querying payments: status={}, currency={}, from={}, to={}", status, currency,
+        from, to);
+    return ResponseEntity.ok(paymentQueryService.query(PaymentQueryRequest.builder()
+        .status(status)
+        .currency(currency)
+        .cardLastFour(cardLastFour)
+        .from(from)
+        .to(to)
+        .limit(limit)
+        .cursor(cursor)
+        .build()));
+  }
+
+  // Counts, amounts and authorization rates over the last 1m, 5m and 1h, and since startup
+  @GetMapping("/payments/stats")
+  public ResponseEntity<PaymentStatsResponse> getPaymentStats() {
+    return ResponseEntity.ok(paymentAggregates.snapshot());
+  }
+
+  // Written from the stored bytes; an If-None-Match with the ETag is answered 304, no body
+  @GetMapping("/payments/{id}")
+  public ResponseEntity<byte[]> getPayment(@PathVariable UUID id) {
+    log.info("Retrieving payment: {}", id);
+    PaymentJson json = paymentGatewayService.getPaymentById(id);
+    return ResponseEntity.ok()
+        .eTag(json.getEtag())
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(json.getBody());
+  }
+
+  private void writeLookup(PaymentLookupRequest request, HttpServletResponse response)
+      throws IOException {
+    log.info("Looking up {} payments", request.getIds().size());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    paymentLookupService.lookup(request.getIds(), response.getOutputStream());
+  }
+
+  private ResponseEntity<?> toResponse(PaymentResult result) {
     if (result.isRejected()) { // REJECTED: HTTP 400 bad request as details failed validation
       return ResponseEntity.badRequest()
           .body(RejectedPaymentResponse.of(result.getErrors()));
@@ -37,12 +160,8 @@ public class PaymentGatewayController {
         ? HttpStatus.CREATED // AUTHORIZED
         : HttpStatus.OK;     // DECLINED
 
-    return ResponseEntity.status(status).body(result.getResponse());
-  }
-
-  @GetMapping("/payments/{id}")
-  public ResponseEntity<GetPaymentResponse> getPayment(@PathVariable UUID id) {
-    log.info("Retrieving payment: {}", id);
-    return ResponseEntity.ok(paymentGatewayService.getPaymentById(id));
+    return ResponseEntity.status(status)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(result.getResponse().toJson().getBody());
   }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.metrics.PaymentStage;
+import com.checkout.payment.gateway.metrics.PaymentTimings;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Starts a payment's {@link PaymentTimings} as its body is read, so JSON binding is timed, and
+ * marks the end of binding so the controller can time bean validation, which runs in between.
+ */
+@ControllerAdvice
+public class PaymentTimingAdvice extends RequestBodyAdviceAdapter {
+
+  @Override
+  public boolean supports(MethodParameter methodParameter, Type targetType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    return targetType == PostPaymentRequest.class;
+  }
+
+  @Override
+  public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter,
+      Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+    RequestContextHolder.currentRequestAttributes().setAttribute(PaymentTimings.ATTRIBUTE,
+        new PaymentTimings(), RequestAttributes.SCOPE_REQUEST);
+    return inputMessage;
+  }
+
+  @Override
+  public Object afterBodyRead(Object body, HttpInputMessage inputMessage,
+      MethodParameter parameter, Type targetType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    Object timings = RequestContextHolder.currentRequestAttributes()
+        .getAttribute(PaymentTimings.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (timings instanceof PaymentTimings paymentTimings) {
+      paymentTimings.record(PaymentStage.BINDING, paymentTimings.getStarted());
+      paymentTimings.mark();
+    }
+    return body;
+  }
+}
\ No newline at end of file
@@ -30,6 +30,29 @@ public class CommonExceptionHandler {
         .body(new ErrorResponse("Payment processor unavailable. Please try again later."));
   }
 
+  @ExceptionHandler(PaymentInProgressException.class)
+  public ResponseEntity<ErrorResponse> handlePaymentInProgress(PaymentInProgressException ex) {
+    log.warn("Payment still in progress for idempotency key: {}", ex.getIdempotencyKey());
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body(new ErrorResponse("Payment is still being processed. Please retry later."));
+  }
+
+  // Not presented as retryable: the bank may already have authorized the payment, and nothing
+  // stops it authorizing a second request for the same payment
+  @ExceptionHandler(PaymentNotStoredException.class)
+  public ResponseEntity<ErrorResponse> handlePaymentNotStored(PaymentNotStoredException ex) {
+    log.error("Payment not stored for idempotency key: {}", ex.getIdempotencyKey(), ex.getCause());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .body(new ErrorResponse("Payment could not be recorded."));
+  }
+
+  @ExceptionHandler(InvalidPaymentQueryException.class)
+  public ResponseEntity<ErrorResponse> handleInvalidQuery(InvalidPaymentQueryException ex) {
+    log.warn("Invalid payment query: {}", ex.getErrors());
+    return ResponseEntity.badRequest()
+        .body(new ErrorResponse("Invalid query", ex.getErrors()));
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<ErrorResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
     List<String> errors = ex.getBindingResult().getFieldErrors().stream()
@@ -0,0 +1,17 @@
+package com.checkout.payment.gateway.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class InvalidPaymentQueryException extends RuntimeException {
+
+  private final List<String> errors;
+
+  public InvalidPaymentQueryException(List<String> errors) {
+    super("Invalid payment query: " + errors);
+    this.errors = errors;
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.checkout.payment.gateway.exception;
+
+import lombok.Getter;
+
+@Getter
+public class PaymentInProgressException extends RuntimeException {
+
+  private final String idempotencyKey;
+
+  public PaymentInProgressException(String idempotencyKey) {
+    super("Payment is still being processed for idempotency key: " + idempotencyKey);
+    this.idempotencyKey = idempotencyKey;
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.checkout.payment.gateway.exception;
+
+import lombok.Getter;
+
+// The payment could not be made durable, or the journal had already failed before the bank call
+@Getter
+public class PaymentNotStoredException extends RuntimeException {
+
+  private final String idempotencyKey;
+
+  public PaymentNotStoredException(String idempotencyKey, Throwable cause) {
+    super("Payment could not be stored for idempotency key: " + idempotencyKey, cause);
+    this.idempotencyKey = idempotencyKey;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,247 @@
+package com.checkout.payment.gateway.logging;
+
+import com.checkout.payment.gateway.metrics.PaymentOutcome;
+import com.checkout.payment.gateway.metrics.PaymentStage;
+import com.checkout.payment.gateway.metrics.PaymentTimings;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.util.Futures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One structured line per payment, written by a background thread to the
+ * {@code payment.records} logger: the outcome, the payment's identifiers and amount, why it
+ * was rejected or failed, and how long each stage took.
+ *
+ * <p>The completing thread only samples and queues the record, formatting and the appender's
+ * I/O happen on the writer. Authorized payments and replays are sampled at the configured
+ * rate; declines, rejections and failures are always kept. The queue is bounded: when the
+ * writer falls behind, new records are dropped rather than waited on, counted in
+ * {@code payment.log.records} and reported in a warning once the writer catches up.
+ */
+@Slf4j
+public class AsyncPaymentLog implements PaymentLog, Closeable {
+
+  private static final Logger RECORDS = LoggerFactory.getLogger("payment.records");
+  private static final PaymentStage[] STAGES = PaymentStage.values();
+  private static final int BATCH_SIZE = 256;
+
+  private final ArrayBlockingQueue<Record> queue;
+  private final double successSampleRate;
+  private final Consumer<String> writer;
+  private final Counter written;
+  private final Counter dropped;
+  private final Counter sampledOut;
+  private final Thread writerThread;
+  private volatile boolean closed;
+  private double reportedDrops;
+
+  public AsyncPaymentLog(int bufferSize, double successSampleRate, MeterRegistry meterRegistry) {
+    this(bufferSize, successSampleRate, meterRegistry, RECORDS::info);
+  }
+
+  AsyncPaymentLog(int bufferSize, double successSampleRate, MeterRegistry meterRegistry,
+      Consumer<String> writer) {
+    if (bufferSize <= 0 || successSampleRate < 0 || successSampleRate > 1) {
+      throw new IllegalArgumentException("Payment log needs a positive buffer size and a success"
+          + " sample rate between 0 and 1");
+    }
+    this.queue = new ArrayBlockingQueue<>(bufferSize);
+    this.successSampleRate = successSampleRate;
+    this.writer = writer;
+    this.written = counter(meterRegistry, "written");
+    this.dropped = counter(meterRegistry, "dropped");
+    this.sampledOut = counter(meterRegistry, "sampled_out");
+    Gauge.builder("payment.log.queued", queue, ArrayBlockingQueue::size)
+        .description("Payment records waiting to be written")
+        .register(meterRegistry);
+
+    this.writerThread = new Thread(this::writeUntilClosed, "payment-log-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  @Override
+  public void record(PostPaymentRequest request, PaymentTimings timings, PaymentOutcome outcome,
+      PaymentResult result, Throwable failure) {
+    if (isSuccess(outcome) && successSampleRate < 1
+        && ThreadLocalRandom.current().nextDouble() >= successSampleRate) {
+      sampledOut.increment();
+      return;
+    }
+    if (closed || !queue.offer(Record.of(request, timings, outcome, result, failure))) {
+      dropped.increment();
+    }
+  }
+
+  // Stops the writer once it has written what was queued, waiting up to a second
+  @Override
+  public void close() {
+    closed = true;
+    try {
+      writerThread.join(TimeUnit.SECONDS.toMillis(1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static boolean isSuccess(PaymentOutcome outcome) {
+    return outcome == PaymentOutcome.AUTHORIZED || outcome == PaymentOutcome.REPLAYED;
+  }
+
+  private void writeUntilClosed() {
+    List<Record> batch = new ArrayList<>(BATCH_SIZE);
+    StringBuilder line = new StringBuilder(256);
+    while (!closed || !queue.isEmpty()) {
+      try {
+        Record first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, BATCH_SIZE - 1);
+        for (Record record : batch) {
+          line.setLength(0);
+          record.appendTo(line);
+          writer.accept(line.toString());
+          written.increment();
+        }
+        reportDrops();
+      } catch (InterruptedException e) {
+        return;
+      } catch (RuntimeException e) {
+        log.error("Failed to write payment records", e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void reportDrops() {
+    double drops = dropped.count();
+    if (drops > reportedDrops) {
+      log.warn("Dropped {} payment records, the log writer fell behind",
+          (long) (drops - reportedDrops));
+      reportedDrops = drops;
+    }
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("payment.log.records")
+        .description("Payment records by what became of them")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  // What a payment's line is made of, copied when it finishes so the writer reads no live state
+  static final class Record {
+
+    final long finishedAt;
+    final PaymentOutcome outcome;
+    final UUID paymentId;
+    final String idempotencyKey;
+    final String currency;
+    final Integer amount;
+    final String detail;
+    final long[] stageNanos;
+
+    private Record(long finishedAt, PaymentOutcome outcome, UUID paymentId,
+        String idempotencyKey, String currency, Integer amount, String detail,
+        long[] stageNanos) {
+      this.finishedAt = finishedAt;
+      this.outcome = outcome;
+      this.paymentId = paymentId;
+      this.idempotencyKey = idempotencyKey;
+      this.currency = currency;
+      this.amount = amount;
+      this.detail = detail;
+      this.stageNanos = stageNanos;
+    }
+
+    static Record of(PostPaymentRequest request, PaymentTimings timings, PaymentOutcome outcome,
+        PaymentResult result, Throwable failure) {
+      long[] stageNanos = new long[STAGES.length];
+      for (PaymentStage stage : STAGES) {
+        stageNanos[stage.ordinal()] = timings.nanos(stage);
+      }
+      UUID paymentId = result != null && result.getResponse() != null
+          ? result.getResponse().getId()
+          : null;
+      String detail = failure != null
+          ? String.valueOf(Futures.unwrap(failure).getMessage())
+          : result != null && !result.getErrors().isEmpty()
+              ? String.join("; ", result.getErrors())
+              : null;
+      return new Record(System.currentTimeMillis(), outcome, paymentId,
+          request.getIdempotencyKey(), request.getCurrency(), request.getAmount(), detail,
+          stageNanos);
+    }
+
+    // logfmt: key=value pairs, values quoted when they hold spaces, quotes or equals signs
+    void appendTo(StringBuilder line) {
+      line.append("at=").append(Instant.ofEpochMilli(finishedAt));
+      line.append(" outcome=").append(outcome.getTag());
+      if (paymentId != null) {
+        line.append(" id=").append(paymentId);
+      }
+      append(line, "idempotency_key", idempotencyKey);
+      append(line, "currency", currency);
+      if (amount != null) {
+        line.append(" amount=").append(amount.intValue());
+      }
+      append(line, "detail", detail);
+      for (PaymentStage stage : STAGES) {
+        long nanos = stageNanos[stage.ordinal()];
+        if (nanos >= 0) {
+          line.append(' ').append(stage.getTag()).append("_us=")
+              .append(TimeUnit.NANOSECONDS.toMicros(nanos));
+        }
+      }
+    }
+
+    private static void append(StringBuilder line, String key, String value) {
+      if (value == null) {
+        return;
+      }
+      line.append(' ').append(key).append('=');
+      boolean quote = value.isEmpty();
+      for (int i = 0; i < value.length() && !quote; i++) {
+        char c = value.charAt(i);
+        quote = c <= ' ' || c == '"' || c == '=';
+      }
+      if (!quote) {
+        line.append(value);
+        return;
+      }
+      line.append('"');
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '"' || c == '\\') {
+          line.append('\\').append(c);
+        } else if (c == '\n') {
+          line.append("\\n");
+        } else if (c < ' ') {
+          line.append(' ');
+        } else {
+          line.append(c);
+        }
+      }
+      line.append('"');
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.checkout.payment.gateway.logging;
+
+import com.checkout.payment.gateway.metrics.PaymentOutcome;
+import com.checkout.payment.gateway.metrics.PaymentTimings;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+
+/**
+ * Where a finished payment is logged, once, with everything known about it. Called on the
+ * thread that completed the payment, so implementations must not block.
+ */
+@FunctionalInterface
+public interface PaymentLog {
+
+  // Result is null if the payment failed, failure is null otherwise
+  void record(PostPaymentRequest request, PaymentTimings timings, PaymentOutcome outcome,
+      PaymentResult result, Throwable failure);
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.checkout.payment.gateway.metrics;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+
+// How a payment request ended, the outcome tag of its stage timers
+public enum PaymentOutcome {
+  AUTHORIZED("authorized"),
+  DECLINED("declined"),
+  REJECTED("rejected"),
+  BANK_UNAVAILABLE("bank_unavailable"),
+  REPLAYED("replayed"), // Answered from a stored or in-flight payment, no bank call of its own
+  FAILED("failed");
+
+  private final String tag;
+
+  PaymentOutcome(String tag) {
+    this.tag = tag;
+  }
+
+  public String getTag() {
+    return tag;
+  }
+
+  public static PaymentOutcome of(PaymentStatus status) {
+    return switch (status) {
+      case AUTHORIZED -> AUTHORIZED;
+      case DECLINED -> DECLINED;
+      case REJECTED -> REJECTED;
+    };
+  }
+}
\ No newline at end of file
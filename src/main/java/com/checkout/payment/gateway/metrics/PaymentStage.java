@@ -0,0 +1,22 @@
+package com.checkout.payment.gateway.metrics;
+
+// Stages of a payment, in pipeline order; the tag value is the stage's name in metrics
+public enum PaymentStage {
+  BINDING("binding"),                       // JSON body to PostPaymentRequest
+  BEAN_VALIDATION("bean_validation"),       // @Valid constraints on the request
+  IDEMPOTENCY_LOOKUP("idempotency_lookup"), // Stored payment for the key, if any
+  VALIDATION("validation"),                 // PaymentValidator
+  BANK("bank"),                             // Bank call, retries, backoff and hedges included
+  STORE("store"),                           // Repository write
+  TOTAL("total");                           // First timed stage to the result
+
+  private final String tag;
+
+  PaymentStage(String tag) {
+    this.tag = tag;
+  }
+
+  public String getTag() {
+    return tag;
+  }
+}
\ No newline at end of file
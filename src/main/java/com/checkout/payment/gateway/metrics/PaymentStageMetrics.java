@@ -0,0 +1,68 @@
+package com.checkout.payment.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms for each stage of the payment pipeline, published as {@code payment.stage}
+ * tagged by stage and outcome, and for each bank call attempt as {@code bank.attempt} tagged by
+ * attempt number and result. Each timer keeps an HDR histogram and publishes p50, p99 and
+ * p999 at two significant digits, see {@code /actuator/metrics/payment.stage.percentile}.
+ *
+ * <p>Stage timers are created up front, one per stage and outcome, so recording a payment is
+ * a few array reads and histogram updates.
+ */
+@Component
+public class PaymentStageMetrics {
+
+  private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+  private final MeterRegistry meterRegistry;
+  private final Timer[][] stages;
+  private final ConcurrentHashMap<String, Timer> attempts = new ConcurrentHashMap<>();
+
+  public PaymentStageMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.stages = new Timer[PaymentStage.values().length][PaymentOutcome.values().length];
+    for (PaymentStage stage : PaymentStage.values()) {
+      for (PaymentOutcome outcome : PaymentOutcome.values()) {
+        stages[stage.ordinal()][outcome.ordinal()] = histogram(Timer.builder("payment.stage")
+            .description("Time spent in each stage of a payment, by how the payment ended")
+            .tag("stage", stage.getTag())
+            .tag("outcome", outcome.getTag()));
+      }
+    }
+  }
+
+  // Records every stage the payment went through, and the total up to now
+  public void record(PaymentTimings timings, PaymentOutcome outcome) {
+    timings.record(PaymentStage.TOTAL, timings.getStarted());
+    for (PaymentStage stage : PaymentStage.values()) {
+      if (timings.reached(stage)) {
+        stages[stage.ordinal()][outcome.ordinal()]
+            .record(timings.nanos(stage), TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  // One bank call, attempts counted from 1; result is ok, client_error, server_error or io_error
+  public void recordBankAttempt(int attempt, String result, long nanos) {
+    attempts.computeIfAbsent(attempt + ":" + result, key -> histogram(
+            Timer.builder("bank.attempt")
+                .description("Time of each bank call attempt, by attempt number and result")
+                .tag("attempt", Integer.toString(attempt))
+                .tag("result", result)))
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  private Timer histogram(Timer.Builder builder) {
+    return builder
+        .publishPercentiles(PERCENTILES)
+        .percentilePrecision(2)
+        .register(meterRegistry);
+  }
+}
\ No newline at end of file
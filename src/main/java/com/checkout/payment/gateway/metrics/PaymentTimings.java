@@ -0,0 +1,49 @@
+package com.checkout.payment.gateway.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Stage durations of one payment, collected along the pipeline and recorded together once the
+ * outcome is known. Handed from thread to thread with the payment's futures, never shared
+ * between two threads at once.
+ */
+public class PaymentTimings {
+
+  // Request attribute holding the timings started while the body was read
+  public static final String ATTRIBUTE = "paymentTimings";
+
+  private final long started = System.nanoTime();
+  private final long[] nanos = new long[PaymentStage.values().length];
+  private long mark = started;
+
+  public PaymentTimings() {
+    Arrays.fill(nanos, -1);
+  }
+
+  // Records the stage as having taken from startedNanos until now
+  public void record(PaymentStage stage, long startedNanos) {
+    nanos[stage.ordinal()] = System.nanoTime() - startedNanos;
+  }
+
+  // For stages that start where another component left off, e.g. bean validation after binding
+  public void mark() {
+    mark = System.nanoTime();
+  }
+
+  public void recordSinceMark(PaymentStage stage) {
+    record(stage, mark);
+  }
+
+  public long getStarted() {
+    return started;
+  }
+
+  public boolean reached(PaymentStage stage) {
+    return nanos[stage.ordinal()] >= 0;
+  }
+
+  // -1 if the payment never reached the stage
+  public long nanos(PaymentStage stage) {
+    return nanos[stage.ordinal()];
+  }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.checkout.payment.gateway.model.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentLookupRequest {
+
+  public static final int MAX_IDS = 5000;
+
+  @NotEmpty(message = "At least one payment ID is required")
+  @Size(max = MAX_IDS, message = "A lookup takes at most " + MAX_IDS + " payment IDs")
+  private List<@NotNull UUID> ids;
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.checkout.payment.gateway.model.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Query parameters as sent, every one optional; parsed and checked by PaymentQueryService
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentQueryRequest {
+
+  private String status;
+  private String currency;
+  private String cardLastFour;
+  private String from;
+  private String to;
+  private Integer limit;
+  private String cursor;
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.checkout.payment.gateway.model.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostBatchPaymentRequest {
+
+  public static final int MAX_PAYMENTS = 100;
+
+  // Each payment is validated on its own by BatchPaymentService, so one cannot fail the batch
+  @NotEmpty(message = "At least one payment is required")
+  @Size(max = MAX_PAYMENTS, message = "A batch holds at most " + MAX_PAYMENTS + " payments")
+  private List<PostPaymentRequest> payments;
+}
\ No newline at end of file
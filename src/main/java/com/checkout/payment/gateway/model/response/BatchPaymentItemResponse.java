@@ -0,0 +1,32 @@
+package com.checkout.payment.gateway.model.response;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One payment of a batch, with the HTTP status it would have had on its own
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPaymentItemResponse {
+
+  @JsonProperty("idempotency_key")
+  private String idempotencyKey;
+
+  @JsonProperty("status_code")
+  private int statusCode;
+
+  private PaymentStatus status; // Absent when the payment could not be processed
+
+  private PostPaymentResponse payment;
+
+  private List<String> errors;
+}
\ No newline at end of file
@@ -7,6 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @Data
@@ -31,4 +32,21 @@ public class GetPaymentResponse {
   private String currency;
 
   private int amount;
+
+  // When the payment was stored, UTC to the millisecond; part of the API, see the README
+  @JsonProperty("created_at")
+  private Instant createdAt;
+
+  public static GetPaymentResponse from(PostPaymentResponse payment) {
+    return GetPaymentResponse.builder()
+        .id(payment.getId())
+        .status(payment.getStatus())
+        .cardNumberLastFour(payment.getCardNumberLastFour())
+        .expiryMonth(payment.getExpiryMonth())
+        .expiryYear(payment.getExpiryYear())
+        .currency(payment.getCurrency())
+        .amount(payment.getAmount())
+        .createdAt(payment.getCreatedAt())
+        .build();
+  }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.checkout.payment.gateway.model.response;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.CRC32C;
+
+/**
+ * A payment's response body, encoded once and written as is for every read and idempotent
+ * replay, with a strong ETag over those exact bytes.
+ *
+ * <p>The document is the one Jackson binds {@link GetPaymentResponse} and
+ * {@link PostPaymentResponse} to, streamed field by field without data binding. The body is
+ * shared, callers must not modify it.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PaymentJson {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final byte[] body;
+  private final String etag;
+
+  public static PaymentJson encode(PostPaymentResponse payment) {
+    ByteArrayBuilder buffer = new ByteArrayBuilder(256);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer)) {
+      generator.writeStartObject();
+      generator.writeStringField("id",
+          payment.getId() != null ? payment.getId().toString() : null);
+      generator.writeStringField("status",
+          payment.getStatus() != null ? payment.getStatus().getName() : null);
+      generator.writeStringField("currency", payment.getCurrency());
+      generator.writeNumberField("amount", payment.getAmount());
+      // Jackson puts the renamed properties after the others, in declaration order
+      generator.writeStringField("card_number_last_four", payment.getCardNumberLastFour());
+      generator.writeNumberField("expiry_month", payment.getExpiryMonth());
+      generator.writeNumberField("expiry_year", payment.getExpiryYear());
+      // As Jackson's InstantSerializer writes it, with dates not written as timestamps
+      generator.writeStringField("created_at", payment.getCreatedAt() != null
+          ? DateTimeFormatter.ISO_INSTANT.format(payment.getCreatedAt())
+          : null);
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to encode payment " + payment.getId(), e);
+    }
+    byte[] body = buffer.toByteArray();
+
+    CRC32C crc = new CRC32C();
+    crc.update(body);
+    return new PaymentJson(body, '"' + Long.toHexString(crc.getValue()) + '"');
+  }
+}
\ No newline at end of file
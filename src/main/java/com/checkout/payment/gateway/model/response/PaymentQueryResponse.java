@@ -0,0 +1,22 @@
+package com.checkout.payment.gateway.model.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentQueryResponse {
+
+  private List<GetPaymentResponse> payments;
+
+  // Null on the last page
+  @JsonProperty("next_cursor")
+  private String nextCursor;
+}
\ No newline at end of file
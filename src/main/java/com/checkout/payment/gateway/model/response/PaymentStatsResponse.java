@@ -0,0 +1,65 @@
+package com.checkout.payment.gateway.model.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatsResponse {
+
+  @JsonProperty("generated_at")
+  private Instant generatedAt;
+
+  private Map<String, Window> windows; // 1m, 5m, 1h and lifetime
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Window {
+
+    private long count;
+
+    @JsonProperty("authorization_rate")
+    private Double authorizationRate; // Authorized over authorized plus declined
+
+    @JsonProperty("by_status")
+    private Map<String, Long> byStatus;
+
+    @JsonProperty("by_currency")
+    private Map<String, CurrencyTotals> byCurrency; // Only currencies with payments
+  }
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class CurrencyTotals {
+
+    private long count;
+
+    @JsonProperty("authorization_rate")
+    private Double authorizationRate;
+
+    @JsonProperty("by_status")
+    private Map<String, StatusTotals> byStatus;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class StatusTotals {
+
+    private long count;
+
+    private long amount; // Minor units
+  }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.checkout.payment.gateway.model.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostBatchPaymentResponse {
+
+  private List<BatchPaymentItemResponse> results; // Same order as the request
+
+  private Summary summary;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Summary {
+
+    private int total;
+
+    private int authorized;
+
+    private int declined;
+
+    private int rejected;
+
+    private int failed;
+
+    @JsonProperty("duration_ms")
+    private long durationMs;
+
+    @JsonProperty("slowest_payment_ms")
+    private long slowestPaymentMs;
+  }
+}
\ No newline at end of file
@@ -1,34 +1,82 @@
 package com.checkout.payment.gateway.model.response;
 
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AccessLevel;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
+import java.time.Instant;
 import java.util.UUID;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+// Immutable, so the JSON encoded from it on first use stays right for as long as it is served.
+// The order is the one the fields were always written in, which a creator would otherwise change
+@JsonPropertyOrder({"id", "status", "currency", "amount", "card_number_last_four", "expiry_month",
+    "expiry_year", "created_at"})
+@Getter
+@EqualsAndHashCode
+@ToString
 public class PostPaymentResponse {
 
-  private UUID id;
+  private final UUID id;
 
-  private PaymentStatus status;
+  private final PaymentStatus status;
 
   @JsonProperty("card_number_last_four")
-  private String cardNumberLastFour;
+  private final String cardNumberLastFour;
 
   @JsonProperty("expiry_month")
-  private int expiryMonth;
+  private final int expiryMonth;
 
   @JsonProperty("expiry_year")
-  private int expiryYear;
+  private final int expiryYear;
 
-  private String currency;
+  private final String currency;
 
-  private int amount;
+  private final int amount;
+
+  // When the payment was stored, UTC to the millisecond; part of the API, see the README
+  @JsonProperty("created_at")
+  private final Instant createdAt;
+
+  // Transient, so neither bound to JSON nor part of equality, and kept out of the builder
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  private transient PaymentJson json;
+
+  @Builder
+  @JsonCreator
+  private PostPaymentResponse(
+      @JsonProperty("id") UUID id,
+      @JsonProperty("status") PaymentStatus status,
+      @JsonProperty("card_number_last_four") String cardNumberLastFour,
+      @JsonProperty("expiry_month") int expiryMonth,
+      @JsonProperty("expiry_year") int expiryYear,
+      @JsonProperty("currency") String currency,
+      @JsonProperty("amount") int amount,
+      @JsonProperty("created_at") Instant createdAt) {
+    this.id = id;
+    this.status = status;
+    this.cardNumberLastFour = cardNumberLastFour;
+    this.expiryMonth = expiryMonth;
+    this.expiryYear = expiryYear;
+    this.currency = currency;
+    this.amount = amount;
+    this.createdAt = createdAt;
+  }
+
+  // Encoded on first use and kept. A racing encode produces the same immutable value, so the
+  // field needs no synchronization
+  public PaymentJson toJson() {
+    PaymentJson encoded = json;
+    if (encoded == null) {
+      encoded = PaymentJson.encode(this);
+      json = encoded;
+    }
+    return encoded;
+  }
 }
\ No newline at end of file
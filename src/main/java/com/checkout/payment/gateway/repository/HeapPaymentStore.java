@@ -0,0 +1,104 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Default engine: payments kept as objects in two {@link ConcurrentHashMap}s, by id and by
+ * idempotency key, both pointing at the same entry.
+ */
+public class HeapPaymentStore implements PaymentStore {
+
+  private final ConcurrentHashMap<UUID, Entry> payments = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Entry> idempotencyIndex = new ConcurrentHashMap<>();
+
+  // Lock-free: the key is claimed before the payment is published by id, so a writer that
+  // loses the key never shows up in get or forEach. The key maps to the entry itself, so a
+  // reader of a freshly claimed key gets the payment without waiting for the id map.
+  @Override
+  public Optional<PostPaymentResponse> putIfAbsent(PostPaymentResponse payment,
+      String idempotencyKey) {
+    Entry entry = new Entry(payment, idempotencyKey);
+    Entry existing = idempotencyIndex.putIfAbsent(idempotencyKey, entry);
+    if (existing != null && !existing.getPayment().getId().equals(payment.getId())) {
+      return Optional.of(existing.getPayment());
+    }
+    payments.put(payment.getId(), entry);
+    return Optional.empty();
+  }
+
+  @Override
+  public void restore(PostPaymentResponse payment, String idempotencyKey) {
+    Entry entry = new Entry(payment, idempotencyKey);
+    if (payments.putIfAbsent(payment.getId(), entry) != null) {
+      return;
+    }
+    idempotencyIndex.merge(idempotencyKey, entry, (owner, restored) ->
+        isNewer(payment, owner.getPayment()) ? restored : owner);
+  }
+
+  @Override
+  public boolean removeIdempotencyKey(UUID paymentId) {
+    Entry entry = payments.get(paymentId);
+    return entry != null && idempotencyIndex.remove(entry.getIdempotencyKey(), entry);
+  }
+
+  // Key first, so the key never points at a payment that is already gone for good
+  @Override
+  public boolean remove(UUID paymentId) {
+    Entry entry = payments.get(paymentId);
+    if (entry == null) {
+      return false;
+    }
+    idempotencyIndex.remove(entry.getIdempotencyKey(), entry);
+    return payments.remove(paymentId) != null;
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> get(UUID id) {
+    Entry entry = payments.get(id);
+    return entry == null ? Optional.empty() : Optional.of(entry.getPayment());
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> getByIdempotencyKey(String idempotencyKey) {
+    Entry entry = idempotencyIndex.get(idempotencyKey);
+    return entry == null ? Optional.empty() : Optional.of(entry.getPayment());
+  }
+
+  @Override
+  public void forEach(BiConsumer<PostPaymentResponse, String> consumer) {
+    payments.forEach((paymentId, entry) ->
+        consumer.accept(entry.getPayment(), entry.getIdempotencyKey()));
+  }
+
+  @Override
+  public int size() {
+    return payments.size();
+  }
+
+  @Override
+  public void clear() {
+    payments.clear();
+    idempotencyIndex.clear();
+  }
+
+  private static boolean isNewer(PostPaymentResponse payment, PostPaymentResponse than) {
+    Instant createdAt = payment.getCreatedAt();
+    return createdAt != null
+        && (than.getCreatedAt() == null || createdAt.isAfter(than.getCreatedAt()));
+  }
+
+  @Value
+  private static class Entry {
+
+    PostPaymentResponse payment;
+    String idempotencyKey;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps a {@link PaymentIndex} in step with the engine it wraps. Every path that adds or
+ * removes a payment goes through the store, writes, recovery and retention alike, so the index
+ * holds exactly the stored payments. A payment is indexed just after it is stored and
+ * unindexed just after it is removed.
+ */
+public class IndexedPaymentStore implements QueryablePaymentStore {
+
+  private final PaymentStore delegate;
+  private final PaymentIndex index;
+
+  public IndexedPaymentStore(PaymentStore delegate, PaymentIndex index) {
+    this.delegate = delegate;
+    this.index = index;
+  }
+
+  // Only the winning writer is indexed, a discarded payment was never visible
+  @Override
+  public Optional<PostPaymentResponse> putIfAbsent(PostPaymentResponse payment,
+      String idempotencyKey) {
+    Optional<PostPaymentResponse> existing = delegate.putIfAbsent(payment, idempotencyKey);
+    if (existing.isEmpty()) {
+      index.add(payment);
+    }
+    return existing;
+  }
+
+  // Recovery is single-threaded, so checking for the id first is not racy
+  @Override
+  public void restore(PostPaymentResponse payment, String idempotencyKey) {
+    boolean isNew = delegate.get(payment.getId()).isEmpty();
+    delegate.restore(payment, idempotencyKey);
+    if (isNew) {
+      index.add(payment);
+    }
+  }
+
+  @Override
+  public boolean removeIdempotencyKey(UUID paymentId) {
+    return delegate.removeIdempotencyKey(paymentId);
+  }
+
+  @Override
+  public boolean remove(UUID paymentId) {
+    Optional<PostPaymentResponse> payment = delegate.get(paymentId);
+    if (payment.isPresent() && delegate.remove(paymentId)) {
+      index.remove(payment.get());
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> get(UUID id) {
+    return delegate.get(id);
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> getByIdempotencyKey(String idempotencyKey) {
+    return delegate.getByIdempotencyKey(idempotencyKey);
+  }
+
+  // A payment removed between the index walk and its read is left out of the page
+  @Override
+  public List<PostPaymentResponse> query(PaymentQuery query) {
+    List<UUID> ids = index.query(query);
+    List<PostPaymentResponse> payments = new ArrayList<>(ids.size());
+    for (UUID id : ids) {
+      delegate.get(id).ifPresent(payments::add);
+    }
+    return payments;
+  }
+
+  @Override
+  public void forEach(BiConsumer<PostPaymentResponse, String> consumer) {
+    delegate.forEach(consumer);
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    index.clear();
+  }
+}
\ No newline at end of file
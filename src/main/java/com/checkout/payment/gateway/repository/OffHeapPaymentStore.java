@@ -0,0 +1,557 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import lombok.Value;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Payments kept as fixed-width records in direct memory, with open-addressed indexes by id
+ * and by idempotency key. Nothing but the buffers lives on the heap; a
+ * {@link PostPaymentResponse} is only decoded when a payment is read.
+ *
+ * <p>Writers are serialized by a lock (a write is a ~100 byte copy), readers are lock-free.
+ * Removed records go on a free list and are reused, so every record carries a sequence number
+ * that readers check to detect a concurrent rewrite (a seqlock). Removed index entries become
+ * tombstones, and an index is rebuilt once tombstones crowd out the empty slots.
+ */
+public class OffHeapPaymentStore implements PaymentStore {
+
+  // Record layout, 112 bytes
+  static final int RECORD_SIZE = 112;
+  private static final int ID_MSB = 0;
+  private static final int ID_LSB = 8;
+  private static final int CREATED_AT = 16;     // epoch millis, 0 if unknown
+  private static final int AMOUNT = 24;         // next free record while the record is free
+  private static final int CURRENCY = 28;       // 3 ASCII chars packed into an int
+  private static final int SEQUENCE = 32;       // odd while the record is being written
+  private static final int EXPIRY_YEAR = 36;    // short
+  private static final int LAST_FOUR = 38;      // short, 0..9999
+  private static final int STATUS = 40;         // PaymentStatus ordinal, FREE once removed
+  private static final int EXPIRY_MONTH = 41;
+  private static final int KEY_LENGTH = 42;
+  private static final int KEY = 48;
+  static final int MAX_KEY_LENGTH = RECORD_SIZE - KEY;
+
+  private static final byte FREE = -1;
+  private static final int NONE = -1;
+
+  // Keeps each index table within a single 1GB direct buffer
+  static final int MAX_CAPACITY = 1 << 27;
+
+  // Records are allocated in chunks so the store only grows as it fills
+  private static final int CHUNK_SHIFT = 16;
+  private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+  // Index slots hold record + 1, zero means empty
+  private static final int EMPTY = 0;
+  private static final int TOMBSTONE = -1;
+  private static final VarHandle INT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+  private final int capacity;
+  private final int indexSize;
+  private final int indexMask;
+  private final ByteBuffer[] chunks;
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile Index idIndex;
+  private volatile Index keyIndex;
+  private volatile int allocated; // records ever handed out, free or not
+  private volatile int count;
+  private int freeHead = NONE;
+
+  public OffHeapPaymentStore(int capacity) {
+    if (capacity <= 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("Off-heap capacity must be between 1 and " + MAX_CAPACITY);
+    }
+    // Load factor of at most 0.5 keeps probe sequences short
+    this.indexSize = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 2;
+    this.capacity = capacity;
+    this.indexMask = indexSize - 1;
+    this.chunks = new ByteBuffer[(capacity + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT];
+    this.idIndex = new Index(indexSize);
+    this.keyIndex = new Index(indexSize);
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> putIfAbsent(PostPaymentResponse payment,
+      String idempotencyKey) {
+    checkKey(idempotencyKey);
+    writeLock.lock();
+    try {
+      int keySlot = keySlot(keyIndex, idempotencyKey);
+      if (keySlot >= 0) {
+        return Optional.of(read(recordAt(keyIndex, keySlot)).getPayment());
+      }
+      if (idSlot(idIndex, payment.getId()) >= 0) {
+        throw new IllegalStateException("Payment id already stored: " + payment.getId());
+      }
+
+      int record = allocate();
+      write(record, payment, idempotencyKey);
+      publish(idIndex, hash(payment.getId()), record);
+      publish(keyIndex, hash(idempotencyKey), record);
+      count++;
+      return Optional.empty();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void restore(PostPaymentResponse payment, String idempotencyKey) {
+    checkKey(idempotencyKey);
+    writeLock.lock();
+    try {
+      if (idSlot(idIndex, payment.getId()) >= 0) {
+        return;
+      }
+      int keySlot = keySlot(keyIndex, idempotencyKey);
+
+      int record = allocate();
+      write(record, payment, idempotencyKey);
+      publish(idIndex, hash(payment.getId()), record);
+      if (keySlot < 0) {
+        publish(keyIndex, hash(idempotencyKey), record);
+      } else if (createdAt(recordAt(keyIndex, keySlot)) < createdAt(record)) {
+        unpublish(keyIndex, keySlot);
+        publish(keyIndex, hash(idempotencyKey), record);
+      }
+      count++;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean removeIdempotencyKey(UUID paymentId) {
+    writeLock.lock();
+    try {
+      int idSlot = idSlot(idIndex, paymentId);
+      return idSlot >= 0 && unpublishKey(recordAt(idIndex, idSlot));
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean remove(UUID paymentId) {
+    writeLock.lock();
+    try {
+      int idSlot = idSlot(idIndex, paymentId);
+      if (idSlot < 0) {
+        return false;
+      }
+      int record = recordAt(idIndex, idSlot);
+      unpublishKey(record);
+      unpublish(idIndex, idSlot);
+      free(record);
+      count--;
+      return true;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> get(UUID id) {
+    int record = find(idIndex, hash(id), candidate -> idEquals(candidate, id));
+    if (record < 0) {
+      return Optional.empty();
+    }
+    // The record may have been removed and reused since it was found
+    Stored stored = read(record);
+    return stored != null && stored.getPayment().getId().equals(id)
+        ? Optional.of(stored.getPayment()) : Optional.empty();
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> getByIdempotencyKey(String idempotencyKey) {
+    int record = find(keyIndex, hash(idempotencyKey),
+        candidate -> keyEquals(candidate, idempotencyKey));
+    if (record < 0) {
+      return Optional.empty();
+    }
+    Stored stored = read(record);
+    return stored != null && stored.getIdempotencyKey().equals(idempotencyKey)
+        ? Optional.of(stored.getPayment()) : Optional.empty();
+  }
+
+  @Override
+  public void forEach(BiConsumer<PostPaymentResponse, String> consumer) {
+    int visible = allocated; // volatile read: every record below it has been written once
+    for (int record = 0; record < visible; record++) {
+      Stored stored = read(record);
+      if (stored != null) {
+        consumer.accept(stored.getPayment(), stored.getIdempotencyKey());
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return count;
+  }
+
+  @Override
+  public void clear() {
+    writeLock.lock();
+    try {
+      idIndex = new Index(indexSize);
+      keyIndex = new Index(indexSize);
+      allocated = 0;
+      count = 0;
+      freeHead = NONE;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  // Direct memory reserved so far: index tables plus allocated record chunks
+  public long allocatedBytes() {
+    long bytes = (long) idIndex.slots.capacity() + keyIndex.slots.capacity();
+    for (ByteBuffer chunk : chunks) {
+      if (chunk != null) {
+        bytes += chunk.capacity();
+      }
+    }
+    return bytes;
+  }
+
+  // Lock-free probe, the match is only a hint until the record is read consistently
+  private int find(Index index, int hash, RecordMatcher matcher) {
+    for (int slot = hash & indexMask; ; slot = (slot + 1) & indexMask) {
+      int value = (int) INT.getAcquire(index.slots, slot * Integer.BYTES);
+      if (value == EMPTY) {
+        return -1;
+      }
+      if (value != TOMBSTONE && matcher.matches(value - 1)) {
+        return value - 1;
+      }
+    }
+  }
+
+  private int idSlot(Index index, UUID id) {
+    for (int slot = hash(id) & indexMask; ; slot = (slot + 1) & indexMask) {
+      int value = (int) INT.get(index.slots, slot * Integer.BYTES);
+      if (value == EMPTY) {
+        return -1;
+      }
+      if (value != TOMBSTONE && idEquals(value - 1, id)) {
+        return slot;
+      }
+    }
+  }
+
+  private int keySlot(Index index, String idempotencyKey) {
+    for (int slot = hash(idempotencyKey) & indexMask; ; slot = (slot + 1) & indexMask) {
+      int value = (int) INT.get(index.slots, slot * Integer.BYTES);
+      if (value == EMPTY) {
+        return -1;
+      }
+      if (value != TOMBSTONE && keyEquals(value - 1, idempotencyKey)) {
+        return slot;
+      }
+    }
+  }
+
+  private static int recordAt(Index index, int slot) {
+    return (int) INT.get(index.slots, slot * Integer.BYTES) - 1;
+  }
+
+  // Callers hold the write lock and have checked the entry is not indexed yet
+  private void publish(Index index, int hash, int record) {
+    int slot = hash & indexMask;
+    int value;
+    while ((value = (int) INT.get(index.slots, slot * Integer.BYTES)) != EMPTY
+        && value != TOMBSTONE) {
+      slot = (slot + 1) & indexMask;
+    }
+    if (value == EMPTY) {
+      index.used++;
+    }
+    INT.setRelease(index.slots, slot * Integer.BYTES, record + 1);
+
+    // Slots in use include tombstones; keep a quarter of the table empty so probes terminate
+    if (index.used > indexSize - (indexSize >>> 2)) {
+      rebuild(index);
+    }
+  }
+
+  private void unpublish(Index index, int slot) {
+    INT.setRelease(index.slots, slot * Integer.BYTES, TOMBSTONE);
+  }
+
+  // Unless a newer payment has taken the record's key over
+  private boolean unpublishKey(int record) {
+    int keySlot = keySlot(keyIndex, keyAt(record));
+    if (keySlot < 0 || recordAt(keyIndex, keySlot) != record) {
+      return false;
+    }
+    unpublish(keyIndex, keySlot);
+    return true;
+  }
+
+  // Rehashes the live entries into a fresh table; readers still probing the old one see a
+  // consistent, if slightly stale, index
+  private void rebuild(Index index) {
+    boolean byId = index == idIndex;
+    Index rebuilt = new Index(indexSize);
+    for (int slot = 0; slot < indexSize; slot++) {
+      int value = (int) INT.get(index.slots, slot * Integer.BYTES);
+      if (value != EMPTY && value != TOMBSTONE) {
+        int record = value - 1;
+        int hash = byId ? hash(idAt(record)) : hash(keyAt(record));
+        int target = hash & indexMask;
+        while ((int) INT.get(rebuilt.slots, target * Integer.BYTES) != EMPTY) {
+          target = (target + 1) & indexMask;
+        }
+        INT.set(rebuilt.slots, target * Integer.BYTES, value);
+        rebuilt.used++;
+      }
+    }
+    VarHandle.releaseFence();
+    if (byId) {
+      idIndex = rebuilt;
+    } else {
+      keyIndex = rebuilt;
+    }
+  }
+
+  private int allocate() {
+    if (freeHead != NONE) {
+      int record = freeHead;
+      freeHead = chunk(record).getInt(offset(record) + AMOUNT);
+      return record;
+    }
+    if (allocated == capacity) {
+      throw new IllegalStateException("Off-heap payment store is full: " + capacity + " records");
+    }
+    int record = allocated;
+    int chunkIndex = record >>> CHUNK_SHIFT;
+    if (chunks[chunkIndex] == null) {
+      chunks[chunkIndex] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE)
+          .order(ByteOrder.nativeOrder());
+    }
+    return record;
+  }
+
+  private void write(int record, PostPaymentResponse payment, String idempotencyKey) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    int sequence = beginWrite(chunk, offset);
+
+    chunk.putLong(offset + ID_MSB, payment.getId().getMostSignificantBits());
+    chunk.putLong(offset + ID_LSB, payment.getId().getLeastSignificantBits());
+    chunk.putLong(offset + CREATED_AT,
+        payment.getCreatedAt() == null ? 0 : payment.getCreatedAt().toEpochMilli());
+    chunk.putInt(offset + AMOUNT, payment.getAmount());
+    chunk.putInt(offset + CURRENCY, packCurrency(payment.getCurrency()));
+    chunk.putShort(offset + EXPIRY_YEAR, (short) payment.getExpiryYear());
+    chunk.putShort(offset + LAST_FOUR, (short) Integer.parseInt(payment.getCardNumberLastFour()));
+    chunk.put(offset + STATUS, (byte) payment.getStatus().ordinal());
+    chunk.put(offset + EXPIRY_MONTH, (byte) payment.getExpiryMonth());
+    chunk.put(offset + KEY_LENGTH, (byte) idempotencyKey.length());
+    for (int i = 0; i < idempotencyKey.length(); i++) {
+      chunk.put(offset + KEY + i, (byte) idempotencyKey.charAt(i));
+    }
+
+    endWrite(chunk, offset, sequence);
+    if (record == allocated) {
+      allocated = record + 1;
+    }
+  }
+
+  // Marks the record free and pushes it on the free list; the key bytes stay for tombstoned
+  // lookups still in flight, which the sequence check turns into misses
+  private void free(int record) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    int sequence = beginWrite(chunk, offset);
+    chunk.put(offset + STATUS, FREE);
+    chunk.putInt(offset + AMOUNT, freeHead);
+    endWrite(chunk, offset, sequence);
+    freeHead = record;
+  }
+
+  private static int beginWrite(ByteBuffer chunk, int offset) {
+    int sequence = (int) INT.get(chunk, offset + SEQUENCE) + 1;
+    INT.setOpaque(chunk, offset + SEQUENCE, sequence);
+    VarHandle.storeStoreFence();
+    return sequence;
+  }
+
+  private static void endWrite(ByteBuffer chunk, int offset, int sequence) {
+    INT.setRelease(chunk, offset + SEQUENCE, sequence + 1);
+  }
+
+  // Copies the record out and retries if a writer touched it meanwhile; null if it is free
+  private Stored read(int record) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    byte[] key = new byte[MAX_KEY_LENGTH];
+    while (true) {
+      int sequence = (int) INT.getAcquire(chunk, offset + SEQUENCE);
+      long msb = chunk.getLong(offset + ID_MSB);
+      long lsb = chunk.getLong(offset + ID_LSB);
+      long createdAt = chunk.getLong(offset + CREATED_AT);
+      int amount = chunk.getInt(offset + AMOUNT);
+      int currency = chunk.getInt(offset + CURRENCY);
+      short expiryYear = chunk.getShort(offset + EXPIRY_YEAR);
+      short lastFour = chunk.getShort(offset + LAST_FOUR);
+      byte status = chunk.get(offset + STATUS);
+      byte expiryMonth = chunk.get(offset + EXPIRY_MONTH);
+      int keyLength = Math.min(chunk.get(offset + KEY_LENGTH) & 0xFF, MAX_KEY_LENGTH);
+      chunk.get(offset + KEY, key, 0, keyLength);
+      VarHandle.acquireFence();
+
+      if ((sequence & 1) == 0 && sequence == (int) INT.getOpaque(chunk, offset + SEQUENCE)) {
+        if (status == FREE) {
+          return null;
+        }
+        PostPaymentResponse payment = PostPaymentResponse.builder()
+            .id(new UUID(msb, lsb))
+            .status(STATUSES[status])
+            .cardNumberLastFour(unpackLastFour(lastFour))
+            .expiryMonth(expiryMonth)
+            .expiryYear(expiryYear)
+            .currency(unpackCurrency(currency))
+            .amount(amount)
+            .createdAt(createdAt == 0 ? null : Instant.ofEpochMilli(createdAt))
+            .build();
+        return new Stored(payment, new String(key, 0, keyLength, StandardCharsets.US_ASCII));
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private boolean idEquals(int record, UUID id) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    return chunk.getLong(offset + ID_MSB) == id.getMostSignificantBits()
+        && chunk.getLong(offset + ID_LSB) == id.getLeastSignificantBits();
+  }
+
+  private boolean keyEquals(int record, String idempotencyKey) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    int length = chunk.get(offset + KEY_LENGTH);
+    if (length != idempotencyKey.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (chunk.get(offset + KEY + i) != (byte) idempotencyKey.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Writer-side accessors, only called with the write lock held
+  private UUID idAt(int record) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    return new UUID(chunk.getLong(offset + ID_MSB), chunk.getLong(offset + ID_LSB));
+  }
+
+  private String keyAt(int record) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    char[] key = new char[chunk.get(offset + KEY_LENGTH)];
+    for (int i = 0; i < key.length; i++) {
+      key[i] = (char) chunk.get(offset + KEY + i);
+    }
+    return new String(key);
+  }
+
+  private long createdAt(int record) {
+    return chunk(record).getLong(offset(record) + CREATED_AT);
+  }
+
+  private ByteBuffer chunk(int record) {
+    return chunks[record >>> CHUNK_SHIFT];
+  }
+
+  private static int offset(int record) {
+    return (record & CHUNK_MASK) * RECORD_SIZE;
+  }
+
+  private static void checkKey(String idempotencyKey) {
+    if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException("Idempotency key longer than " + MAX_KEY_LENGTH);
+    }
+    for (int i = 0; i < idempotencyKey.length(); i++) {
+      if (idempotencyKey.charAt(i) > 0x7F) {
+        throw new IllegalArgumentException("Idempotency key must be ASCII");
+      }
+    }
+  }
+
+  private static int packCurrency(String currency) {
+    return (currency.charAt(0) << 16) | (currency.charAt(1) << 8) | currency.charAt(2);
+  }
+
+  private static String unpackCurrency(int packed) {
+    return new String(new char[] {
+        (char) ((packed >>> 16) & 0xFF), (char) ((packed >>> 8) & 0xFF), (char) (packed & 0xFF)});
+  }
+
+  private static String unpackLastFour(short packed) {
+    String digits = Integer.toString(packed);
+    return "0000".substring(digits.length()) + digits;
+  }
+
+  private static int hash(UUID id) {
+    return mix(id.getMostSignificantBits() ^ id.getLeastSignificantBits());
+  }
+
+  private static int hash(String idempotencyKey) {
+    return mix(idempotencyKey.hashCode());
+  }
+
+  // Murmur3 finalizer, spreads sequential or low-entropy inputs across the table
+  private static int mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return (int) value;
+  }
+
+  @FunctionalInterface
+  private interface RecordMatcher {
+
+    boolean matches(int record);
+  }
+
+  // Index table plus its non-empty slot count (tombstones included), kept under the write lock
+  private static final class Index {
+
+    final ByteBuffer slots;
+    int used;
+
+    Index(int size) {
+      this.slots = ByteBuffer.allocateDirect(size * Integer.BYTES).order(ByteOrder.nativeOrder());
+    }
+  }
+
+  @Value
+  private static class Stored {
+
+    PostPaymentResponse payment;
+    String idempotencyKey;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,200 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retention for stored payments: the idempotency key is unmapped after one TTL, so a retry
+ * after that creates a new payment, and the payment itself is removed after a longer one.
+ *
+ * <p>Deadlines go into a timing wheel of one bucket per tick, sized so that the longest TTL
+ * never wraps around. Tracking a payment is one queue append, and a background thread drains
+ * each bucket once its tick has passed, so expiry costs O(1) per entry and never runs on a
+ * request thread. Entries expire up to one tick late.
+ *
+ * <p>A payment has a single entry of primitives, its id and creation time, which moves on to
+ * the payment deadline once the key is unmapped. Neither the key nor the payment is held, so
+ * retention adds a fixed, small amount of heap per payment whichever engine stores it.
+ */
+@Slf4j
+public class PaymentExpiry implements Closeable {
+
+  private final PaymentStore store;
+  private final Clock clock;
+  private final long idempotencyKeyTtlMs;
+  private final long paymentTtlMs;
+  private final long tickMs;
+  private final ConcurrentLinkedQueue<Expiring>[] wheel;
+  private final Counter expiredKeys;
+  private final Counter expiredPayments;
+  private volatile long nextTick; // first tick not swept yet
+  private ScheduledExecutorService sweeper;
+
+  @SuppressWarnings("unchecked")
+  public PaymentExpiry(PaymentStore store, Clock clock, long idempotencyKeyTtlMs,
+      long paymentTtlMs, long tickMs, MeterRegistry meterRegistry) {
+    if (tickMs <= 0 || idempotencyKeyTtlMs <= 0 || paymentTtlMs < idempotencyKeyTtlMs) {
+      throw new IllegalArgumentException("Retention needs a positive tick and idempotency key TTL,"
+          + " and a payment TTL no shorter than the key TTL");
+    }
+    long buckets = paymentTtlMs / tickMs + 2;
+    if (buckets > 1 << 22) {
+      throw new IllegalArgumentException("Retention tick too small for the payment TTL: "
+          + buckets + " buckets");
+    }
+    this.store = store;
+    this.clock = clock;
+    this.idempotencyKeyTtlMs = idempotencyKeyTtlMs;
+    this.paymentTtlMs = paymentTtlMs;
+    this.tickMs = tickMs;
+    this.wheel = new ConcurrentLinkedQueue[(int) buckets];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new ConcurrentLinkedQueue<>();
+    }
+    this.nextTick = clock.millis() / tickMs;
+
+    this.expiredKeys = Counter.builder("payments.expired")
+        .description("Idempotency keys and payments removed by retention")
+        .tag("type", "idempotency_key")
+        .register(meterRegistry);
+    this.expiredPayments = Counter.builder("payments.expired")
+        .description("Idempotency keys and payments removed by retention")
+        .tag("type", "payment")
+        .register(meterRegistry);
+    Gauge.builder("payments.stored", store, PaymentStore::size)
+        .description("Payments currently held by the store")
+        .register(meterRegistry);
+  }
+
+  // Starts the background sweep, to be called once the store has been recovered
+  public void start() {
+    sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "payment-expiry");
+      thread.setDaemon(true);
+      return thread;
+    });
+    sweeper.scheduleAtFixedRate(this::sweepSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+  }
+
+  // False if the payment is already past its retention, recovery skips those
+  public boolean isRetained(PostPaymentResponse payment) {
+    return payment.getCreatedAt() == null
+        || payment.getCreatedAt().toEpochMilli() + paymentTtlMs > clock.millis();
+  }
+
+  // False once the payment's idempotency key is past its TTL, recovery leaves those unmapped
+  public boolean isKeyRetained(PostPaymentResponse payment) {
+    return payment.getCreatedAt() == null
+        || payment.getCreatedAt().toEpochMilli() + idempotencyKeyTtlMs > clock.millis();
+  }
+
+  // Covers the payment and whichever key the store holds for it
+  public void track(PostPaymentResponse payment) {
+    long createdAt = payment.getCreatedAt() != null
+        ? payment.getCreatedAt().toEpochMilli()
+        : clock.millis();
+    schedule(new Expiring(payment.getId(), createdAt));
+  }
+
+  // Drains every bucket whose tick has fully passed
+  void sweep() {
+    long currentTick = clock.millis() / tickMs;
+    for (long tick = nextTick; tick < currentTick; tick++) {
+      nextTick = tick + 1; // before draining, so late arrivals move on to the next bucket
+      ConcurrentLinkedQueue<Expiring> bucket = bucket(tick);
+      List<Expiring> laterRevolution = new ArrayList<>();
+      for (Expiring entry = bucket.poll(); entry != null; entry = bucket.poll()) {
+        // Only possible when the sweeper fell a whole revolution behind the clock
+        if (deadline(entry) / tickMs > tick) {
+          laterRevolution.add(entry);
+          continue;
+        }
+        if (entry.keyMapped) {
+          expireKey(entry);
+          // Due in a tick already swept when both TTLs end within it
+          if (deadline(entry) / tickMs > tick) {
+            schedule(entry);
+            continue;
+          }
+        }
+        expirePayment(entry);
+      }
+      bucket.addAll(laterRevolution);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (sweeper != null) {
+      sweeper.shutdownNow();
+    }
+  }
+
+  private void schedule(Expiring entry) {
+    long tick = Math.max(deadline(entry) / tickMs, nextTick);
+    ConcurrentLinkedQueue<Expiring> bucket = bucket(tick);
+    bucket.add(entry);
+    // Raced with the sweeper past this tick: move on, unless the sweep already took it
+    if (tick < nextTick && bucket.remove(entry)) {
+      schedule(entry);
+    }
+  }
+
+  private long deadline(Expiring entry) {
+    return entry.createdAt + (entry.keyMapped ? idempotencyKeyTtlMs : paymentTtlMs);
+  }
+
+  private void expireKey(Expiring entry) {
+    entry.keyMapped = false;
+    if (store.removeIdempotencyKey(new UUID(entry.idMsb, entry.idLsb))) {
+      expiredKeys.increment();
+    }
+  }
+
+  private void expirePayment(Expiring entry) {
+    if (store.remove(new UUID(entry.idMsb, entry.idLsb))) {
+      expiredPayments.increment();
+    }
+  }
+
+  private void sweepSafely() {
+    try {
+      sweep();
+    } catch (RuntimeException e) {
+      log.error("Payment expiry sweep failed", e);
+    }
+  }
+
+  private ConcurrentLinkedQueue<Expiring> bucket(long tick) {
+    return wheel[(int) (tick % wheel.length)];
+  }
+
+  // Due to unmap the key while keyMapped, then to remove the payment. Only the sweeper
+  // changes it once scheduled, the queue publishes it safely
+  private static final class Expiring {
+
+    final long idMsb;
+    final long idLsb;
+    final long createdAt;
+    boolean keyMapped = true;
+
+    Expiring(UUID paymentId, long createdAt) {
+      this.idMsb = paymentId.getMostSignificantBits();
+      this.idLsb = paymentId.getLeastSignificantBits();
+      this.createdAt = createdAt;
+    }
+  }
+}
\ No newline at end of file
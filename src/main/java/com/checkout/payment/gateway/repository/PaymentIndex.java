@@ -0,0 +1,227 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Secondary indexes over stored payments: by creation time, and by creation time within each
+ * status, currency and card last four.
+ *
+ * <p>Every index is a sorted set of the same small entries, newest first. A query walks the
+ * smallest index among its filters from the requested position and checks the other filters on
+ * each entry, so it costs the size of the page times the selectivity of those filters rather
+ * than the size of the store. Indexes are maintained on every write and removal, see
+ * {@link IndexedPaymentStore}.
+ *
+ * <p>Entries are primitives and keep nothing of the payment alive, so an engine that stores
+ * payments off the heap does not have their ids, times and strings retained on it by the
+ * indexes. What the indexes cost per payment is the entry and one skip list node per index.
+ */
+public class PaymentIndex {
+
+  // Ties on creation time are broken by id, so every entry has a unique position for cursors
+  private static final Comparator<Entry> NEWEST_FIRST = Comparator
+      .comparingLong(Entry::getCreatedAt).reversed()
+      .thenComparingLong(Entry::getIdMsb)
+      .thenComparingLong(Entry::getIdLsb);
+  private static final int NONE = -1; // no value, or no filter on it
+
+  private final Index byCreatedAt = new Index();
+  private final ConcurrentHashMap<PaymentStatus, Index> byStatus = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Index> byCurrency = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Index> byCardLastFour = new ConcurrentHashMap<>();
+
+  public void add(PostPaymentResponse payment) {
+    Entry entry = Entry.of(payment);
+    if (byCreatedAt.add(entry)) {
+      add(byStatus, entry.status, entry);
+      add(byCurrency, normalize(payment.getCurrency()), entry);
+      add(byCardLastFour, payment.getCardNumberLastFour(), entry);
+    }
+  }
+
+  // Payments are immutable, so the entry rebuilt from the payment is the one that was added
+  public void remove(PostPaymentResponse payment) {
+    Entry entry = Entry.of(payment);
+    if (byCreatedAt.remove(entry)) {
+      remove(byStatus, entry.status, entry);
+      remove(byCurrency, normalize(payment.getCurrency()), entry);
+      remove(byCardLastFour, payment.getCardNumberLastFour(), entry);
+    }
+  }
+
+  public void clear() {
+    byCreatedAt.clear();
+    byStatus.clear();
+    byCurrency.clear();
+    byCardLastFour.clear();
+  }
+
+  public int size() {
+    return byCreatedAt.size();
+  }
+
+  // Ids of up to limit matching payments, newest first
+  public List<UUID> query(PaymentQuery query) {
+    String currency = normalize(query.getCurrency());
+    Index driving = byCreatedAt;
+    if (query.getStatus() != null) {
+      driving = smaller(driving, byStatus.get(query.getStatus()));
+    }
+    if (currency != null) {
+      driving = smaller(driving, byCurrency.get(currency));
+    }
+    if (query.getCardLastFour() != null) {
+      driving = smaller(driving, byCardLastFour.get(query.getCardLastFour()));
+    }
+    if (driving == null) { // No payment has one of the filtered values
+      return List.of();
+    }
+
+    NavigableSet<Entry> entries = driving.entries;
+    Entry start = start(query);
+    if (start != null) {
+      entries = entries.tailSet(start, false);
+    }
+
+    long from = query.getFrom() == null ? Long.MIN_VALUE : ceilMillis(query.getFrom());
+    int packedCurrency = currency == null ? NONE : packCurrency(currency);
+    int lastFour = query.getCardLastFour() == null ? NONE : packLastFour(query.getCardLastFour());
+    List<UUID> ids = new ArrayList<>(Math.min(query.getLimit(), 1024));
+    for (Entry entry : entries) {
+      if (ids.size() >= query.getLimit() || entry.createdAt < from) {
+        break;
+      }
+      if ((query.getStatus() == null || query.getStatus() == entry.status)
+          && (packedCurrency == NONE || packedCurrency == entry.currency)
+          && (lastFour == NONE || lastFour == entry.cardLastFour)) {
+        ids.add(new UUID(entry.idMsb, entry.idLsb));
+      }
+    }
+    return ids;
+  }
+
+  // Whichever comes later in the index: the end of the time range or the cursor. Both are
+  // exclusive, and the end sorts after every payment created at that instant
+  private static Entry start(PaymentQuery query) {
+    Entry end = query.getTo() == null
+        ? null
+        : new Entry(Long.MAX_VALUE, Long.MAX_VALUE, ceilMillis(query.getTo()), null, NONE, NONE);
+    Entry after = query.getAfterCreatedAt() == null || query.getAfterId() == null
+        ? null
+        : new Entry(query.getAfterId().getMostSignificantBits(),
+            query.getAfterId().getLeastSignificantBits(), ceilMillis(query.getAfterCreatedAt()),
+            null, NONE, NONE);
+    if (end == null || after == null) {
+      return end != null ? end : after;
+    }
+    return NEWEST_FIRST.compare(after, end) > 0 ? after : end;
+  }
+
+  // Payments are stored to the millisecond, an instant within one is rounded up to its end
+  private static long ceilMillis(Instant instant) {
+    long millis = instant.toEpochMilli();
+    return instant.getNano() % 1_000_000 == 0 ? millis : millis + 1;
+  }
+
+  // Payments keep the currency as it was sent, validation accepts any case
+  private static String normalize(String currency) {
+    return currency == null ? null : currency.toUpperCase(Locale.ROOT);
+  }
+
+  // Three ASCII letters, as validation guarantees, packed the way OffHeapPaymentStore does
+  private static int packCurrency(String normalized) {
+    return (normalized.charAt(0) << 16) | (normalized.charAt(1) << 8) | normalized.charAt(2);
+  }
+
+  private static int packLastFour(String lastFour) {
+    return Integer.parseInt(lastFour);
+  }
+
+  private static Index smaller(Index current, Index candidate) {
+    if (current == null || candidate == null) {
+      return null;
+    }
+    return candidate.size() < current.size() ? candidate : current;
+  }
+
+  private static <K> void add(ConcurrentHashMap<K, Index> indexes, K value, Entry entry) {
+    if (value != null) {
+      indexes.computeIfAbsent(value, v -> new Index()).add(entry);
+    }
+  }
+
+  // Emptied indexes are kept, there is at most one per status, currency and last four
+  private static <K> void remove(ConcurrentHashMap<K, Index> indexes, K value, Entry entry) {
+    Index index = value != null ? indexes.get(value) : null;
+    if (index != null) {
+      index.remove(entry);
+    }
+  }
+
+  // A skip list does not count in constant time, the counter does
+  private static final class Index {
+
+    final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    final AtomicInteger size = new AtomicInteger();
+
+    boolean add(Entry entry) {
+      if (entries.add(entry)) {
+        size.incrementAndGet();
+        return true;
+      }
+      return false;
+    }
+
+    boolean remove(Entry entry) {
+      if (entries.remove(entry)) {
+        size.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+
+    void clear() {
+      entries.clear();
+      size.set(0);
+    }
+
+    int size() {
+      return size.get();
+    }
+  }
+
+  @Value
+  private static class Entry {
+
+    long idMsb;
+    long idLsb;
+    long createdAt;   // epoch millis, 0 (the epoch) if unknown
+    PaymentStatus status;
+    int currency;     // packed, NONE if absent
+    int cardLastFour; // 0..9999, NONE if absent
+
+    static Entry of(PostPaymentResponse payment) {
+      String currency = normalize(payment.getCurrency());
+      String lastFour = payment.getCardNumberLastFour();
+      return new Entry(payment.getId().getMostSignificantBits(),
+          payment.getId().getLeastSignificantBits(),
+          payment.getCreatedAt() == null ? 0 : payment.getCreatedAt().toEpochMilli(),
+          payment.getStatus(),
+          currency == null ? NONE : packCurrency(currency),
+          lastFour == null ? NONE : packLastFour(lastFour));
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Filters for {@link PaymentsRepository#query}, every one optional. Results are newest first,
+ * and a page resumes after the creation time and id of the last payment of the previous one.
+ */
+@Value
+@Builder
+public class PaymentQuery {
+
+  PaymentStatus status;
+  String currency;
+  String cardLastFour;
+  Instant from;           // inclusive
+  Instant to;             // exclusive
+  Instant afterCreatedAt; // with afterId, the position to resume after
+  UUID afterId;
+  int limit;
+}
\ No newline at end of file
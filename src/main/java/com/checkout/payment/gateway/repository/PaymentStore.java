@@ -0,0 +1,38 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Storage engine behind {@link PaymentsRepository}, which reaches it through
+ * {@link QueryablePaymentStore}. Implementations must be thread-safe.
+ */
+public interface PaymentStore {
+
+  // Stores the payment unless the key is already taken, in which case the stored one is returned
+  Optional<PostPaymentResponse> putIfAbsent(PostPaymentResponse payment, String idempotencyKey);
+
+  // Recovery: stores the payment if its id is new, the most recently created payment owns the key
+  void restore(PostPaymentResponse payment, String idempotencyKey);
+
+  // Unmaps the payment's key if the key still points at it, the payment stays readable by id
+  boolean removeIdempotencyKey(UUID paymentId);
+
+  // Drops the payment, and its key if the key still points at it
+  boolean remove(UUID paymentId);
+
+  Optional<PostPaymentResponse> get(UUID id);
+
+  Optional<PostPaymentResponse> getByIdempotencyKey(String idempotencyKey);
+
+  // Every stored payment with the key it was stored under, even once that key has expired.
+  // Weakly consistent: payments stored while iterating may or may not be visited
+  void forEach(BiConsumer<PostPaymentResponse, String> consumer);
+
+  int size();
+
+  void clear();
+}
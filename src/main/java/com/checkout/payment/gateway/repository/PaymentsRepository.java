@@ -1,54 +1,173 @@
 package com.checkout.payment.gateway.repository;
 
+import com.checkout.payment.gateway.exception.PaymentNotStoredException;
 import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.journal.JournalPosition;
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import com.checkout.payment.gateway.repository.journal.PaymentSnapshotter;
+import com.checkout.payment.gateway.util.Futures;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Repository
 @Slf4j
 public class PaymentsRepository {
 
-  private final ConcurrentHashMap<UUID, PostPaymentResponse> payments = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<String, UUID> idempotencyIndex = new ConcurrentHashMap<>();
-  private final Object lock = new Object();
-
-  // Added this as an Atomic operation to store payment and index by idempotency key together
-  public void addWithIdempotencyKey(PostPaymentResponse payment, String idempotencyKey) {
-    synchronized (lock) {
-      if (idempotencyKey != null && !idempotencyKey.isBlank()) {
-        idempotencyIndex.put(idempotencyKey, payment.getId());
-        payments.put(payment.getId(), payment);
-        log.info("Payment stored: id={}", payment.getId());
-        return;
+  private final QueryablePaymentStore store;
+  private final PaymentJournal journal;         // null unless payment.journal.enabled
+  private final PaymentSnapshotter snapshotter; // null unless snapshots are enabled too
+  private final PaymentExpiry expiry;           // null unless payment.retention.enabled
+
+  public PaymentsRepository(QueryablePaymentStore store, Optional<PaymentJournal> journal,
+      Optional<PaymentSnapshotter> snapshotter, Optional<PaymentExpiry> expiry) {
+    this.store = store;
+    this.journal = journal.orElse(null);
+    this.snapshotter = snapshotter.orElse(null);
+    this.expiry = expiry.orElse(null);
+  }
+
+  // Rebuilds the store from the latest snapshot plus the journal tail before serving requests
+  @PostConstruct
+  public void recover() {
+    if (journal != null) {
+      try {
+        JournalPosition from = snapshotter != null
+            ? snapshotter.loadLatest(this::restore, store::clear)
+            : JournalPosition.START;
+
+        long started = System.nanoTime();
+        long records = journal.replayFrom(from, this::restore);
+        log.info("Replayed {} payments from journal position {} in {} ms", records, from,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to recover payments", e);
+      }
+
+      if (snapshotter != null) {
+        snapshotter.start();
       }
+    }
+
+    if (expiry != null) {
+      expiry.start();
+    }
+  }
+
+  // Atomic per key: the first writer wins, later writers get the stored payment back
+  public Optional<PostPaymentResponse> addWithIdempotencyKey(PostPaymentResponse payment,
+      String idempotencyKey) {
+    return Futures.join(addWithIdempotencyKeyAsync(payment, idempotencyKey));
+  }
+
+  // Same, completing once the winning write is journaled, without holding the caller's thread
+  // while the journal waits for its group commit
+  public CompletableFuture<Optional<PostPaymentResponse>> addWithIdempotencyKeyAsync(
+      PostPaymentResponse payment, String idempotencyKey) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
       log.info("Payment was not stored: id={}", payment.getId());
+      return CompletableFuture.completedFuture(Optional.empty());
+    }
+
+    // Encoded before it is published: engines that keep the object serve every read from it
+    payment.toJson();
+    Optional<PostPaymentResponse> existing = store.putIfAbsent(payment, idempotencyKey);
+    if (existing.isPresent()) {
+      log.warn("Idempotency key already stored: id={}, discarded id={}",
+          existing.get().getId(), payment.getId());
+      return CompletableFuture.completedFuture(existing);
+    }
+
+    // Tracked before anything that can fail, so retention always covers what was published
+    if (expiry != null) {
+      expiry.track(payment);
+    }
+    if (journal == null) {
+      log.debug("Payment stored: id={}", payment.getId());
+      return CompletableFuture.completedFuture(Optional.empty());
     }
 
+    // Only the winning write is journaled, so replay rebuilds the same key-to-payment mapping
+    CompletableFuture<Void> durable;
+    try {
+      durable = journal.append(payment, idempotencyKey);
+    } catch (RuntimeException e) {
+      durable = CompletableFuture.failedFuture(e);
+    }
+    return durable.handle((journaled, failure) -> {
+      if (failure == null) {
+        log.debug("Payment stored: id={}", payment.getId());
+        return Optional.empty();
+      }
+      // A payment is only acknowledged once durable. One the journal could not take stays in
+      // the store with its key claimed: its frame may still reach the disk and come back on
+      // replay, and a freed key would let a retry authorize the card a second time
+      throw new PaymentNotStoredException(idempotencyKey, Futures.unwrap(failure));
+    });
+  }
+
+  // Refuses new payments once the journal has failed, before the bank is asked for anything
+  public void checkWritable(String idempotencyKey) {
+    if (journal != null && journal.failure() != null) {
+      throw new PaymentNotStoredException(idempotencyKey, journal.failure());
+    }
   }
 
   public Optional<PostPaymentResponse> get(UUID id) {
-    return Optional.ofNullable(payments.get(id));
+    return store.get(id);
   }
 
-  public Optional<PostPaymentResponse> getByIdempotencyKey(String idempotencyKey) {
-    if (idempotencyKey == null || idempotencyKey.isBlank()) {
-      return Optional.empty();
+  // One pass over the ids: each is handed to found or missing, in the order given
+  public void getAll(Collection<UUID> ids, Consumer<PostPaymentResponse> found,
+      Consumer<UUID> missing) {
+    for (UUID id : ids) {
+      Optional<PostPaymentResponse> payment = store.get(id);
+      if (payment.isPresent()) {
+        found.accept(payment.get());
+      } else {
+        missing.accept(id);
+      }
     }
+  }
 
-    UUID paymentId = idempotencyIndex.get(idempotencyKey);
-    if (paymentId == null) {
+  public List<PostPaymentResponse> query(PaymentQuery query) {
+    return store.query(query);
+  }
+
+  public Optional<PostPaymentResponse> getByIdempotencyKey(String idempotencyKey) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
       return Optional.empty();
     }
 
-    return get(paymentId);
+    return store.getByIdempotencyKey(idempotencyKey);
   }
+
   // TODO: Make it private but visible for testing
   public void clear() {
-    payments.clear();
-    idempotencyIndex.clear();
+    store.clear();
+  }
+
+  // Payments already past retention are dropped, the rest are tracked from their creation time.
+  // Snapshots and the journal still hold keys the sweep had not reached, which stay forgotten
+  private void restore(PostPaymentResponse payment, String idempotencyKey) {
+    if (expiry == null) {
+      store.restore(payment, idempotencyKey);
+    } else if (expiry.isRetained(payment)) {
+      store.restore(payment, idempotencyKey);
+      if (!expiry.isKeyRetained(payment)) {
+        store.removeIdempotencyKey(payment.getId());
+      }
+      expiry.track(payment);
+    }
   }
 }
\ No newline at end of file
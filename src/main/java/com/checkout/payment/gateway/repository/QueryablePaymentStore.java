@@ -0,0 +1,15 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+
+import java.util.List;
+
+/**
+ * A {@link PaymentStore} that can also be searched, which is what {@link PaymentsRepository}
+ * serves from. Engines only store; {@link IndexedPaymentStore} adds the search over any of them.
+ */
+public interface QueryablePaymentStore extends PaymentStore {
+
+  // Matching payments newest first
+  List<PostPaymentResponse> query(PaymentQuery query);
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.checkout.payment.gateway.repository.journal;
+
+/**
+ * When appended journal records are forced to disk before the write is acknowledged.
+ */
+public enum FsyncPolicy {
+  ALWAYS, // force after every append
+  GROUP,  // appenders wait for a shared force every group-commit interval
+  OS      // leave write-back to the OS page cache
+}
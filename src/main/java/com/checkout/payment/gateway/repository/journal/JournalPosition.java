@@ -0,0 +1,21 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import lombok.Value;
+
+/**
+ * A point in the journal: records before it have been applied, records from it on have not.
+ */
+@Value
+public class JournalPosition implements Comparable<JournalPosition> {
+
+  public static final JournalPosition START = new JournalPosition(0, 0);
+
+  long segment;
+  int offset;
+
+  @Override
+  public int compareTo(JournalPosition other) {
+    int bySegment = Long.compare(segment, other.segment);
+    return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+  }
+}
@@ -0,0 +1,397 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of stored payments in memory-mapped segment files.
+ *
+ * <p>Each record is framed as {@code [payload length][CRC32][payload]}. Segments are
+ * pre-allocated and zero-filled, so a zero length marks the end of the written area and a CRC
+ * mismatch marks a write torn by a crash. {@link #replay} must be called once before appending.
+ *
+ * <p>{@link #append} never waits for the disk. It returns a future that completes once the
+ * record is durable under the fsync policy; with {@link FsyncPolicy#GROUP} the flusher thread
+ * completes it after the next shared force, so whatever is chained on it runs there and must
+ * be short.
+ *
+ * <p>A failed force leaves the journal failed: its frames may still reach the disk through
+ * the page cache, so what was acknowledged and what replay would bring back can no longer be
+ * told apart. Every pending append fails with it and every later append is rejected until a
+ * restart, rather than writing more records behind one whose fate is unknown.
+ */
+@Slf4j
+public class PaymentJournal implements Closeable {
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final FsyncPolicy fsyncPolicy;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ArrayDeque<PendingAppend> pending = new ArrayDeque<>(); // GROUP only
+  private final CRC32 crc = new CRC32();
+  private final ScheduledExecutorService flusher;
+
+  private long segmentIndex = -1;
+  private FileChannel channel;
+  private MappedByteBuffer segment;
+  private long appendedSequence;
+  private long flushedSequence;
+  private boolean closed;
+  private volatile RuntimeException failure; // set once, by the first failed write or force
+
+  public PaymentJournal(Path directory, int segmentSize, FsyncPolicy fsyncPolicy,
+      long groupCommitIntervalMs) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.segmentSize = segmentSize;
+    this.fsyncPolicy = fsyncPolicy;
+
+    if (fsyncPolicy == FsyncPolicy.GROUP) {
+      this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-journal-flusher");
+        thread.setDaemon(true);
+        return thread;
+      });
+      flusher.scheduleWithFixedDelay(this::groupCommit, groupCommitIntervalMs,
+          groupCommitIntervalMs, TimeUnit.MILLISECONDS);
+    } else {
+      this.flusher = null;
+    }
+  }
+
+  /**
+   * Feeds every intact record to the consumer in append order and positions the writer after
+   * the last one. Returns the number of records replayed.
+   */
+  public long replay(BiConsumer<PostPaymentResponse, String> consumer) throws IOException {
+    return replayFrom(JournalPosition.START, consumer);
+  }
+
+  // Same as replay, skipping everything before the given position (e.g. covered by a snapshot)
+  public long replayFrom(JournalPosition from, BiConsumer<PostPaymentResponse, String> consumer)
+      throws IOException {
+    lock.lock();
+    try {
+      AtomicLong replayed = new AtomicLong();
+      PaymentRecordCodec.Record record = new PaymentRecordCodec.Record();
+      List<Long> segments = listSegments().stream()
+          .filter(index -> index >= from.getSegment())
+          .toList();
+
+      for (int i = 0; i < segments.size(); i++) {
+        long index = segments.get(i);
+        boolean last = i == segments.size() - 1;
+        int start = index == from.getSegment() ? from.getOffset() : 0;
+        try (FileChannel readChannel = FileChannel.open(segmentPath(index),
+            StandardOpenOption.READ)) {
+          ByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+          int end = scan(buffer, start, record, (payment, key) -> {
+            consumer.accept(payment, key);
+            replayed.incrementAndGet();
+          });
+          if (!last && end + Integer.BYTES <= buffer.limit() && buffer.getInt(end) != 0) {
+            throw new IllegalStateException("Corrupt journal segment: " + segmentPath(index));
+          }
+          if (last) {
+            openSegment(index, end);
+          }
+        }
+      }
+
+      if (segments.isEmpty()) {
+        // Never write behind a snapshot position, or the next recovery would skip those records
+        openSegment(from.equals(JournalPosition.START) ? 0 : from.getSegment() + 1, 0);
+      }
+      return replayed.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Everything appended before this position is already in the store
+  public JournalPosition position() {
+    lock.lock();
+    try {
+      if (segment == null) {
+        throw new IllegalStateException("Journal has not been replayed yet");
+      }
+      return new JournalPosition(segmentIndex, segment.position());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Compaction: drops whole segments older than the given one, never the one being written
+  public int deleteSegmentsBefore(long before) throws IOException {
+    long current = position().getSegment();
+    int deleted = 0;
+    for (long index : listSegments()) {
+      if (index < before && index < current) {
+        Files.deleteIfExists(segmentPath(index));
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+
+  // Completes once the record is durable, or exceptionally if it could not be written or forced
+  public CompletableFuture<Void> append(PostPaymentResponse payment, String idempotencyKey) {
+    byte[] key = PaymentRecordCodec.keyBytes(idempotencyKey);
+    int payloadSize = PaymentRecordCodec.size(key);
+    int frameSize = HEADER_SIZE + payloadSize;
+    if (frameSize > segmentSize) {
+      throw new IllegalArgumentException("Journal record larger than segment: " + frameSize);
+    }
+
+    CompletableFuture<Void> durable;
+    List<CompletableFuture<Void>> flushedByRollOver = List.of();
+    List<CompletableFuture<Void>> failed = List.of();
+    RuntimeException appendFailure = null;
+    lock.lock();
+    try {
+      if (segment == null || closed) {
+        throw new IllegalStateException("Journal is not open for appends");
+      }
+      if (failure != null) {
+        throw new IllegalStateException("Journal has failed, appends are rejected", failure);
+      }
+      if (segment.remaining() < frameSize) {
+        openSegment(segmentIndex + 1, 0);
+        flushedByRollOver = takeFlushed();
+      }
+
+      int start = segment.position();
+      segment.position(start + HEADER_SIZE);
+      PaymentRecordCodec.encode(segment, payment, key);
+      crc.reset();
+      crc.update(segment.slice(start + HEADER_SIZE, payloadSize));
+      segment.putInt(start + Integer.BYTES, (int) crc.getValue());
+      // Length last, so a frame cut short by a crash usually reads as the end of the log;
+      // the CRC catches the cases where the OS wrote the pages back out of order
+      segment.putInt(start, payloadSize);
+
+      long sequence = ++appendedSequence;
+      if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+        segment.force(start, frameSize);
+        flushedSequence = sequence;
+      }
+      if (fsyncPolicy == FsyncPolicy.GROUP && flushedSequence < sequence) {
+        durable = new CompletableFuture<>();
+        pending.add(new PendingAppend(sequence, durable));
+      } else {
+        durable = CompletableFuture.completedFuture(null);
+      }
+    } catch (IOException e) {
+      appendFailure = new UncheckedIOException("Failed to append to payment journal", e);
+      failed = fail(appendFailure);
+      durable = CompletableFuture.failedFuture(appendFailure);
+    } catch (UncheckedIOException e) { // from force
+      appendFailure = e;
+      failed = fail(e);
+      durable = CompletableFuture.failedFuture(e);
+    } finally {
+      lock.unlock();
+    }
+    complete(flushedByRollOver, null);
+    complete(failed, appendFailure);
+    return durable;
+  }
+
+  // The failure that stopped the journal, null while it takes appends
+  public RuntimeException failure() {
+    return failure;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (flusher != null) {
+      flusher.shutdownNow();
+    }
+    List<CompletableFuture<Void>> flushed;
+    lock.lock();
+    try {
+      closed = true;
+      if (segment != null) {
+        segment.force();
+        channel.close();
+      }
+      flushedSequence = appendedSequence;
+      flushed = takeFlushed();
+    } finally {
+      lock.unlock();
+    }
+    complete(flushed, null);
+  }
+
+  // Reads frames from the start offset, returns the offset just after the last intact one
+  private int scan(ByteBuffer buffer, int start, PaymentRecordCodec.Record record,
+      BiConsumer<PostPaymentResponse, String> consumer) {
+    CRC32 checksum = new CRC32();
+    int position = start;
+    while (position + HEADER_SIZE <= buffer.limit()) {
+      int payloadSize = buffer.getInt(position);
+      if (payloadSize <= 0 || position + HEADER_SIZE + payloadSize > buffer.limit()) {
+        break;
+      }
+      ByteBuffer payload = buffer.slice(position + HEADER_SIZE, payloadSize);
+      checksum.reset();
+      checksum.update(payload.duplicate());
+      if ((int) checksum.getValue() != buffer.getInt(position + Integer.BYTES)) {
+        log.warn("Torn journal record at offset {}, ignoring the rest of the segment", position);
+        break;
+      }
+      PaymentRecordCodec.decode(payload, record);
+      consumer.accept(record.payment, record.idempotencyKey);
+      position += HEADER_SIZE + payloadSize;
+    }
+    return position;
+  }
+
+  private void openSegment(long index, int position) throws IOException {
+    if (segment != null) {
+      segment.force();
+      channel.close();
+      flushedSequence = appendedSequence; // appenders waiting on it are completed by the caller
+    }
+
+    Path path = segmentPath(index);
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    long size = Math.max(channel.size(), segmentSize);
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    segmentIndex = index;
+
+    // Wipe whatever a torn write left behind so it cannot be mistaken for a record later
+    for (int i = position; i < segment.limit(); i++) {
+      if (segment.get(i) != 0) {
+        log.warn("Clearing {} bytes after the last intact record in {}", size - position, path);
+        for (int j = position; j < segment.limit(); j++) {
+          segment.put(j, (byte) 0);
+        }
+        break;
+      }
+    }
+    segment.position(position);
+  }
+
+  private void groupCommit() {
+    MappedByteBuffer target;
+    long sequence;
+    lock.lock();
+    try {
+      if (closed || failure != null || segment == null || flushedSequence == appendedSequence) {
+        return;
+      }
+      target = segment;
+      sequence = appendedSequence;
+    } finally {
+      lock.unlock();
+    }
+
+    RuntimeException forceFailure = null;
+    try {
+      target.force();
+    } catch (RuntimeException e) {
+      forceFailure = e;
+    }
+
+    // Completed outside the lock, appenders' continuations run on this thread
+    List<CompletableFuture<Void>> flushed;
+    lock.lock();
+    try {
+      if (forceFailure == null) {
+        flushedSequence = Math.max(flushedSequence, sequence);
+        flushed = takeFlushed();
+      } else {
+        flushed = fail(forceFailure);
+      }
+    } finally {
+      lock.unlock();
+    }
+    complete(flushed, forceFailure);
+  }
+
+  // Stops the journal and hands back every pending append to fail, called with the lock held
+  private List<CompletableFuture<Void>> fail(RuntimeException cause) {
+    if (failure == null) {
+      log.error("Payment journal failed, rejecting appends until restart", cause);
+      failure = cause;
+    }
+    return take(Long.MAX_VALUE);
+  }
+
+  // Appends made durable by the last force, called with the lock held
+  private List<CompletableFuture<Void>> takeFlushed() {
+    return take(flushedSequence);
+  }
+
+  private List<CompletableFuture<Void>> take(long upToSequence) {
+    List<CompletableFuture<Void>> taken = new ArrayList<>();
+    while (!pending.isEmpty() && pending.peek().sequence <= upToSequence) {
+      taken.add(pending.poll().durable);
+    }
+    return taken;
+  }
+
+  private static void complete(List<CompletableFuture<Void>> appends, RuntimeException failure) {
+    for (CompletableFuture<Void> durable : appends) {
+      if (failure == null) {
+        durable.complete(null);
+      } else {
+        durable.completeExceptionally(failure);
+      }
+    }
+  }
+
+  private List<Long> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> path.getFileName().toString())
+          .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+          .map(name -> Long.parseLong(
+              name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private Path segmentPath(long index) {
+    return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+  }
+
+  // An append waiting for the group commit that makes it durable
+  private static final class PendingAppend {
+
+    final long sequence;
+    final CompletableFuture<Void> durable;
+
+    PendingAppend(long sequence, CompletableFuture<Void> durable) {
+      this.sequence = sequence;
+      this.durable = durable;
+    }
+  }
+}
\ No newline at end of file
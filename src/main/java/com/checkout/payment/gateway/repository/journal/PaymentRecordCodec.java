@@ -0,0 +1,89 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Binary encoding of a stored payment and its idempotency key.
+ */
+final class PaymentRecordCodec {
+
+  // id, created at, status, expiry month, expiry year, amount, currency, last four, key length
+  static final int FIXED_SIZE = 16 + 8 + 1 + 1 + 2 + 4 + 3 + 4 + 2;
+
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+  private PaymentRecordCodec() {
+  }
+
+  static int size(byte[] key) {
+    return FIXED_SIZE + key.length;
+  }
+
+  static byte[] keyBytes(String idempotencyKey) {
+    return idempotencyKey.getBytes(StandardCharsets.UTF_8);
+  }
+
+  static void encode(ByteBuffer buffer, PostPaymentResponse payment, byte[] key) {
+    buffer.putLong(payment.getId().getMostSignificantBits());
+    buffer.putLong(payment.getId().getLeastSignificantBits());
+    buffer.putLong(payment.getCreatedAt() == null ? 0 : payment.getCreatedAt().toEpochMilli());
+    buffer.put((byte) payment.getStatus().ordinal());
+    buffer.put((byte) payment.getExpiryMonth());
+    buffer.putShort((short) payment.getExpiryYear());
+    buffer.putInt(payment.getAmount());
+    putAscii(buffer, payment.getCurrency(), 3);
+    putAscii(buffer, payment.getCardNumberLastFour(), 4);
+    buffer.putShort((short) key.length);
+    buffer.put(key);
+  }
+
+  static void decode(ByteBuffer buffer, Record target) {
+    UUID id = new UUID(buffer.getLong(), buffer.getLong());
+    long createdAt = buffer.getLong();
+    PaymentStatus status = STATUSES[buffer.get()];
+    int expiryMonth = buffer.get();
+    int expiryYear = buffer.getShort();
+    int amount = buffer.getInt();
+    String currency = getAscii(buffer, 3);
+    String lastFour = getAscii(buffer, 4);
+    byte[] key = new byte[buffer.getShort()];
+    buffer.get(key);
+
+    target.payment = PostPaymentResponse.builder()
+        .id(id)
+        .status(status)
+        .cardNumberLastFour(lastFour)
+        .expiryMonth(expiryMonth)
+        .expiryYear(expiryYear)
+        .currency(currency)
+        .amount(amount)
+        .createdAt(createdAt == 0 ? null : Instant.ofEpochMilli(createdAt))
+        .build();
+    target.idempotencyKey = new String(key, StandardCharsets.UTF_8);
+  }
+
+  private static void putAscii(ByteBuffer buffer, String value, int length) {
+    for (int i = 0; i < length; i++) {
+      buffer.put((byte) value.charAt(i));
+    }
+  }
+
+  private static String getAscii(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  // Reused across a replay to avoid a holder allocation per record
+  static final class Record {
+
+    PostPaymentResponse payment;
+    String idempotencyKey;
+  }
+}
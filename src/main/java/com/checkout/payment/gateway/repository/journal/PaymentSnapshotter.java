@@ -0,0 +1,256 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentStore;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Periodic snapshots of the store so recovery loads the latest snapshot and replays only the
+ * journal tail after it.
+ *
+ * <p>A snapshot records the journal position first and then walks the live store, so writers
+ * are never paused. Every record appended before that position is already in the store;
+ * records appended after it may also be captured, which is harmless because replay is
+ * idempotent per key. Segments older than the oldest retained snapshot are deleted.
+ */
+@Slf4j
+public class PaymentSnapshotter implements Closeable {
+
+  private static final int MAGIC = 0x50534e50; // "PSNP"
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".snap";
+  private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+  private final Path directory;
+  private final PaymentJournal journal;
+  private final PaymentStore store;
+  private final int retainedSnapshots;
+  private final long intervalMs;
+  private ScheduledExecutorService scheduler;
+
+  public PaymentSnapshotter(Path directory, PaymentJournal journal, PaymentStore store,
+      int retainedSnapshots, long intervalMs) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.journal = journal;
+    this.store = store;
+    this.retainedSnapshots = Math.max(1, retainedSnapshots);
+    this.intervalMs = intervalMs;
+  }
+
+  /**
+   * Loads the newest readable snapshot into the consumer and returns the journal position to
+   * replay from. Unreadable snapshots are skipped after resetting whatever they loaded.
+   */
+  public JournalPosition loadLatest(BiConsumer<PostPaymentResponse, String> consumer,
+      Runnable reset) throws IOException {
+    List<Path> snapshots = listSnapshots();
+    for (int i = snapshots.size() - 1; i >= 0; i--) {
+      Path snapshot = snapshots.get(i);
+      long started = System.nanoTime();
+      try {
+        SnapshotHeader loaded = load(snapshot, consumer);
+        log.info("Loaded {} payments from {} in {} ms", loaded.getRecords(),
+            snapshot.getFileName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return loaded.getPosition();
+      } catch (IOException | RuntimeException e) {
+        log.warn("Skipping unreadable snapshot {}: {}", snapshot.getFileName(), e.toString());
+        reset.run();
+      }
+    }
+    return JournalPosition.START;
+  }
+
+  // Starts periodic snapshots, to be called once the store has been recovered
+  public void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "payment-snapshotter");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(this::snapshotAndCompact, intervalMs, intervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public JournalPosition snapshot() throws IOException {
+    long started = System.nanoTime();
+    JournalPosition position = journal.position();
+    Path target = directory.resolve(String.format("%s%020d-%010d%s", SNAPSHOT_PREFIX,
+        position.getSegment(), position.getOffset(), SNAPSHOT_SUFFIX));
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+    CRC32 crc = new CRC32();
+    long records;
+    try (FileOutputStream file = new FileOutputStream(temp.toFile());
+        DataOutputStream out = new DataOutputStream(
+            new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+      out.writeInt(MAGIC);
+      out.writeLong(position.getSegment());
+      out.writeInt(position.getOffset());
+
+      RecordWriter writer = new RecordWriter(out);
+      try {
+        store.forEach(writer);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      records = writer.records;
+
+      out.writeInt(0);
+      out.writeLong(records);
+      out.writeInt((int) crc.getValue());
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+    log.info("Wrote snapshot of {} payments at {} in {} ms", records, position,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    return position;
+  }
+
+  // Keeps the newest snapshots and drops journal segments that none of them needs
+  public void compact() throws IOException {
+    List<Path> snapshots = listSnapshots();
+    int excess = snapshots.size() - retainedSnapshots;
+    for (int i = 0; i < excess; i++) {
+      Files.deleteIfExists(snapshots.get(i));
+    }
+    if (!snapshots.isEmpty()) {
+      JournalPosition oldestRetained = positionOf(snapshots.get(Math.max(excess, 0)));
+      int deleted = journal.deleteSegmentsBefore(oldestRetained.getSegment());
+      if (deleted > 0) {
+        log.info("Compacted journal: deleted {} segments before {}", deleted, oldestRetained);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private void snapshotAndCompact() {
+    try {
+      snapshot();
+      compact();
+    } catch (IOException | RuntimeException e) {
+      log.error("Payment snapshot failed", e);
+    }
+  }
+
+  private SnapshotHeader load(Path snapshot, BiConsumer<PostPaymentResponse, String> consumer)
+      throws IOException {
+    CRC32 crc = new CRC32();
+    try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), crc))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a payment snapshot");
+      }
+      JournalPosition position = new JournalPosition(in.readLong(), in.readInt());
+
+      PaymentRecordCodec.Record record = new PaymentRecordCodec.Record();
+      byte[] payload = new byte[256];
+      long records = 0;
+      for (int length = in.readInt(); length > 0; length = in.readInt()) {
+        if (length > MAX_RECORD_SIZE) {
+          throw new IOException("Corrupt snapshot record length: " + length);
+        }
+        if (length > payload.length) {
+          payload = new byte[length];
+        }
+        in.readFully(payload, 0, length);
+        PaymentRecordCodec.decode(ByteBuffer.wrap(payload, 0, length), record);
+        consumer.accept(record.payment, record.idempotencyKey);
+        records++;
+      }
+
+      long expectedRecords = in.readLong();
+      int expectedCrc = (int) crc.getValue();
+      if (expectedRecords != records || in.readInt() != expectedCrc) {
+        throw new IOException("Snapshot checksum mismatch");
+      }
+      return new SnapshotHeader(position, records);
+    }
+  }
+
+  private List<Path> listSnapshots() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+          })
+          .sorted(Comparator.comparing(PaymentSnapshotter::positionOf))
+          .toList();
+    }
+  }
+
+  private static JournalPosition positionOf(Path snapshot) {
+    String name = snapshot.getFileName().toString();
+    String[] parts = name.substring(SNAPSHOT_PREFIX.length(),
+        name.length() - SNAPSHOT_SUFFIX.length()).split("-");
+    return new JournalPosition(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+  }
+
+  @Value
+  private static class SnapshotHeader {
+
+    JournalPosition position;
+    long records;
+  }
+
+  private static final class RecordWriter implements BiConsumer<PostPaymentResponse, String> {
+
+    private final DataOutputStream out;
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+    private long records;
+
+    RecordWriter(DataOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void accept(PostPaymentResponse payment, String idempotencyKey) {
+      byte[] key = PaymentRecordCodec.keyBytes(idempotencyKey);
+      int size = PaymentRecordCodec.size(key);
+      if (size > buffer.capacity()) {
+        buffer = ByteBuffer.allocate(size);
+      }
+      buffer.clear();
+      PaymentRecordCodec.encode(buffer, payment, key);
+      try {
+        out.writeInt(size);
+        out.write(buffer.array(), 0, size);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      records++;
+    }
+  }
+}
\ No newline at end of file
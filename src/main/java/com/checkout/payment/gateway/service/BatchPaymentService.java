@@ -0,0 +1,180 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.exception.BankUnavailableException;
+import com.checkout.payment.gateway.exception.PaymentInProgressException;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.BatchPaymentItemResponse;
+import com.checkout.payment.gateway.model.response.PostBatchPaymentResponse;
+import com.checkout.payment.gateway.util.Futures;
+import com.checkout.payment.gateway.validation.PaymentRequestValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes a batch of payments as if each had been posted on its own, idempotency included,
+ * with at most {@code maxConcurrency} of them in progress at once. Every payment gets its own
+ * result, so one failing does not fail the batch, and one that breaks the request constraints is
+ * rejected on its own without holding back the others.
+ */
+@Service
+@Slf4j
+public class BatchPaymentService {
+
+  private static final String NULL_PAYMENT = "payment: must not be null";
+
+  private final PaymentGatewayService paymentGatewayService;
+  private final PaymentRequestValidator requestValidator;
+  private final int maxConcurrency;
+
+  public BatchPaymentService(
+      PaymentGatewayService paymentGatewayService,
+      PaymentRequestValidator requestValidator,
+      @Value("${payment.batch.max-concurrency:16}") int maxConcurrency) {
+    this.paymentGatewayService = paymentGatewayService;
+    this.requestValidator = requestValidator;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public CompletableFuture<PostBatchPaymentResponse> processBatch(
+      List<PostPaymentRequest> requests) {
+    Batch batch = new Batch(requests);
+    // Each payment that finishes starts the next one, so concurrency never exceeds the bound
+    for (int i = 0; i < Math.min(maxConcurrency, requests.size()); i++) {
+      startNext(batch);
+    }
+    return batch.done.thenApply(ignored -> batch.toResponse());
+  }
+
+  private void startNext(Batch batch) {
+    int index = batch.next.getAndIncrement();
+    if (index >= batch.requests.size()) {
+      return;
+    }
+    long started = System.nanoTime();
+    processItem(batch.requests.get(index)).thenAccept(item -> {
+      batch.durations[index] = System.nanoTime() - started;
+      batch.results[index] = item;
+      if (batch.remaining.decrementAndGet() == 0) {
+        batch.done.complete(null);
+      } else {
+        startNext(batch);
+      }
+    });
+  }
+
+  // One payment as a batch item, answered alike whichever bulk endpoint it came through
+  CompletableFuture<BatchPaymentItemResponse> processItem(PostPaymentRequest request) {
+    return process(request).handle((result, failure) -> failure == null
+        ? toItem(request, result)
+        : toItem(request, Futures.unwrap(failure)));
+  }
+
+  private CompletableFuture<PaymentResult> process(PostPaymentRequest request) {
+    if (request == null) { // A JSON null among the payments
+      return CompletableFuture.completedFuture(PaymentResult.rejected(List.of(NULL_PAYMENT)));
+    }
+    try {
+      // The request constraints, as @Valid checks them for a single payment
+      List<String> violations = requestValidator.validate(request);
+      if (!violations.isEmpty()) {
+        return CompletableFuture.completedFuture(
+            PaymentResult.rejected(violations.stream().sorted().toList()));
+      }
+      return paymentGatewayService.processPayment(request);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private static BatchPaymentItemResponse toItem(PostPaymentRequest request,
+      PaymentResult result) {
+    HttpStatus status = result.isRejected() ? HttpStatus.BAD_REQUEST
+        : result.isAuthorized() ? HttpStatus.CREATED
+        : HttpStatus.OK;
+    return BatchPaymentItemResponse.builder()
+        .idempotencyKey(request != null ? request.getIdempotencyKey() : null)
+        .statusCode(status.value())
+        .status(result.getStatus())
+        .payment(result.getResponse())
+        .errors(result.isRejected() ? result.getErrors() : null)
+        .build();
+  }
+
+  // Same status codes and messages the single payment endpoint answers with
+  private static BatchPaymentItemResponse toItem(PostPaymentRequest request,
+      Throwable failure) {
+    HttpStatus status;
+    String error;
+    if (failure instanceof BankUnavailableException) {
+      status = HttpStatus.BAD_GATEWAY;
+      error = "Payment processor unavailable. Please try again later.";
+    } else if (failure instanceof PaymentInProgressException) {
+      status = HttpStatus.CONFLICT;
+      error = "Payment is still being processed. Please retry later.";
+    } else {
+      log.error("Unexpected error in batch payment", failure);
+      status = HttpStatus.INTERNAL_SERVER_ERROR;
+      error = "An unexpected error occurred";
+    }
+    return BatchPaymentItemResponse.builder()
+        .idempotencyKey(request.getIdempotencyKey())
+        .statusCode(status.value())
+        .errors(List.of(error))
+        .build();
+  }
+
+  // Each slot is written by one payment's completion and read after all of them completed
+  private static final class Batch {
+
+    final List<PostPaymentRequest> requests;
+    final BatchPaymentItemResponse[] results;
+    final long[] durations;
+    final AtomicInteger next = new AtomicInteger();
+    final AtomicInteger remaining;
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    final long started = System.nanoTime();
+
+    Batch(List<PostPaymentRequest> requests) {
+      this.requests = requests;
+      this.results = new BatchPaymentItemResponse[requests.size()];
+      this.durations = new long[requests.size()];
+      this.remaining = new AtomicInteger(requests.size());
+      if (requests.isEmpty()) {
+        done.complete(null);
+      }
+    }
+
+    PostBatchPaymentResponse toResponse() {
+      PostBatchPaymentResponse.Summary summary = PostBatchPaymentResponse.Summary.builder()
+          .total(results.length)
+          .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+          .slowestPaymentMs(TimeUnit.NANOSECONDS.toMillis(
+              Arrays.stream(durations).max().orElse(0)))
+          .build();
+      for (BatchPaymentItemResponse item : results) {
+        if (item.getStatus() == null) {
+          summary.setFailed(summary.getFailed() + 1);
+        } else {
+          switch (item.getStatus()) {
+            case AUTHORIZED -> summary.setAuthorized(summary.getAuthorized() + 1);
+            case DECLINED -> summary.setDeclined(summary.getDeclined() + 1);
+            case REJECTED -> summary.setRejected(summary.getRejected() + 1);
+          }
+        }
+      }
+      return PostBatchPaymentResponse.builder()
+          .results(Arrays.asList(results))
+          .summary(summary)
+          .build();
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.exception.PaymentInProgressException;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.util.Futures;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-flight table for idempotency keys that are currently being processed.
+ * The first caller for a key owns the bank call, later callers share its result.
+ */
+@Component
+@Slf4j
+public class InFlightPayments {
+
+  private final ConcurrentHashMap<String, Reservation> inFlight = new ConcurrentHashMap<>();
+  private final int maxEntries;
+  private final long ownerTimeoutNanos;
+  private final long waitTimeoutMs;
+
+  public InFlightPayments(
+      @Value("${payment.idempotency.in-flight.max-entries:10000}") int maxEntries,
+      @Value("${payment.idempotency.in-flight.owner-timeout-ms:30000}") long ownerTimeoutMs,
+      @Value("${payment.idempotency.in-flight.wait-timeout-ms:15000}") long waitTimeoutMs) {
+    this.maxEntries = maxEntries;
+    this.ownerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ownerTimeoutMs);
+    this.waitTimeoutMs = waitTimeoutMs;
+  }
+
+  public Reservation reserve(String idempotencyKey) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return Reservation.untracked();
+    }
+
+    while (true) {
+      long now = System.nanoTime();
+      Reservation existing = inFlight.get(idempotencyKey);
+
+      if (existing == null) {
+        // Bounded table: when full, fall back to an uncoalesced call rather than failing
+        if (inFlight.size() >= maxEntries && evictAbandoned(now) == 0) {
+          log.warn("In-flight table full ({} entries), not coalescing key: {}",
+              maxEntries, idempotencyKey);
+          return Reservation.untracked();
+        }
+        Reservation owner = Reservation.owner(now);
+        if (inFlight.putIfAbsent(idempotencyKey, owner) == null) {
+          return owner;
+        }
+        continue;
+      }
+
+      if (existing.isAbandoned(now, ownerTimeoutNanos)) {
+        Reservation owner = Reservation.owner(now);
+        if (inFlight.replace(idempotencyKey, existing, owner)) {
+          log.warn("Taking over abandoned in-flight payment for key: {}", idempotencyKey);
+          existing.fail(new PaymentInProgressException(idempotencyKey));
+          return owner;
+        }
+        continue;
+      }
+
+      log.info("Joining in-flight payment for idempotency key: {}", idempotencyKey);
+      return existing.follower();
+    }
+  }
+
+  // Completes with the owner's result; a follower never holds a thread while it waits
+  public CompletableFuture<PaymentResult> await(Reservation reservation, String idempotencyKey) {
+    return reservation.future.copy()
+        .orTimeout(waitTimeoutMs, TimeUnit.MILLISECONDS)
+        .exceptionally(failure -> {
+          Throwable cause = Futures.unwrap(failure);
+          if (cause instanceof TimeoutException) {
+            throw new PaymentInProgressException(idempotencyKey);
+          }
+          if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+          }
+          throw new IllegalStateException(cause);
+        });
+  }
+
+  public void release(String idempotencyKey, Reservation reservation) {
+    if (reservation.isOwner() && reservation.isTracked()) {
+      inFlight.remove(idempotencyKey, reservation);
+    }
+  }
+
+  public int size() {
+    return inFlight.size();
+  }
+
+  private int evictAbandoned(long now) {
+    int evicted = 0;
+    for (var entry : inFlight.entrySet()) {
+      Reservation reservation = entry.getValue();
+      if (reservation.isAbandoned(now, ownerTimeoutNanos)
+          && inFlight.remove(entry.getKey(), reservation)) {
+        reservation.fail(new PaymentInProgressException(entry.getKey()));
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  public static final class Reservation {
+
+    private final CompletableFuture<PaymentResult> future;
+    private final long createdAtNanos;
+    private final boolean owner;
+    private final boolean tracked;
+
+    private Reservation(CompletableFuture<PaymentResult> future, long createdAtNanos,
+        boolean owner, boolean tracked) {
+      this.future = future;
+      this.createdAtNanos = createdAtNanos;
+      this.owner = owner;
+      this.tracked = tracked;
+    }
+
+    static Reservation owner(long now) {
+      return new Reservation(new CompletableFuture<>(), now, true, true);
+    }
+
+    static Reservation untracked() {
+      return new Reservation(new CompletableFuture<>(), System.nanoTime(), true, false);
+    }
+
+    Reservation follower() {
+      return new Reservation(future, createdAtNanos, false, true);
+    }
+
+    public boolean isOwner() {
+      return owner;
+    }
+
+    boolean isTracked() {
+      return tracked;
+    }
+
+    public void complete(PaymentResult result) {
+      future.complete(result);
+    }
+
+    public void fail(Throwable e) {
+      future.completeExceptionally(e);
+    }
+
+    boolean isAbandoned(long now, long timeoutNanos) {
+      return !future.isDone() && now - createdAtNanos > timeoutNanos;
+    }
+  }
+}
\ No newline at end of file
@@ -4,21 +4,29 @@ import com.checkout.payment.gateway.client.BankClient;
 import com.checkout.payment.gateway.client.BankRequest;
 import com.checkout.payment.gateway.client.BankResponse;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.BankUnavailableException;
 import com.checkout.payment.gateway.exception.PaymentNotFoundException;
+import com.checkout.payment.gateway.logging.PaymentLog;
+import com.checkout.payment.gateway.metrics.PaymentOutcome;
+import com.checkout.payment.gateway.metrics.PaymentStage;
+import com.checkout.payment.gateway.metrics.PaymentStageMetrics;
+import com.checkout.payment.gateway.metrics.PaymentTimings;
 import com.checkout.payment.gateway.model.PaymentResult;
-import com.checkout.payment.gateway.model.domain.Card;
-import com.checkout.payment.gateway.model.domain.Money;
 import com.checkout.payment.gateway.model.request.PostPaymentRequest;
-import com.checkout.payment.gateway.model.response.GetPaymentResponse;
+import com.checkout.payment.gateway.model.response.PaymentJson;
 import com.checkout.payment.gateway.model.response.PostPaymentResponse;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.util.Futures;
 import com.checkout.payment.gateway.validation.PaymentValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -28,41 +36,99 @@ public class PaymentGatewayService {
   private final PaymentsRepository paymentsRepository;
   private final BankClient bankClient;
   private final PaymentValidator paymentValidator;
+  private final InFlightPayments inFlightPayments;
+  private final PaymentAggregates paymentAggregates;
+  private final PaymentStageMetrics stageMetrics;
+  private final PaymentIdGenerator paymentIdGenerator;
+  private final PaymentLog paymentLog;
+
+  // Completes once the bank has answered; no thread is held while the bank call is outstanding
+  public CompletableFuture<PaymentResult> processPayment(PostPaymentRequest request) {
+    return processPayment(request, new PaymentTimings());
+  }
+
+  // Timings started earlier, e.g. while the request body was read, carry on through the stages
+  public CompletableFuture<PaymentResult> processPayment(PostPaymentRequest request,
+      PaymentTimings timings) {
+    CompletableFuture<PaymentResult> result;
+    try {
+      result = process(request, timings);
+    } catch (RuntimeException e) {
+      result = CompletableFuture.failedFuture(e);
+    }
+    return result.whenComplete((paymentResult, failure) -> {
+      PaymentOutcome outcome = outcome(timings, paymentResult, failure);
+      stageMetrics.record(timings, outcome);
+      paymentLog.record(request, timings, outcome, paymentResult, failure);
+    });
+  }
 
-  public PaymentResult processPayment(PostPaymentRequest request) {
+  private CompletableFuture<PaymentResult> process(PostPaymentRequest request,
+      PaymentTimings timings) {
     // Check idempotency first
+    long started = System.nanoTime();
     var existing = paymentsRepository.getByIdempotencyKey(request.getIdempotencyKey());
+    timings.record(PaymentStage.IDEMPOTENCY_LOOKUP, started);
     if (existing.isPresent()) {
-      log.info("Returning cached response for idempotency key: {}", request.getIdempotencyKey());
-      return PaymentResult.fromExisting(existing.get());
+      log.debug("Returning cached response for idempotency key: {}", request.getIdempotencyKey());
+      return CompletableFuture.completedFuture(PaymentResult.fromExisting(existing.get()));
     }
 
     // Validation
+    started = System.nanoTime();
     List<String> errors = paymentValidator.validate(request);
+    timings.record(PaymentStage.VALIDATION, started);
     if (!errors.isEmpty()) {
-      log.warn("Payment rejected: {}", errors);
-      return PaymentResult.rejected(errors);
+      log.debug("Payment rejected: {}", errors);
+      paymentAggregates.record(PaymentStatus.REJECTED, request.getCurrency(),
+          request.getAmount() != null ? request.getAmount() : 0);
+      return CompletableFuture.completedFuture(PaymentResult.rejected(errors));
     }
 
-    // Build domain objects, TODO: Eliminate repeat creation of domain objects
-    Card card = Card.builder()
-        .number(request.getCardNumber())
-        .expiryMonth(request.getExpiryMonth())
-        .expiryYear(request.getExpiryYear())
-        .cvv(request.getCvv())
-        .build();
+    // Single-flight: concurrent retries with the same key share one bank call
+    String idempotencyKey = request.getIdempotencyKey();
+    InFlightPayments.Reservation reservation = inFlightPayments.reserve(idempotencyKey);
+    if (!reservation.isOwner()) {
+      return inFlightPayments.await(reservation, idempotencyKey);
+    }
 
-    Money money = Money.builder()
-        .amount(request.getAmount())
-        .currency(request.getCurrency())
-        .build();
+    CompletableFuture<PaymentResult> result;
+    try {
+      // A previous owner may have stored the payment between our lookup and the reservation
+      result = paymentsRepository.getByIdempotencyKey(idempotencyKey)
+          .map(stored -> CompletableFuture.completedFuture(PaymentResult.fromExisting(stored)))
+          .orElseGet(() -> authorize(request, timings));
+    } catch (RuntimeException e) {
+      result = CompletableFuture.failedFuture(e);
+    }
+
+    return result.whenComplete((paymentResult, failure) -> {
+      if (failure != null) {
+        reservation.fail(Futures.unwrap(failure));
+      } else {
+        reservation.complete(paymentResult);
+      }
+      inFlightPayments.release(idempotencyKey, reservation);
+    });
+  }
+
+  private CompletableFuture<PaymentResult> authorize(PostPaymentRequest request,
+      PaymentTimings timings) {
+    // Nothing is sent to the bank for a payment that could not be recorded
+    paymentsRepository.checkWritable(request.getIdempotencyKey());
 
     // Call bank
-    BankRequest bankRequest = BankRequest.from(card, money);
-    BankResponse bankResponse = bankClient.processPayment(bankRequest);
+    BankRequest bankRequest = BankRequest.from(request);
+    long started = System.nanoTime();
+    return bankClient.processPaymentAsync(bankRequest)
+        .whenComplete((bankResponse, failure) -> timings.record(PaymentStage.BANK, started))
+        .thenCompose(bankResponse -> record(request, bankResponse, timings));
+  }
 
+  private CompletableFuture<PaymentResult> record(PostPaymentRequest request,
+      BankResponse bankResponse, PaymentTimings timings) {
     // Response
-    UUID paymentId = UUID.randomUUID(); // TODO: Not taking care of UUID collisions
+    UUID paymentId = paymentIdGenerator.next();
     PaymentStatus status = bankResponse.isAuthorized()
         ? PaymentStatus.AUTHORIZED
         : PaymentStatus.DECLINED;
@@ -70,37 +136,59 @@ public class PaymentGatewayService {
     PostPaymentResponse response = PostPaymentResponse.builder()
         .id(paymentId)
         .status(status)
-        .cardNumberLastFour(card.getLastFourDigits())
-        .expiryMonth(card.getExpiryMonth())
-        .expiryYear(card.getExpiryYear())
-        .currency(money.getCurrency())
-        .amount(money.getAmount())
+        .cardNumberLastFour(lastFourDigits(request.getCardNumber()))
+        .expiryMonth(request.getExpiryMonth())
+        .expiryYear(request.getExpiryYear())
+        .currency(request.getCurrency())
+        .amount(request.getAmount())
+        .createdAt(Instant.now().truncatedTo(ChronoUnit.MILLIS)) // Stored with ms precision
         .build();
 
-    // Store payment with idempotency key (atomic operation)
-    paymentsRepository.addWithIdempotencyKey(response, request.getIdempotencyKey());
+    // Store payment with idempotency key (atomic operation), first writer for a key wins.
+    // Answered once the journal has it, no thread waits for the group commit meanwhile
+    long started = System.nanoTime();
+    return paymentsRepository.addWithIdempotencyKeyAsync(response, request.getIdempotencyKey())
+        .whenComplete((stored, failure) -> timings.record(PaymentStage.STORE, started))
+        .thenApply(stored -> {
+          if (stored.isPresent()) {
+            return PaymentResult.fromExisting(stored.get());
+          }
+
+          log.debug("Payment processed: id={}, status={}", paymentId, status.getName());
+          paymentAggregates.record(status, request.getCurrency(), request.getAmount());
+
+          return bankResponse.isAuthorized()
+              ? PaymentResult.authorized(response)
+              : PaymentResult.declined(response);
+        });
+  }
 
-    log.info("Payment processed: id={}, status={}", paymentId, status.getName());
+  private static String lastFourDigits(String cardNumber) {
+    return cardNumber.substring(cardNumber.length() - 4);
+  }
 
-    return bankResponse.isAuthorized()
-        ? PaymentResult.authorized(response)
-        : PaymentResult.declined(response);
+  // A payment that never reached the bank itself was answered from another one
+  private static PaymentOutcome outcome(PaymentTimings timings, PaymentResult result,
+      Throwable failure) {
+    if (failure != null) {
+      return Futures.unwrap(failure) instanceof BankUnavailableException
+          ? PaymentOutcome.BANK_UNAVAILABLE
+          : PaymentOutcome.FAILED;
+    }
+    if (result.isRejected()) {
+      return PaymentOutcome.REJECTED;
+    }
+    return timings.reached(PaymentStage.BANK)
+        ? PaymentOutcome.of(result.getStatus())
+        : PaymentOutcome.REPLAYED;
   }
 
-  public GetPaymentResponse getPaymentById(UUID id) {
+  // The stored encoding, a GET answers with the same document a replay of the payment gets
+  public PaymentJson getPaymentById(UUID id) {
     log.debug("Retrieving payment: {}", id);
 
-    PostPaymentResponse payment = paymentsRepository.get(id)
+    return paymentsRepository.get(id)
+        .map(PostPaymentResponse::toJson)
         .orElseThrow(() -> new PaymentNotFoundException(id));
-
-    return GetPaymentResponse.builder()
-        .id(payment.getId())
-        .status(payment.getStatus())
-        .cardNumberLastFour(payment.getCardNumberLastFour())
-        .expiryMonth(payment.getExpiryMonth())
-        .expiryYear(payment.getExpiryYear())
-        .currency(payment.getCurrency())
-        .amount(payment.getAmount())
-        .build();
   }
 }
\ No newline at end of file
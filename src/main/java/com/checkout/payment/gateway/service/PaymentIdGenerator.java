@@ -0,0 +1,13 @@
+package com.checkout.payment.gateway.service;
+
+import java.util.UUID;
+
+/**
+ * Source of payment ids, chosen by {@code payment.id.generator}. Implementations must be
+ * thread-safe.
+ */
+@FunctionalInterface
+public interface PaymentIdGenerator {
+
+  UUID next();
+}
\ No newline at end of file
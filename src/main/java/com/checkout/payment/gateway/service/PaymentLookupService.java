@@ -0,0 +1,87 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Multi-get of payments by ID for reconciliation, answered as
+ * {@code {"payments": [...], "missing": [...]}}.
+ *
+ * <p>Found payments are written straight to the output as the repository hands them over, as
+ * the bytes each one was encoded to when stored ({@link
+ * com.checkout.payment.gateway.model.response.PaymentJson}), so none of them is serialized or
+ * buffered, and an unknown ID costs a list entry rather than a
+ * {@link com.checkout.payment.gateway.exception.PaymentNotFoundException}. Duplicate IDs are
+ * looked up once; payments keep the order of the request.
+ */
+@Service
+@Slf4j
+public class PaymentLookupService {
+
+  private static final byte[] PAYMENTS_START = bytes("{\"payments\":[");
+  private static final byte[] MISSING_START = bytes("],\"missing\":[");
+  private static final byte[] END = bytes("]}");
+  private static final int BUFFER_SIZE = 8192;
+
+  private final PaymentsRepository paymentsRepository;
+
+  public PaymentLookupService(PaymentsRepository paymentsRepository) {
+    this.paymentsRepository = paymentsRepository;
+  }
+
+  // Returns the number of payments found
+  public int lookup(Collection<UUID> ids, OutputStream output) throws IOException {
+    List<UUID> missing = new ArrayList<>();
+    int[] found = new int[1];
+    // Left to the buffer, rather than a write to the client for every payment
+    BufferedOutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+    buffered.write(PAYMENTS_START);
+    try {
+      paymentsRepository.getAll(new LinkedHashSet<>(ids), payment -> {
+        try {
+          if (found[0] > 0) {
+            buffered.write(',');
+          }
+          buffered.write(payment.toJson().getBody());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        found[0]++;
+      }, missing::add);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    buffered.write(MISSING_START);
+    for (int i = 0; i < missing.size(); i++) {
+      if (i > 0) {
+        buffered.write(',');
+      }
+      // A UUID's text needs no escaping
+      buffered.write('"');
+      buffered.write(bytes(missing.get(i).toString()));
+      buffered.write('"');
+    }
+    buffered.write(END);
+    buffered.flush();
+
+    log.info("Looked up {} payments: {} found, {} missing", ids.size(), found[0], missing.size());
+    return found[0];
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+}
\ No newline at end of file
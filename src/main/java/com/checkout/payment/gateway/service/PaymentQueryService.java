@@ -0,0 +1,125 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.InvalidPaymentQueryException;
+import com.checkout.payment.gateway.model.request.PaymentQueryRequest;
+import com.checkout.payment.gateway.model.response.GetPaymentResponse;
+import com.checkout.payment.gateway.model.response.PaymentQueryResponse;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentQuery;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Filtered, paginated reads over stored payments for support and dashboards.
+ *
+ * <p>Pages are newest first. The cursor is an opaque token for the position of the last
+ * payment returned, so a page is never shifted by payments stored or expired in the meantime.
+ * The filters are not part of the cursor and must be sent again with it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentQueryService {
+
+  public static final int DEFAULT_LIMIT = 50;
+  public static final int MAX_LIMIT = 500;
+
+  private final PaymentsRepository paymentsRepository;
+
+  public PaymentQueryResponse query(PaymentQueryRequest request) {
+    List<String> errors = new ArrayList<>();
+    int limit = request.getLimit() != null ? request.getLimit() : DEFAULT_LIMIT;
+    if (limit < 1 || limit > MAX_LIMIT) {
+      errors.add("limit: must be between 1 and " + MAX_LIMIT);
+    }
+    if (request.getCardLastFour() != null && !request.getCardLastFour().matches("\\d{4}")) {
+      errors.add("card_last_four: must be 4 digits");
+    }
+    PaymentQuery.PaymentQueryBuilder query = PaymentQuery.builder()
+        .status(parseStatus(request.getStatus(), errors))
+        .currency(request.getCurrency())
+        .cardLastFour(request.getCardLastFour())
+        .from(parseInstant("from", request.getFrom(), errors))
+        .to(parseInstant("to", request.getTo(), errors))
+        .limit(limit + 1); // One more tells whether there is a next page
+    if (request.getCursor() != null) {
+      readCursor(request.getCursor(), query, errors);
+    }
+    if (!errors.isEmpty()) {
+      throw new InvalidPaymentQueryException(errors);
+    }
+
+    List<PostPaymentResponse> page = paymentsRepository.query(query.build());
+    boolean hasNext = page.size() > limit;
+    if (hasNext) {
+      page = page.subList(0, limit);
+    }
+    log.info("Payment query returned {} payments, more: {}", page.size(), hasNext);
+
+    return PaymentQueryResponse.builder()
+        .payments(page.stream().map(GetPaymentResponse::from).toList())
+        .nextCursor(hasNext ? cursor(page.get(page.size() - 1)) : null)
+        .build();
+  }
+
+  static String cursor(PostPaymentResponse payment) {
+    // The index files a payment without a creation time at the epoch
+    Instant createdAt = Objects.requireNonNullElse(payment.getCreatedAt(), Instant.EPOCH);
+    String position = createdAt + "," + payment.getId();
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void readCursor(String cursor, PaymentQuery.PaymentQueryBuilder query,
+      List<String> errors) {
+    try {
+      String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = position.indexOf(',');
+      query.afterCreatedAt(Instant.parse(position.substring(0, separator)))
+          .afterId(UUID.fromString(position.substring(separator + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+      errors.add("cursor: not a cursor returned by this API");
+    }
+  }
+
+  // By name, in any case: Declined, DECLINED and declined are the same
+  private static PaymentStatus parseStatus(String status, List<String> errors) {
+    if (status == null) {
+      return null;
+    }
+    for (PaymentStatus candidate : PaymentStatus.values()) {
+      if (candidate.getName().equalsIgnoreCase(status)) {
+        return candidate;
+      }
+    }
+    errors.add("status: must be one of " + Arrays.stream(PaymentStatus.values())
+        .map(PaymentStatus::getName)
+        .toList());
+    return null;
+  }
+
+  private static Instant parseInstant(String field, String value, List<String> errors) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Instant.parse(value);
+    } catch (DateTimeParseException e) {
+      errors.add(field + ": must be an ISO-8601 instant, e.g. 2024-01-01T00:00:00Z");
+      return null;
+    }
+  }
+}
\ No newline at end of file
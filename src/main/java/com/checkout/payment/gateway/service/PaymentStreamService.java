@@ -0,0 +1,104 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.BatchPaymentItemResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bulk ingestion of newline-delimited JSON payments, answered with one NDJSON result line per
+ * payment in input order.
+ *
+ * <p>Records are parsed one at a time and started as soon as they are read, with at most
+ * {@code window} of them in progress. After each record the results already available at the
+ * head are written; once the window is full the oldest result is awaited before the next record
+ * is read, so the input is consumed no faster than the bank answers and memory stays constant
+ * whatever the size of the stream. Each payment is answered as {@link BatchPaymentService}
+ * answers it, idempotency included.
+ */
+@Service
+@Slf4j
+public class PaymentStreamService {
+
+  private final BatchPaymentService batchPaymentService;
+  private final ObjectMapper objectMapper;
+  private final int window;
+
+  public PaymentStreamService(
+      BatchPaymentService batchPaymentService,
+      ObjectMapper objectMapper,
+      @Value("${payment.stream.window:64}") int window) {
+    this.batchPaymentService = batchPaymentService;
+    this.objectMapper = objectMapper;
+    this.window = window;
+  }
+
+  // Returns the number of records read; a malformed record ends the stream with an error line
+  public long processStream(InputStream input, OutputStream output) throws IOException {
+    Deque<CompletableFuture<BatchPaymentItemResponse>> inProgress = new ArrayDeque<>(window);
+    long records = 0;
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .setRootValueSeparator(null)) { // Lines are separated by write()
+      ObjectReader reader = objectMapper.readerFor(PostPaymentRequest.class);
+      try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+        while (parser.nextToken() != null) {
+          // A JSON null is answered as a rejected record, not as the end of the stream
+          PostPaymentRequest request = parser.currentToken() == JsonToken.VALUE_NULL
+              ? null
+              : reader.readValue(parser);
+          records++;
+          inProgress.add(batchPaymentService.processItem(request));
+          // Oldest first: awaited once the window is full, otherwise only if already answered
+          while (!inProgress.isEmpty()
+              && (inProgress.size() >= window || inProgress.peek().isDone())) {
+            write(generator, inProgress.poll().join());
+          }
+        }
+      } catch (JsonProcessingException e) {
+        // The parser cannot resynchronise reliably, answer for what was read and stop there
+        drain(generator, inProgress);
+        log.warn("Malformed payment record after {} records: {}", records, e.getOriginalMessage());
+        write(generator, BatchPaymentItemResponse.builder()
+            .statusCode(HttpStatus.BAD_REQUEST.value())
+            .errors(List.of("Malformed record after " + records + " records: "
+                + e.getOriginalMessage()))
+            .build());
+        return records;
+      }
+      drain(generator, inProgress);
+    }
+    log.info("Processed stream of {} payments", records);
+    return records;
+  }
+
+  private void drain(JsonGenerator generator,
+      Deque<CompletableFuture<BatchPaymentItemResponse>> inProgress) throws IOException {
+    while (!inProgress.isEmpty()) {
+      write(generator, inProgress.poll().join());
+    }
+  }
+
+  // Flushed per line so the client sees results while the rest is still being processed
+  private void write(JsonGenerator generator, BatchPaymentItemResponse item) throws IOException {
+    objectMapper.writeValue(generator, item);
+    generator.writeRaw('\n');
+    generator.flush();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.checkout.payment.gateway.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Version 7 UUIDs (RFC 9562): 48 bits of Unix milliseconds, then the fraction of the
+ * millisecond in the 12 bits the RFC leaves to sub-millisecond precision, so ids sort by
+ * creation time, as {@link UUID#compareTo} orders them, to within clock adjustments.
+ *
+ * <p>The 62 bits after the variant hold a node number and 52 random bits. Ids from instances
+ * given different nodes never collide; instances left on the same node, such as the default
+ * 0, are only as safe as one instance. Two ids from one node only collide if they are created
+ * in the same 244 ns and draw the same random bits.
+ *
+ * <p>The random bits are unpredictable, an id is not guessable from others. They come from
+ * DRBG instances striped by thread and drawn from a buffer, instead of the single
+ * {@link SecureRandom} shared by every {@link UUID#randomUUID} caller.
+ */
+public class TimeOrderedPaymentIdGenerator implements PaymentIdGenerator {
+
+  public static final int MAX_NODE = (1 << 10) - 1;
+
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final int NODE_SHIFT = 52;
+  private static final long RANDOM_MASK = (1L << NODE_SHIFT) - 1;
+  private static final int BUFFER_BYTES = 512;
+  private static final VarHandle LONG =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  private final Clock clock;
+  private final long node;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+
+  public TimeOrderedPaymentIdGenerator(Clock clock, int node) {
+    if (node < 0 || node > MAX_NODE) {
+      throw new IllegalArgumentException("Payment id node must be between 0 and " + MAX_NODE);
+    }
+    this.clock = clock;
+    this.node = (long) node << NODE_SHIFT;
+    // A few stripes per core keeps two threads drawing from one stripe at once unlikely
+    int cores = Runtime.getRuntime().availableProcessors();
+    int stripeCount = Integer.highestOneBit(cores * 4 - 1) << 1;
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe();
+    }
+    this.stripeMask = stripeCount - 1;
+  }
+
+  @Override
+  public UUID next() {
+    Instant now = clock.instant();
+    long subMillis = (now.getNano() % 1_000_000) * 4096L / 1_000_000;
+    long mostSignificant = now.toEpochMilli() << 16 | VERSION | subMillis;
+    long leastSignificant = VARIANT | node | stripe().nextLong() & RANDOM_MASK;
+    return new UUID(mostSignificant, leastSignificant);
+  }
+
+  private Stripe stripe() {
+    return stripes[(int) Thread.currentThread().threadId() & stripeMask];
+  }
+
+  // A DRBG's output drawn down a long at a time, the lock is held for a few nanoseconds
+  // except while the buffer is refilled, once every 64 ids
+  private static final class Stripe {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SecureRandom random;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int position = BUFFER_BYTES;
+
+    Stripe() {
+      try {
+        random = SecureRandom.getInstance("DRBG");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("DRBG is not available", e);
+      }
+    }
+
+    long nextLong() {
+      lock.lock();
+      try {
+        if (position == buffer.length) {
+          random.nextBytes(buffer);
+          position = 0;
+        }
+        long value = (long) LONG.get(buffer, position);
+        position += Long.BYTES;
+        return value;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
\ No newline at end of file
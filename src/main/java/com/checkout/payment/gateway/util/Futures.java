@@ -0,0 +1,33 @@
+package com.checkout.payment.gateway.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for {@link CompletableFuture} pipelines, which wrap failures of dependent stages in
+ * a {@link CompletionException}.
+ */
+public final class Futures {
+
+  private Futures() {
+  }
+
+  // The exception a stage actually failed with
+  public static Throwable unwrap(Throwable failure) {
+    return failure instanceof CompletionException && failure.getCause() != null
+        ? failure.getCause()
+        : failure;
+  }
+
+  // Blocks for the result, rethrowing the original RuntimeException rather than its wrapper
+  public static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (unwrap(e) instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
\ No newline at end of file
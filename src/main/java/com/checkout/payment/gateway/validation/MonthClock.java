@@ -0,0 +1,52 @@
+package com.checkout.payment.gateway.validation;
+
+import lombok.Value;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+/**
+ * The current month as months since year 0 (year * 12 + month - 1), so card expiries compare
+ * as ints. Worked out from the clock once per month, not on every call.
+ */
+class MonthClock {
+
+  private final Clock clock;
+  private volatile Month cached;
+
+  MonthClock(Clock clock) {
+    this.clock = clock;
+  }
+
+  int currentMonth() {
+    long now = clock.millis();
+    Month month = cached;
+    if (month == null || now < month.getStartsAt() || now >= month.getEndsAt()) {
+      month = monthOf(now);
+      cached = month;
+    }
+    return month.getIndex();
+  }
+
+  static int index(int year, int month) {
+    return year * 12 + month - 1;
+  }
+
+  private Month monthOf(long millis) {
+    ZoneId zone = clock.getZone();
+    YearMonth month = YearMonth.from(Instant.ofEpochMilli(millis).atZone(zone));
+    return new Month(index(month.getYear(), month.getMonthValue()),
+        month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli(),
+        month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli());
+  }
+
+  @Value
+  private static class Month {
+
+    int index;
+    long startsAt; // inclusive, epoch millis
+    long endsAt;   // exclusive
+  }
+}
\ No newline at end of file
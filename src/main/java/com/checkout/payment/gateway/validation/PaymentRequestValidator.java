@@ -0,0 +1,204 @@
+package com.checkout.payment.gateway.validation;
+
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bean constraints of {@link PostPaymentRequest}, checked in one pass over its fields with
+ * plain character tests instead of reflective bean validation and regular expressions. Reports
+ * the same field errors with the same messages, and allocates nothing for a valid request.
+ *
+ * <p>The annotations stay on the request as its contract; the test checks both agree. Batch and
+ * stream payments are checked here one by one, so a bad payment is rejected on its own.
+ */
+@Component
+public class PaymentRequestValidator implements Validator {
+
+  // In the order the request declares them; a failed check sets the bit of its ordinal
+  private enum Constraint {
+    IDEMPOTENCY_KEY_REQUIRED("idempotencyKey", "NotBlank", "Idempotency key is required"),
+    IDEMPOTENCY_KEY_FORMAT("idempotencyKey", "Pattern",
+        "Idempotency key must be 8-64 alphanumeric characters, hyphens, or underscores"),
+    CARD_NUMBER_REQUIRED("cardNumber", "NotNull", "Card number is required"),
+    CARD_NUMBER_FORMAT("cardNumber", "Pattern", "Card number must be 14-19 digits"),
+    EXPIRY_MONTH_REQUIRED("expiryMonth", "NotNull", "Expiry month is required"),
+    EXPIRY_MONTH_MIN("expiryMonth", "Min", "Expiry month must be between 1 and 12"),
+    EXPIRY_MONTH_MAX("expiryMonth", "Max", "Expiry month must be between 1 and 12"),
+    EXPIRY_YEAR_REQUIRED("expiryYear", "NotNull", "Expiry year is required"),
+    EXPIRY_YEAR_MIN("expiryYear", "Min", "Expiry year must be valid"),
+    CURRENCY_REQUIRED("currency", "NotNull", "Currency is required"),
+    CURRENCY_FORMAT("currency", "Pattern",
+        "Currency must be a 3-letter ISO code (e.g., USD, GBP, EUR)"),
+    AMOUNT_REQUIRED("amount", "NotNull", "Amount is required"),
+    AMOUNT_POSITIVE("amount", "Positive", "Amount must be greater than 0"),
+    CVV_REQUIRED("cvv", "NotNull", "CVV is required"),
+    CVV_FORMAT("cvv", "Pattern", "CVV must be 3 or 4 digits");
+
+    final String field;
+    final String code;
+    final String message;
+    final int bit = 1 << ordinal();
+
+    Constraint(String field, String code, String message) {
+      this.field = field;
+      this.code = code;
+      this.message = message;
+    }
+  }
+
+  private static final Constraint[] CONSTRAINTS = Constraint.values();
+
+  // "field: message" per failed constraint, as the bean validation error handlers format them
+  public List<String> validate(PostPaymentRequest request) {
+    int failed = check(request);
+    if (failed == 0) {
+      return List.of();
+    }
+    List<String> errors = new ArrayList<>(Integer.bitCount(failed));
+    for (Constraint constraint : CONSTRAINTS) {
+      if ((failed & constraint.bit) != 0) {
+        errors.add(constraint.field + ": " + constraint.message);
+      }
+    }
+    return errors;
+  }
+
+  @Override
+  public boolean supports(Class<?> clazz) {
+    return PostPaymentRequest.class.isAssignableFrom(clazz);
+  }
+
+  // Used by @Valid on the payment endpoint, see PaymentGatewayController
+  @Override
+  public void validate(Object target, Errors errors) {
+    int failed = check((PostPaymentRequest) target);
+    if (failed == 0) {
+      return;
+    }
+    for (Constraint constraint : CONSTRAINTS) {
+      if ((failed & constraint.bit) != 0) {
+        errors.rejectValue(constraint.field, constraint.code, constraint.message);
+      }
+    }
+  }
+
+  // Bits of the failed constraints, 0 for a valid request
+  static int check(PostPaymentRequest request) {
+    int failed = 0;
+
+    String idempotencyKey = request.getIdempotencyKey();
+    if (isBlank(idempotencyKey)) {
+      failed |= Constraint.IDEMPOTENCY_KEY_REQUIRED.bit;
+    }
+    if (idempotencyKey != null && !isIdempotencyKey(idempotencyKey)) {
+      failed |= Constraint.IDEMPOTENCY_KEY_FORMAT.bit;
+    }
+
+    String cardNumber = request.getCardNumber();
+    if (cardNumber == null) {
+      failed |= Constraint.CARD_NUMBER_REQUIRED.bit;
+    } else if (!isDigits(cardNumber, 14, 19)) {
+      failed |= Constraint.CARD_NUMBER_FORMAT.bit;
+    }
+
+    Integer expiryMonth = request.getExpiryMonth();
+    if (expiryMonth == null) {
+      failed |= Constraint.EXPIRY_MONTH_REQUIRED.bit;
+    } else if (expiryMonth < 1) {
+      failed |= Constraint.EXPIRY_MONTH_MIN.bit;
+    } else if (expiryMonth > 12) {
+      failed |= Constraint.EXPIRY_MONTH_MAX.bit;
+    }
+
+    Integer expiryYear = request.getExpiryYear();
+    if (expiryYear == null) {
+      failed |= Constraint.EXPIRY_YEAR_REQUIRED.bit;
+    } else if (expiryYear < 2000) {
+      failed |= Constraint.EXPIRY_YEAR_MIN.bit;
+    }
+
+    String currency = request.getCurrency();
+    if (currency == null) {
+      failed |= Constraint.CURRENCY_REQUIRED.bit;
+    } else if (!isCurrencyCode(currency)) {
+      failed |= Constraint.CURRENCY_FORMAT.bit;
+    }
+
+    Integer amount = request.getAmount();
+    if (amount == null) {
+      failed |= Constraint.AMOUNT_REQUIRED.bit;
+    } else if (amount <= 0) {
+      failed |= Constraint.AMOUNT_POSITIVE.bit;
+    }
+
+    String cvv = request.getCvv();
+    if (cvv == null) {
+      failed |= Constraint.CVV_REQUIRED.bit;
+    } else if (!isDigits(cvv, 3, 4)) {
+      failed |= Constraint.CVV_FORMAT.bit;
+    }
+
+    return failed;
+  }
+
+  // @NotBlank: null, or nothing but whitespace and control characters, as String.trim sees them
+  private static boolean isBlank(String value) {
+    if (value == null) {
+      return true;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // ^[a-zA-Z0-9\-_]{8,64}$
+  private static boolean isIdempotencyKey(String value) {
+    if (value.length() < 8 || value.length() > 64) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+          || c == '-' || c == '_')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // ^\d{min,max}$, where \d is ASCII digits only
+  private static boolean isDigits(String value, int min, int max) {
+    if (value.length() < min || value.length() > max) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // ^[A-Z]{3}$
+  private static boolean isCurrencyCode(String value) {
+    if (value.length() != 3) {
+      return false;
+    }
+    for (int i = 0; i < 3; i++) {
+      char c = value.charAt(i);
+      if (c < 'A' || c > 'Z') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
\ No newline at end of file
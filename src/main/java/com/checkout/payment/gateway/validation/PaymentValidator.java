@@ -1,44 +1,97 @@
 package com.checkout.payment.gateway.validation;
 
-import com.checkout.payment.gateway.model.domain.Card;
-import com.checkout.payment.gateway.model.domain.Money;
 import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Validation after Bean Regex Validation
+ *
+ * <p>Reads the request's fields directly: the expiry is compared against a cached current
+ * month and the currency looked up in a table of the three-letter codes, so a valid request
+ * costs no allocation.
  */
 @Component
 public class PaymentValidator {
 
-  // TODO: Turn the error strings to enums
-  public List<String> validate(PostPaymentRequest request) {
-    List<String> errors = new ArrayList<>();
+  private static final int LETTERS = 26;
 
-    Card card = Card.builder()
-        .number(request.getCardNumber())
-        .expiryMonth(request.getExpiryMonth())
-        .expiryYear(request.getExpiryYear())
-        .cvv(request.getCvv())
-        .build();
+  private final MonthClock monthClock;
+  private final boolean[] supportedCurrencies = new boolean[LETTERS * LETTERS * LETTERS];
+  private final String allowedCurrencies;
 
-    Money money = Money.builder()
-        .amount(request.getAmount())
-        .currency(request.getCurrency())
-        .build();
+  @Autowired
+  public PaymentValidator(
+      @Value("${payment.supported-currencies:USD,GBP,EUR}") List<String> supportedCurrencies) {
+    this(Clock.systemDefaultZone(), supportedCurrencies);
+  }
+
+  PaymentValidator(Clock clock, List<String> supportedCurrencies) {
+    this.monthClock = new MonthClock(clock);
+    List<String> allowed = new ArrayList<>();
+    for (String currency : supportedCurrencies) {
+      String code = currency.trim().toUpperCase(Locale.ROOT);
+      int slot = slot(code);
+      if (slot < 0) {
+        throw new IllegalArgumentException("Not a three-letter currency code: " + currency);
+      }
+      this.supportedCurrencies[slot] = true;
+      allowed.add(code);
+    }
+    this.allowedCurrencies = allowed.toString();
+  }
+
+  // TODO: Turn the error strings to enums
+  public List<String> validate(PostPaymentRequest request) {
+    boolean expired = isExpired(request.getExpiryMonth(), request.getExpiryYear());
+    boolean supported = isCurrencySupported(request.getCurrency());
+    if (!expired && supported) {
+      return List.of();
+    }
 
-    if (card.isExpired()) {
+    List<String> errors = new ArrayList<>(2);
+    if (expired) {
       errors.add("Card has expired");
     }
 
-    if (!money.isCurrencySupported()) {
+    if (!supported) {
       errors.add("Currency '" + request.getCurrency() + "' is not supported. " +
-          "Allowed: " + Money.getSupportedCurrencies());
+          "Allowed: " + allowedCurrencies);
     }
 
     return errors;
   }
+
+  // Expired from the first day of the expiry month, as Card.isExpired
+  boolean isExpired(int expiryMonth, int expiryYear) {
+    return MonthClock.index(expiryYear, expiryMonth) <= monthClock.currentMonth();
+  }
+
+  // Case-insensitive, as Money.isCurrencySupported
+  boolean isCurrencySupported(String currency) {
+    int slot = slot(currency);
+    return slot >= 0 && supportedCurrencies[slot];
+  }
+
+  // Index of a three-letter code in the table, -1 for anything else
+  private static int slot(String currency) {
+    if (currency == null || currency.length() != 3) {
+      return -1;
+    }
+    int slot = 0;
+    for (int i = 0; i < 3; i++) {
+      int letter = Character.toUpperCase(currency.charAt(i)) - 'A';
+      if (letter < 0 || letter >= LETTERS) {
+        return -1;
+      }
+      slot = slot * LETTERS + letter;
+    }
+    return slot;
+  }
 }
\ No newline at end of file
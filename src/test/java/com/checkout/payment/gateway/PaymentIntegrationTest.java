@@ -13,8 +13,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -53,11 +58,10 @@ class PaymentIntegrationTest {
 
   @Test
   void shouldAuthorizePaymentAndReturn201() throws Exception { // 201 is Accepted
-    when(bankClient.processPayment(any())).thenReturn(authorizedResponse());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
 
-    mockMvc.perform(post(PAYMENTS_ENDPOINT)
-            .contentType(MediaType.APPLICATION_JSON)
-            .content(validPaymentJson()))
+    postPayment(validPaymentJson())
         .andExpect(status().isCreated())
         .andExpect(jsonPath("$.status").value(PaymentStatus.AUTHORIZED.getName()))
         .andExpect(jsonPath("$.card_number_last_four").value(LAST_FOUR));
@@ -65,11 +69,10 @@ class PaymentIntegrationTest {
 
   @Test
   void shouldDeclinePaymentAndReturn200() throws Exception { // 200 is OK
-    when(bankClient.processPayment(any())).thenReturn(declinedResponse());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(declinedResponse()));
 
-    mockMvc.perform(post(PAYMENTS_ENDPOINT)
-            .contentType(MediaType.APPLICATION_JSON)
-            .content(validPaymentJson()))
+    postPayment(validPaymentJson())
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.status").value(PaymentStatus.DECLINED.getName()));
   }
@@ -89,16 +92,15 @@ class PaymentIntegrationTest {
             }
             """.formatted(IDEMPOTENCY_KEY, VALID_CARD, currentYear, VALID_AMOUNT);
 
-    mockMvc.perform(post(PAYMENTS_ENDPOINT)
-            .contentType(MediaType.APPLICATION_JSON)
-            .content(expiredCardJson))
+    postPayment(expiredCardJson)
         .andExpect(status().isBadRequest())
         .andExpect(jsonPath("$.status").value(PaymentStatus.REJECTED.getName()));
   }
 
   @Test
   void shouldRetrieveStoredPayment() throws Exception {
-    when(bankClient.processPayment(any())).thenReturn(authorizedResponse());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
 
     String requestJson = """
             {
@@ -112,9 +114,7 @@ class PaymentIntegrationTest {
             }
             """.formatted(IDEMPOTENCY_KEY, VALID_CARD, NEXT_YEAR, VALID_AMOUNT);
 
-    String responseJson = mockMvc.perform(post(PAYMENTS_ENDPOINT)
-            .contentType(MediaType.APPLICATION_JSON)
-            .content(requestJson))
+    String responseJson = postPayment(requestJson)
         .andExpect(status().isCreated())
         .andReturn()
         .getResponse()
@@ -127,6 +127,31 @@ class PaymentIntegrationTest {
         .andExpect(jsonPath("$.id").value(paymentId));
   }
 
+  @Test
+  void shouldAnswerNotModifiedWhenETagMatches() throws Exception {
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+
+    String created = postPayment(validPaymentJson())
+        .andReturn().getResponse().getContentAsString();
+    String paymentId = extractPaymentId(created);
+
+    String etag = mockMvc.perform(get(PAYMENTS_ENDPOINT + "/" + paymentId))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+        .andExpect(content().string(created)) // The same stored bytes as the POST answer
+        .andExpect(header().exists("ETag"))
+        .andReturn().getResponse().getHeader("ETag");
+
+    mockMvc.perform(get(PAYMENTS_ENDPOINT + "/" + paymentId).header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", etag))
+        .andExpect(content().string(""));
+
+    mockMvc.perform(get(PAYMENTS_ENDPOINT + "/" + paymentId).header("If-None-Match", "\"0\""))
+        .andExpect(status().isOk());
+  }
+
   @Test
   void shouldRejectPaymentWithoutIdempotencyKey() throws Exception {
     String noIdempotencyKeyJson = """
@@ -143,12 +168,14 @@ class PaymentIntegrationTest {
     mockMvc.perform(post(PAYMENTS_ENDPOINT)
             .contentType(MediaType.APPLICATION_JSON)
             .content(noIdempotencyKeyJson))
-        .andExpect(status().isBadRequest());
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.details[0]").value("idempotencyKey: Idempotency key is required"));
   }
 
   @Test
   void shouldReturnCachedResponseForIdempotencyKey() throws Exception {
-    when(bankClient.processPayment(any())).thenReturn(authorizedResponse());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
 
     String requestJson = """
             {
@@ -162,20 +189,183 @@ class PaymentIntegrationTest {
             }
             """.formatted(IDEMPOTENCY_KEY, VALID_CARD, NEXT_YEAR, VALID_AMOUNT);
 
-    String firstId = extractPaymentId(mockMvc.perform(post(PAYMENTS_ENDPOINT)
-            .contentType(MediaType.APPLICATION_JSON)
-            .content(requestJson))
+    String firstId = extractPaymentId(postPayment(requestJson)
         .andReturn().getResponse().getContentAsString());
 
-    String secondId = extractPaymentId(mockMvc.perform(post(PAYMENTS_ENDPOINT)
-            .contentType(MediaType.APPLICATION_JSON)
-            .content(requestJson))
+    String secondId = extractPaymentId(postPayment(requestJson)
         .andReturn().getResponse().getContentAsString());
 
     assertEquals(firstId, secondId);
   }
 
+  @Test
+  void shouldProcessBatchAndReturnResultsInOrder() throws Exception {
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+
+    String batchJson = """
+            {
+                "payments": [
+                    {
+                        "idempotency_key": "order-batch-1",
+                        "card_number": "%s",
+                        "expiry_month": 12,
+                        "expiry_year": %d,
+                        "currency": "GBP",
+                        "amount": %d,
+                        "cvv": "123"
+                    },
+                    {
+                        "idempotency_key": "order-batch-2",
+                        "card_number": "%s",
+                        "expiry_month": 12,
+                        "expiry_year": %d,
+                        "currency": "JPY",
+                        "amount": %d,
+                        "cvv": "123"
+                    }
+                ]
+            }
+            """.formatted(VALID_CARD, NEXT_YEAR, VALID_AMOUNT, VALID_CARD, NEXT_YEAR, VALID_AMOUNT);
+
+    MvcResult started = mockMvc.perform(post(PAYMENTS_ENDPOINT + "/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(batchJson))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.results[0].idempotency_key").value("order-batch-1"))
+        .andExpect(jsonPath("$.results[0].status_code").value(201))
+        .andExpect(jsonPath("$.results[0].payment.card_number_last_four").value(LAST_FOUR))
+        .andExpect(jsonPath("$.results[1].status").value(PaymentStatus.REJECTED.getName()))
+        .andExpect(jsonPath("$.summary.total").value(2))
+        .andExpect(jsonPath("$.summary.authorized").value(1))
+        .andExpect(jsonPath("$.summary.rejected").value(1));
+  }
+
+  @Test
+  void shouldStreamNdjsonResultsInOrder() throws Exception {
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(declinedResponse()));
+    String ndjson = validPaymentJson().replace("\n", "") + "\n"
+        + validPaymentJson().replace("\n", "").replace(IDEMPOTENCY_KEY, "order-456") + "\n";
+
+    String response = mockMvc.perform(post(PAYMENTS_ENDPOINT + "/stream")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .content(ndjson))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse().getContentAsString();
+
+    List<String> lines = response.lines().toList();
+    assertEquals(2, lines.size());
+    assertEquals(IDEMPOTENCY_KEY, objectMapper.readTree(lines.get(0))
+        .get("idempotency_key").asText());
+    assertEquals("order-456", objectMapper.readTree(lines.get(1))
+        .get("idempotency_key").asText());
+    assertEquals(PaymentStatus.DECLINED.getName(), objectMapper.readTree(lines.get(1))
+        .get("status").asText());
+  }
+
+  @Test
+  void shouldRejectEmptyBatch() throws Exception {
+    mockMvc.perform(post(PAYMENTS_ENDPOINT + "/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"payments\": []}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void shouldLookUpPaymentsAndListMissingIds() throws Exception {
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+    String paymentId = extractPaymentId(postPayment(validPaymentJson())
+        .andReturn().getResponse().getContentAsString());
+    String unknownId = UUID.randomUUID().toString();
+
+    mockMvc.perform(get(PAYMENTS_ENDPOINT + "/lookup").param("ids", paymentId + "," + unknownId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.payments.length()").value(1))
+        .andExpect(jsonPath("$.payments[0].id").value(paymentId))
+        .andExpect(jsonPath("$.payments[0].card_number_last_four").value(LAST_FOUR))
+        .andExpect(jsonPath("$.missing[0]").value(unknownId));
+
+    mockMvc.perform(post(PAYMENTS_ENDPOINT + "/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"ids\": [\"%s\", \"%s\"]}".formatted(unknownId, paymentId)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.payments[0].id").value(paymentId))
+        .andExpect(jsonPath("$.missing.length()").value(1));
+  }
+
+  @Test
+  void shouldRejectEmptyLookup() throws Exception {
+    mockMvc.perform(post(PAYMENTS_ENDPOINT + "/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"ids\": []}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void shouldQueryPaymentsPageByPage() throws Exception {
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(declinedResponse()));
+    for (int i = 0; i < 3; i++) {
+      postPayment(paymentJson("order-" + i)).andExpect(status().isOk());
+    }
+
+    String firstPage = mockMvc.perform(get(PAYMENTS_ENDPOINT)
+            .param("status", "Declined")
+            .param("currency", "GBP")
+            .param("card_last_four", LAST_FOUR)
+            .param("limit", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.payments.length()").value(2))
+        .andExpect(jsonPath("$.next_cursor").isNotEmpty())
+        .andReturn().getResponse().getContentAsString();
+
+    mockMvc.perform(get(PAYMENTS_ENDPOINT)
+            .param("status", "Declined")
+            .param("limit", "2")
+            .param("cursor", objectMapper.readTree(firstPage).get("next_cursor").asText()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.payments.length()").value(1))
+        .andExpect(jsonPath("$.next_cursor").doesNotExist());
+
+    mockMvc.perform(get(PAYMENTS_ENDPOINT).param("status", "Authorized"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.payments.length()").value(0));
+  }
+
+  @Test
+  void shouldReportAuthorizedPaymentInStats() throws Exception {
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+    postPayment(paymentJson("stats-" + UUID.randomUUID())).andExpect(status().isCreated());
+
+    mockMvc.perform(get(PAYMENTS_ENDPOINT + "/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.windows['1m'].by_currency.GBP.by_status.Authorized.count")
+            .isNumber())
+        .andExpect(jsonPath("$.windows.lifetime.authorization_rate").isNumber());
+  }
+
+  @Test
+  void shouldRejectInvalidQuery() throws Exception {
+    mockMvc.perform(get(PAYMENTS_ENDPOINT)
+            .param("status", "Pending")
+            .param("from", "yesterday")
+            .param("cursor", "not-a-cursor"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.details.length()").value(3));
+  }
+
   private String validPaymentJson() {
+    return paymentJson(IDEMPOTENCY_KEY);
+  }
+
+  private String paymentJson(String idempotencyKey) {
     return """
             {
                 "idempotency_key": "%s",
@@ -186,7 +376,17 @@ class PaymentIntegrationTest {
                 "amount": %d,
                 "cvv": "123"
             }
-            """.formatted(IDEMPOTENCY_KEY, VALID_CARD, NEXT_YEAR, VALID_AMOUNT);
+            """.formatted(idempotencyKey, VALID_CARD, NEXT_YEAR, VALID_AMOUNT);
+  }
+
+  // Payments are processed asynchronously, so the response comes from the async dispatch
+  private ResultActions postPayment(String json) throws Exception {
+    MvcResult started = mockMvc.perform(post(PAYMENTS_ENDPOINT)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(started));
   }
 
   private String extractPaymentId(String json) throws Exception {
@@ -1,159 +1,198 @@
 package com.checkout.payment.gateway.client;
 
 import com.checkout.payment.gateway.exception.BankUnavailableException;
+import com.checkout.payment.gateway.metrics.PaymentStageMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Clock;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
 class AcquiringBankClientTest {
 
-  private static final String BANK_URL = "http://localhost:8080";
   private static final int MAX_RETRIES = 2;
   private static final long RETRY_DELAY_MS = 10; // Short delay for tests
-
-  @Mock
-  private RestTemplate restTemplate;
-
+  private static final long RETRY_MAX_DELAY_MS = 40;
+  private static final int DROP_CONNECTION = -1;
+  private static final int STALL = -2;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final Deque<Integer> statuses = new ConcurrentLinkedDeque<>();
+  private final CountDownLatch stalled = new CountDownLatch(1);
+  private final AtomicInteger calls = new AtomicInteger();
+  private final AtomicReference<String> lastPath = new AtomicReference<>();
+  private final AtomicReference<BankRequest> lastRequest = new AtomicReference<>();
+  private BankResponse bankResponse;
+
+  private HttpServer bank;
+  private ExecutorService bankExecutor;
+  private CloseableHttpAsyncClient httpClient;
+  private String bankUrl;
   private AcquiringBankClient bankClient;
 
   @BeforeEach
-  void setUp() {
-    bankClient = new AcquiringBankClient(restTemplate, BANK_URL, MAX_RETRIES, RETRY_DELAY_MS);
+  void setUp() throws IOException {
+    // Answers with the queued statuses in turn, then with 200 and the bank response
+    bank = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    bank.createContext("/", this::handle);
+    bankExecutor = Executors.newCachedThreadPool(); // A stalled call must not block the rest
+    bank.setExecutor(bankExecutor);
+    bank.start();
+    bankUrl = "http://localhost:" + bank.getAddress().getPort();
+
+    // As configured for the application, so each status reaches the client exactly once
+    httpClient = HttpAsyncClients.custom().disableAutomaticRetries().build();
+    httpClient.start();
+    bankClient = client(bankUrl, MAX_RETRIES);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    stalled.countDown();
+    httpClient.close();
+    bank.stop(0);
+    bankExecutor.shutdownNow();
   }
 
   @Test
   void shouldReturnResponseOnFirstAttempt() {
-    BankRequest request = createBankRequest();
-    BankResponse expectedResponse = BankResponse.builder()
+    bankResponse = BankResponse.builder()
         .authorized(true)
         .authorizationCode("auth-123")
         .build();
 
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenReturn(ResponseEntity.ok(expectedResponse));
-
-    BankResponse result = bankClient.processPayment(request);
+    BankResponse result = bankClient.processPayment(createBankRequest());
 
-    assertEquals(expectedResponse, result);
-    verify(restTemplate, times(1)).postForEntity(anyString(), any(), eq(BankResponse.class));
+    assertEquals(bankResponse, result);
+    assertEquals(1, calls.get());
   }
 
   @Test
-  void shouldRetryOnResourceAccessException() {
-    BankRequest request = createBankRequest();
-    BankResponse expectedResponse = BankResponse.builder()
+  void shouldCompleteAsynchronously() {
+    bankResponse = BankResponse.builder()
         .authorized(true)
         .authorizationCode("auth-123")
         .build();
 
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenThrow(new ResourceAccessException("Connection refused"))
-        .thenReturn(ResponseEntity.ok(expectedResponse));
+    BankResponse result = bankClient.processPaymentAsync(createBankRequest()).join();
 
-    BankResponse result = bankClient.processPayment(request);
-
-    assertEquals(expectedResponse, result);
-    verify(restTemplate, times(2)).postForEntity(anyString(), any(), eq(BankResponse.class));
+    assertEquals(bankResponse, result);
   }
 
   @Test
-  void shouldRetryOnHttpServerErrorException() {
-    BankRequest request = createBankRequest();
-    BankResponse expectedResponse = BankResponse.builder()
+  void shouldRetryOnConnectionFailure() {
+    bankResponse = BankResponse.builder()
         .authorized(true)
         .authorizationCode("auth-123")
         .build();
+    statuses.add(DROP_CONNECTION);
 
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
-        .thenReturn(ResponseEntity.ok(expectedResponse));
+    BankResponse result = bankClient.processPayment(createBankRequest());
 
-    BankResponse result = bankClient.processPayment(request);
+    assertEquals(bankResponse, result);
+    assertEquals(2, calls.get());
+  }
 
-    assertEquals(expectedResponse, result);
-    verify(restTemplate, times(2)).postForEntity(anyString(), any(), eq(BankResponse.class));
+  @Test
+  void shouldRetryOnServerError() {
+    bankResponse = BankResponse.builder()
+        .authorized(true)
+        .authorizationCode("auth-123")
+        .build();
+    statuses.add(503);
+
+    BankResponse result = bankClient.processPayment(createBankRequest());
+
+    assertEquals(bankResponse, result);
+    assertEquals(2, calls.get());
+    assertEquals(1, meterRegistry.get("bank.attempt").tag("attempt", "1")
+        .tag("result", "server_error").timer().count());
+    assertEquals(1, meterRegistry.get("bank.attempt").tag("attempt", "2")
+        .tag("result", "ok").timer().count());
   }
 
   @Test
   void shouldThrowBankUnavailableExceptionAfterMaxRetries() {
-    BankRequest request = createBankRequest();
-
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenThrow(new ResourceAccessException("Connection refused"));
+    statuses.add(503);
+    statuses.add(503);
+    statuses.add(503);
 
     BankUnavailableException exception = assertThrows(
         BankUnavailableException.class,
-        () -> bankClient.processPayment(request)
+        () -> bankClient.processPayment(createBankRequest())
     );
 
     assertTrue(exception.getMessage().contains("3 attempts"));
     // Initial attempt + 2 retries = 3 total attempts
-    verify(restTemplate, times(3)).postForEntity(anyString(), any(), eq(BankResponse.class));
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void shouldThrowBankUnavailableExceptionWhenBankIsUnreachable() throws IOException {
+    AcquiringBankClient unreachable = client("http://localhost:" + unusedPort(), MAX_RETRIES);
+
+    BankUnavailableException exception = assertThrows(
+        BankUnavailableException.class,
+        () -> unreachable.processPayment(createBankRequest())
+    );
+
+    assertTrue(exception.getMessage().contains("3 attempts"));
   }
 
   @Test
   void shouldRetryMultipleTimesBeforeSuccess() {
-    BankRequest request = createBankRequest();
-    BankResponse expectedResponse = BankResponse.builder()
+    bankResponse = BankResponse.builder()
         .authorized(false)
         .build();
+    statuses.add(DROP_CONNECTION);
+    statuses.add(502);
 
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenThrow(new ResourceAccessException("Connection refused"))
-        .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
-        .thenReturn(ResponseEntity.ok(expectedResponse));
+    BankResponse result = bankClient.processPayment(createBankRequest());
 
-    BankResponse result = bankClient.processPayment(request);
-
-    assertEquals(expectedResponse, result);
-    verify(restTemplate, times(3)).postForEntity(anyString(), any(), eq(BankResponse.class));
+    assertEquals(bankResponse, result);
+    assertEquals(3, calls.get());
   }
 
   @Test
   void shouldCallCorrectEndpoint() {
-    BankRequest request = createBankRequest();
-    BankResponse expectedResponse = BankResponse.builder()
+    bankResponse = BankResponse.builder()
         .authorized(true)
         .authorizationCode("auth-123")
         .build();
-
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenReturn(ResponseEntity.ok(expectedResponse));
+    BankRequest request = createBankRequest();
 
     bankClient.processPayment(request);
 
-    verify(restTemplate).postForEntity(
-        eq(BANK_URL + "/payments"),
-        eq(request),
-        eq(BankResponse.class)
-    );
+    assertEquals("/payments", lastPath.get());
+    assertEquals(request, lastRequest.get());
   }
 
   @Test
   void shouldHandleDeclinedPayment() {
-    BankRequest request = createBankRequest();
-    BankResponse declinedResponse = BankResponse.builder()
+    bankResponse = BankResponse.builder()
         .authorized(false)
         .build();
 
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenReturn(ResponseEntity.ok(declinedResponse));
-
-    BankResponse result = bankClient.processPayment(request);
+    BankResponse result = bankClient.processPayment(createBankRequest());
 
     assertFalse(result.isAuthorized());
     assertNull(result.getAuthorizationCode());
@@ -161,20 +200,153 @@ class AcquiringBankClientTest {
 
   @Test
   void shouldNotRetryWithZeroMaxRetries() {
-    AcquiringBankClient clientWithNoRetries = new AcquiringBankClient(
-        restTemplate, BANK_URL, 0, RETRY_DELAY_MS);
-    BankRequest request = createBankRequest();
-
-    when(restTemplate.postForEntity(anyString(), any(), eq(BankResponse.class)))
-        .thenThrow(new ResourceAccessException("Connection refused"));
+    AcquiringBankClient clientWithNoRetries = client(bankUrl, 0);
+    statuses.add(503);
 
     BankUnavailableException exception = assertThrows(
         BankUnavailableException.class,
-        () -> clientWithNoRetries.processPayment(request)
+        () -> clientWithNoRetries.processPayment(createBankRequest())
     );
 
     assertTrue(exception.getMessage().contains("1 attempts"));
-    verify(restTemplate, times(1)).postForEntity(anyString(), any(), eq(BankResponse.class));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void shouldStopRetryingWhenRetryBudgetIsExhausted() {
+    AcquiringBankClient budgetedClient = client(bankUrl, MAX_RETRIES, circuitBreaker(100),
+        retryBudget(0));
+    statuses.add(503);
+
+    BankUnavailableException exception = assertThrows(
+        BankUnavailableException.class,
+        () -> budgetedClient.processPayment(createBankRequest())
+    );
+
+    assertTrue(exception.getMessage().contains("retry budget"));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void shouldBackOffExponentiallyWithJitterUpToMaxDelay() {
+    for (int i = 0; i < 100; i++) {
+      long first = bankClient.backoffMs(0);
+      long third = bankClient.backoffMs(2);
+      long tenth = bankClient.backoffMs(9);
+      assertTrue(first >= 0 && first <= RETRY_DELAY_MS);
+      assertTrue(third >= 0 && third <= RETRY_DELAY_MS * 4);
+      assertTrue(tenth >= 0 && tenth <= RETRY_MAX_DELAY_MS);
+    }
+  }
+
+  @Test
+  void shouldFailFastWithoutCallingBankWhenCircuitIsOpen() {
+    AcquiringBankClient breakingClient = client(bankUrl, 0, circuitBreaker(2), retryBudget(100));
+    statuses.add(503);
+    statuses.add(503);
+    for (int i = 0; i < 2; i++) {
+      assertThrows(BankUnavailableException.class,
+          () -> breakingClient.processPayment(createBankRequest()));
+    }
+
+    BankUnavailableException exception = assertThrows(
+        BankUnavailableException.class,
+        () -> breakingClient.processPayment(createBankRequest())
+    );
+
+    assertTrue(exception.getMessage().contains("circuit is open"));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void shouldCancelSlowCallOnceHedgeAnswersAndGiveBackItsSlot() {
+    bankResponse = BankResponse.builder()
+        .authorized(true)
+        .authorizationCode("auth-123")
+        .build();
+    statuses.add(STALL);
+    RequestHedger hedger = new RequestHedger(true, 95, 1, new RetryBudget("bank.hedges",
+        Clock.systemUTC(), 1, 0, 1_000, meterRegistry), meterRegistry);
+    for (int i = 0; i < 128; i++) {
+      hedger.recordLatency(1_000_000);
+    }
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 1_000, 0.9,
+        meterRegistry);
+    AcquiringBankClient hedgingClient = new AcquiringBankClient(httpClient, objectMapper,
+        circuitBreaker(100), limit, retryBudget(100), hedger,
+        new PaymentStageMetrics(meterRegistry), Runnable::run, bankUrl, MAX_RETRIES,
+        RETRY_DELAY_MS, RETRY_MAX_DELAY_MS);
+
+    BankResponse result = hedgingClient.processPayment(createBankRequest());
+
+    assertEquals(bankResponse, result);
+    assertEquals(2, calls.get());
+    assertEquals(0, limit.getInFlight());
+    assertEquals(1, meterRegistry.get("bank.attempt").tag("attempt", "1")
+        .tag("result", "cancelled").timer().count());
+    assertEquals(1.0, meterRegistry.get("bank.hedges.sent").counter().count());
+  }
+
+  private AcquiringBankClient client(String url, int maxRetries) {
+    return client(url, maxRetries, circuitBreaker(100), retryBudget(100));
+  }
+
+  private AcquiringBankClient client(String url, int maxRetries,
+      BankCircuitBreaker circuitBreaker, RetryBudget retryBudget) {
+    RequestHedger noHedging = new RequestHedger(false, 95, 10, new RetryBudget("bank.hedges",
+        Clock.systemUTC(), 0, 0, 1_000, meterRegistry), meterRegistry);
+    return new AcquiringBankClient(httpClient, objectMapper, circuitBreaker,
+        new AdaptiveConcurrencyLimit(10, 1, 10, 1_000, 0.9, meterRegistry), retryBudget,
+        noHedging, new PaymentStageMetrics(meterRegistry), Runnable::run, url, maxRetries,
+        RETRY_DELAY_MS, RETRY_MAX_DELAY_MS);
+  }
+
+  private RetryBudget retryBudget(int minRetriesPerSecond) {
+    return new RetryBudget("bank.retries", Clock.systemUTC(), 0, minRetriesPerSecond, 1_000,
+        meterRegistry);
+  }
+
+  private BankCircuitBreaker circuitBreaker(int minimumCalls) {
+    return new BankCircuitBreaker(Clock.systemUTC(), 100, minimumCalls, 50, 100, 10_000,
+        60_000, 1, meterRegistry);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    calls.incrementAndGet();
+    lastPath.set(exchange.getRequestURI().getPath());
+    lastRequest.set(objectMapper.readValue(exchange.getRequestBody(), BankRequest.class));
+
+    Integer status = statuses.poll();
+    if (status != null && status == STALL) {
+      try {
+        stalled.await(); // Until the test ends
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.close();
+      return;
+    }
+    if (status != null && status == DROP_CONNECTION) {
+      exchange.close(); // No response at all
+      return;
+    }
+    if (status != null) {
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      return;
+    }
+
+    byte[] body = objectMapper.writeValueAsBytes(bankResponse);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    exchange.getResponseBody().write(body);
+    exchange.close();
+  }
+
+  private static int unusedPort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
   }
 
   private BankRequest createBankRequest() {
@@ -186,4 +358,4 @@ class AcquiringBankClientTest {
         .cvv("123")
         .build();
   }
-}
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.checkout.payment.gateway.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+  private static final long FAST = 1_000_000;      // 1 ms in nanos
+  private static final long SLOW = 200_000_000;    // 200 ms in nanos
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldRefuseCallsBeyondLimit() {
+    AdaptiveConcurrencyLimit limit = limit(2);
+
+    assertTrue(limit.tryAcquire());
+    assertTrue(limit.tryAcquire());
+    assertFalse(limit.tryAcquire());
+    assertEquals(1.0, meterRegistry.get("bank.calls.rejected").counter().count());
+
+    limit.release();
+    assertTrue(limit.tryAcquire());
+  }
+
+  @Test
+  void shouldGrowLimitWhileFastAndBusy() {
+    AdaptiveConcurrencyLimit limit = limit(4);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(limit.tryAcquire());
+    }
+
+    limit.onResult(FAST, false);
+
+    assertEquals(5, limit.getLimit());
+    assertEquals(3, limit.getInFlight());
+  }
+
+  @Test
+  void shouldNotGrowLimitWhileMostlyIdle() {
+    AdaptiveConcurrencyLimit limit = limit(10);
+    assertTrue(limit.tryAcquire());
+
+    limit.onResult(FAST, false);
+
+    assertEquals(10, limit.getLimit());
+  }
+
+  @Test
+  void shouldBackOffOnSlowOrFailedCalls() {
+    AdaptiveConcurrencyLimit limit = limit(10);
+
+    assertTrue(limit.tryAcquire());
+    limit.onResult(SLOW, false);
+    assertEquals(9, limit.getLimit());
+
+    assertTrue(limit.tryAcquire());
+    limit.onResult(FAST, true);
+    assertEquals(8, limit.getLimit());
+  }
+
+  @Test
+  void shouldStayWithinBounds() {
+    AdaptiveConcurrencyLimit limit = limit(3);
+    for (int i = 0; i < 50; i++) {
+      assertTrue(limit.tryAcquire());
+      limit.onResult(FAST, true);
+    }
+
+    assertEquals(2, limit.getLimit());
+  }
+
+  private AdaptiveConcurrencyLimit limit(int initialLimit) {
+    return new AdaptiveConcurrencyLimit(initialLimit, 2, 20, 100, 0.9, meterRegistry);
+  }
+}
\ No newline at end of file
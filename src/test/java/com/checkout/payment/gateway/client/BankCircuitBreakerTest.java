@@ -0,0 +1,153 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.client.BankCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankCircuitBreakerTest {
+
+  private static final int WINDOW_SIZE = 10;
+  private static final int MINIMUM_CALLS = 4;
+  private static final long SLOW_CALL_MS = 100;
+  private static final long OPEN_MS = 5_000;
+  private static final int HALF_OPEN_CALLS = 2;
+  private static final long FAST = 1_000_000;      // 1 ms in nanos
+  private static final long SLOW = 200_000_000;    // 200 ms in nanos
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private BankCircuitBreaker breaker;
+
+  @BeforeEach
+  void setUp() {
+    breaker = new BankCircuitBreaker(clock, WINDOW_SIZE, MINIMUM_CALLS, 50, 50, SLOW_CALL_MS,
+        OPEN_MS, HALF_OPEN_CALLS, meterRegistry);
+  }
+
+  @Test
+  void shouldStayClosedBelowMinimumCalls() {
+    calls(MINIMUM_CALLS - 1, FAST, true);
+
+    assertEquals(State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquirePermission());
+  }
+
+  @Test
+  void shouldOpenWhenFailureRateReachesThreshold() {
+    calls(2, FAST, false);
+    calls(2, FAST, true);
+
+    assertEquals(State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquirePermission());
+    assertEquals(1.0, meterRegistry.get("bank.calls.rejected").counter().count());
+  }
+
+  @Test
+  void shouldOpenWhenSlowCallRateReachesThreshold() {
+    calls(2, FAST, false);
+    calls(2, SLOW, false);
+
+    assertEquals(State.OPEN, breaker.getState());
+  }
+
+  @Test
+  void shouldForgetOutcomesThatLeftTheWindow() {
+    calls(1, FAST, true);
+    calls(WINDOW_SIZE, FAST, false);
+    calls(4, FAST, true);
+
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void shouldCloseAfterSuccessfulHalfOpenCalls() {
+    calls(MINIMUM_CALLS, FAST, true);
+    clock.advance(OPEN_MS);
+
+    assertTrue(breaker.tryAcquirePermission());
+    assertTrue(breaker.tryAcquirePermission());
+    assertFalse(breaker.tryAcquirePermission()); // Only HALF_OPEN_CALLS trial calls
+    assertEquals(State.HALF_OPEN, breaker.getState());
+
+    breaker.onResult(FAST, false);
+    breaker.onResult(FAST, false);
+
+    assertEquals(State.CLOSED, breaker.getState());
+    assertEquals(1, gauge(State.CLOSED));
+  }
+
+  @Test
+  void shouldReopenWhenHalfOpenCallFails() {
+    calls(MINIMUM_CALLS, FAST, true);
+    clock.advance(OPEN_MS);
+
+    assertTrue(breaker.tryAcquirePermission());
+    breaker.onResult(FAST, true);
+
+    assertEquals(State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquirePermission());
+    assertEquals(2.0, meterRegistry.get("bank.circuit.transitions").tag("state", "open")
+        .counter().count());
+  }
+
+  @Test
+  void shouldGiveBackHalfOpenPermitOfAbandonedCall() {
+    calls(MINIMUM_CALLS, FAST, true);
+    clock.advance(OPEN_MS);
+    assertTrue(breaker.tryAcquirePermission());
+    assertTrue(breaker.tryAcquirePermission());
+
+    breaker.release();
+
+    assertTrue(breaker.tryAcquirePermission());
+    assertEquals(State.HALF_OPEN, breaker.getState());
+  }
+
+  private void calls(int count, long durationNanos, boolean failed) {
+    for (int i = 0; i < count; i++) {
+      assertTrue(breaker.tryAcquirePermission());
+      breaker.onResult(durationNanos, failed);
+    }
+  }
+
+  private double gauge(State state) {
+    return meterRegistry.get("bank.circuit.state").tag("state", state.name().toLowerCase())
+        .gauge().value();
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(long millis) {
+      now = now.plusMillis(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankJsonCodecTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void shouldEncodeRequestBuiltFromPayment() {
+    PostPaymentRequest payment = PostPaymentRequest.builder()
+        .idempotencyKey("order-12345678")
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .build();
+    BankRequest request = BankRequest.from(payment);
+
+    String json = new String(BankJsonCodec.encode(request), StandardCharsets.UTF_8);
+
+    assertEquals("{\"card_number\":\"2222405343248877\",\"expiry_date\":\"04/2030\","
+        + "\"currency\":\"GBP\",\"amount\":100,\"cvv\":\"123\",\"request_reference\":\""
+        + request.getRequestReference() + "\"}", json);
+  }
+
+  @Test
+  void shouldEncodeSameDocumentAsJackson() throws IOException {
+    BankRequest[] requests = {
+        BankRequest.builder().cardNumber("2222405343248877").expiryDate("12/2030")
+            .currency("GBP").amount(0).cvv("1234").build(),
+        BankRequest.builder().amount(Integer.MIN_VALUE).build(),
+        BankRequest.builder().cardNumber("quote\" back\\slash\ttab\u0001")
+            .expiryDate("\u00e9\u20ac").currency("\ud83d\udcb3").amount(Integer.MAX_VALUE)
+            .cvv("").requestReference("-").build(),
+        BankRequest.builder().cvv("\u007f\u0080\u07ff\u0800\uffff").amount(-42).build()
+    };
+    for (BankRequest request : requests) {
+      assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(request)),
+          objectMapper.readTree(BankJsonCodec.encode(request)), request::toString);
+    }
+  }
+
+  @Test
+  void shouldDecodeResponseSkippingUnknownFields() throws IOException {
+    BankResponse response = decode("{\"authorized\":true,\"extra\":{\"nested\":[1,2]},"
+        + "\"authorization_code\":\"0bb07405-6d44-4b50-a14f-7ae0beff13ad\"}");
+
+    assertTrue(response.isAuthorized());
+    assertEquals("0bb07405-6d44-4b50-a14f-7ae0beff13ad", response.getAuthorizationCode());
+  }
+
+  @Test
+  void shouldDecodeDeclinedResponse() throws IOException {
+    BankResponse response = decode("{\"authorized\":false,\"authorization_code\":null}");
+
+    assertFalse(response.isAuthorized());
+    assertNull(response.getAuthorizationCode());
+  }
+
+  @Test
+  void shouldRejectResponseThatIsNotAnObject() {
+    assertThrows(IOException.class, () -> decode("[true]"));
+  }
+
+  @Test
+  void shouldFormatExpiryDateAsBankExpects() {
+    assertEquals("01/2030", BankRequest.expiryDate(1, 2030));
+    assertEquals("12/2099", BankRequest.expiryDate(12, 2099));
+  }
+
+  private BankResponse decode(String json) throws IOException {
+    return BankJsonCodec.decode(objectMapper.getFactory(), json.getBytes(StandardCharsets.UTF_8));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.exception.BankUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgerTest {
+
+  private static final long ONE_MS = 1_000_000;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final List<CompletableFuture<String>> calls = new ArrayList<>();
+
+  @Test
+  void shouldCallOnceWhenDisabled() throws Exception {
+    RequestHedger hedger = hedger(false, 100);
+    warmUp(hedger);
+
+    CompletableFuture<String> result = hedger.execute(this::call, Runnable::run);
+    Thread.sleep(50);
+    calls.get(0).complete("first");
+
+    assertEquals("first", result.get(1, TimeUnit.SECONDS));
+    assertEquals(1, callCount());
+  }
+
+  @Test
+  void shouldNotHedgeBeforeEnoughSamples() throws Exception {
+    RequestHedger hedger = hedger(true, 100);
+
+    CompletableFuture<String> result = hedger.execute(this::call, Runnable::run);
+    Thread.sleep(50);
+    calls.get(0).complete("first");
+
+    assertEquals("first", result.get(1, TimeUnit.SECONDS));
+    assertEquals(1, callCount());
+  }
+
+  @Test
+  void shouldTakeHedgedAnswerWhenFirstCallIsSlow() throws Exception {
+    RequestHedger hedger = hedger(true, 100);
+    warmUp(hedger);
+
+    CompletableFuture<String> result = hedger.execute(this::call, Runnable::run);
+    awaitCalls(2);
+    calls.get(1).complete("hedge");
+
+    assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+    assertEquals(1.0, meterRegistry.get("bank.hedges.won").counter().count());
+    assertEquals(1.0, meterRegistry.get("bank.hedges.sent").counter().count());
+    assertTrue(calls.get(0).isCancelled());
+  }
+
+  @Test
+  void shouldWaitForOtherCallWhenOneFails() throws Exception {
+    RequestHedger hedger = hedger(true, 100);
+    warmUp(hedger);
+
+    CompletableFuture<String> result = hedger.execute(this::call, Runnable::run);
+    awaitCalls(2);
+    calls.get(1).completeExceptionally(new BankUnavailableException("Bank down"));
+    assertFalse(result.isDone());
+    calls.get(0).complete("first");
+
+    assertEquals("first", result.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldFailWhenEveryCallFails() throws Exception {
+    RequestHedger hedger = hedger(true, 100);
+    warmUp(hedger);
+
+    CompletableFuture<String> result = hedger.execute(this::call, Runnable::run);
+    awaitCalls(2);
+    calls.get(0).completeExceptionally(new BankUnavailableException("Bank down"));
+    calls.get(1).completeExceptionally(new BankUnavailableException("Bank down"));
+
+    assertTrue(result.isCompletedExceptionally());
+  }
+
+  @Test
+  void shouldNotHedgeBeyondBudget() throws Exception {
+    RequestHedger hedger = hedger(true, 0);
+    warmUp(hedger);
+
+    CompletableFuture<String> result = hedger.execute(this::call, Runnable::run);
+    Thread.sleep(50);
+    calls.get(0).complete("first");
+
+    assertEquals("first", result.get(1, TimeUnit.SECONDS));
+    assertEquals(1, callCount());
+    assertEquals(1.0, meterRegistry.get("bank.hedges").tag("outcome", "denied").counter()
+        .count());
+  }
+
+  private RequestHedger hedger(boolean enabled, int maxPercent) {
+    RetryBudget budget = new RetryBudget("bank.hedges", Clock.systemUTC(), maxPercent / 100.0,
+        0, 1_000, meterRegistry);
+    return new RequestHedger(enabled, 95, 1, budget, meterRegistry);
+  }
+
+  // Enough fast calls for a 1 ms hedging threshold
+  private void warmUp(RequestHedger hedger) {
+    for (int i = 0; i < 128; i++) {
+      hedger.recordLatency(ONE_MS);
+    }
+  }
+
+  private synchronized CompletableFuture<String> call() {
+    CompletableFuture<String> call = new CompletableFuture<>();
+    calls.add(call);
+    return call;
+  }
+
+  private void awaitCalls(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 1_000;
+    while (callCount() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(count, callCount());
+  }
+
+  private synchronized int callCount() {
+    return calls.size();
+  }
+}
\ No newline at end of file
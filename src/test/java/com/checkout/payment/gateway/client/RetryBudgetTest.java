@@ -0,0 +1,106 @@
+package com.checkout.payment.gateway.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+  private static final long WINDOW_MS = 10_000;
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldAllowRetriesUpToRatioOfRequests() {
+    RetryBudget budget = budget(0.1, 0);
+    requests(budget, 30);
+
+    assertEquals(3, retries(budget, 10));
+    assertEquals(3.0, count("allowed"));
+    assertEquals(7.0, count("denied"));
+  }
+
+  @Test
+  void shouldAlwaysAllowMinimumRetries() {
+    RetryBudget budget = budget(0.1, 1);
+
+    // One a second over a ten second window, with no requests at all
+    assertEquals(10, retries(budget, 20));
+  }
+
+  @Test
+  void shouldRefillOnceRetriesLeaveTheWindow() {
+    RetryBudget budget = budget(0.5, 0);
+    requests(budget, 4);
+    assertEquals(2, retries(budget, 5));
+
+    clock.advance(WINDOW_MS);
+    requests(budget, 2);
+
+    assertEquals(1, retries(budget, 5));
+  }
+
+  @Test
+  void shouldRejectWindowShorterThanBucket() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new RetryBudget("bank.retries", clock, 0.1, 0, 999, meterRegistry));
+  }
+
+  private RetryBudget budget(double ratio, int minRetriesPerSecond) {
+    return new RetryBudget("bank.retries", clock, ratio, minRetriesPerSecond, WINDOW_MS,
+        meterRegistry);
+  }
+
+  private void requests(RetryBudget budget, int count) {
+    for (int i = 0; i < count; i++) {
+      budget.onRequest();
+    }
+  }
+
+  private int retries(RetryBudget budget, int attempts) {
+    int allowed = 0;
+    for (int i = 0; i < attempts; i++) {
+      allowed += budget.tryRetry() ? 1 : 0;
+    }
+    return allowed;
+  }
+
+  private double count(String outcome) {
+    return meterRegistry.get("bank.retries").tag("outcome", outcome).counter().count();
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(long millis) {
+      now = now.plusMillis(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.checkout.payment.gateway.logging;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.BankUnavailableException;
+import com.checkout.payment.gateway.metrics.PaymentOutcome;
+import com.checkout.payment.gateway.metrics.PaymentStage;
+import com.checkout.payment.gateway.metrics.PaymentTimings;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPaymentLogTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final List<String> lines = new CopyOnWriteArrayList<>();
+
+  @Test
+  void shouldWriteOneStructuredLinePerPayment() {
+    PostPaymentResponse payment = payment(PaymentStatus.AUTHORIZED);
+    PaymentTimings timings = new PaymentTimings();
+    timings.record(PaymentStage.BANK, System.nanoTime());
+
+    try (AsyncPaymentLog paymentLog = new AsyncPaymentLog(16, 1.0, meterRegistry, lines::add)) {
+      paymentLog.record(request("order 1=\"a\""), timings, PaymentOutcome.AUTHORIZED,
+          PaymentResult.authorized(payment), null);
+    }
+
+    assertEquals(1, lines.size());
+    String line = lines.get(0);
+    assertTrue(line.startsWith("at="), line);
+    assertTrue(line.contains(" outcome=authorized id=" + payment.getId()
+        + " idempotency_key=\"order 1=\\\"a\\\"\" currency=GBP amount=100 bank_us="), line);
+    assertFalse(line.contains("store_us"), line);
+    assertEquals(1.0, records("written"));
+  }
+
+  @Test
+  void shouldAlwaysLogDeclinesRejectionsAndFailuresButSampleSuccesses() {
+    try (AsyncPaymentLog paymentLog = new AsyncPaymentLog(16, 0.0, meterRegistry, lines::add)) {
+      paymentLog.record(request("order-1"), new PaymentTimings(), PaymentOutcome.AUTHORIZED,
+          PaymentResult.authorized(payment(PaymentStatus.AUTHORIZED)), null);
+      paymentLog.record(request("order-2"), new PaymentTimings(), PaymentOutcome.REPLAYED,
+          PaymentResult.fromExisting(payment(PaymentStatus.AUTHORIZED)), null);
+      paymentLog.record(request("order-3"), new PaymentTimings(), PaymentOutcome.DECLINED,
+          PaymentResult.declined(payment(PaymentStatus.DECLINED)), null);
+      paymentLog.record(request("order-4"), new PaymentTimings(), PaymentOutcome.REJECTED,
+          PaymentResult.rejected(List.of("cvv: CVV is required", "amount: Amount is required")),
+          null);
+      paymentLog.record(request("order-5"), new PaymentTimings(),
+          PaymentOutcome.BANK_UNAVAILABLE, null,
+          new CompletionException(new BankUnavailableException("Bank circuit is open")));
+    }
+
+    assertEquals(3, lines.size());
+    assertTrue(lines.get(0).contains("outcome=declined"), lines.get(0));
+    assertTrue(lines.get(1).contains(
+        "outcome=rejected idempotency_key=order-4 currency=GBP amount=100"
+            + " detail=\"cvv: CVV is required; amount: Amount is required\""), lines.get(1));
+    assertTrue(lines.get(2).contains("detail=\"Bank circuit is open\""), lines.get(2));
+    assertEquals(2.0, records("sampled_out"));
+  }
+
+  @Test
+  void shouldDropRatherThanWaitWhenWriterFallsBehind() throws InterruptedException {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AsyncPaymentLog paymentLog = new AsyncPaymentLog(2, 1.0, meterRegistry, line -> {
+      writing.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      lines.add(line);
+    });
+    try {
+      record(paymentLog, "order-0");
+      assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+      // The writer is stuck on the first, two fit in the buffer and the rest are dropped
+      for (int i = 1; i <= 5; i++) {
+        record(paymentLog, "order-" + i);
+      }
+      assertEquals(3.0, records("dropped"));
+    } finally {
+      release.countDown();
+      paymentLog.close();
+    }
+
+    assertEquals(3, lines.size());
+    assertEquals(3.0, records("written"));
+  }
+
+  @Test
+  void shouldRejectSampleRateOutsideZeroToOne() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new AsyncPaymentLog(16, 1.5, meterRegistry, lines::add));
+  }
+
+  private static void record(AsyncPaymentLog paymentLog, String idempotencyKey) {
+    paymentLog.record(request(idempotencyKey), new PaymentTimings(), PaymentOutcome.DECLINED,
+        PaymentResult.declined(payment(PaymentStatus.DECLINED)), null);
+  }
+
+  private double records(String result) {
+    return meterRegistry.get("payment.log.records").tag("result", result).counter().count();
+  }
+
+  private static PostPaymentRequest request(String idempotencyKey) {
+    return PostPaymentRequest.builder()
+        .idempotencyKey(idempotencyKey)
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .build();
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(status)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .build();
+  }
+}
\ No newline at end of file
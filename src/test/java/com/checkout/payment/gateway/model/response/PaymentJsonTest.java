@@ -0,0 +1,77 @@
+package com.checkout.payment.gateway.model.response;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentJsonTest {
+
+  // Configured as Spring Boot configures the mapper behind the message converters, which
+  // includes writing dates as ISO-8601 rather than timestamps
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+      .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+
+  @Test
+  void shouldEncodeSameBytesAsMessageConverter() throws IOException {
+    PostPaymentResponse[] payments = {
+        payment(Instant.parse("2024-01-01T10:15:30.123Z")),
+        payment(Instant.parse("2024-01-01T10:15:30Z")),
+        payment(Instant.parse("2024-01-01T10:15:30.100Z")),
+        PostPaymentResponse.builder().build()
+    };
+    for (PostPaymentResponse payment : payments) {
+      byte[] body = PaymentJson.encode(payment).getBody();
+      assertArrayEquals(objectMapper.writeValueAsBytes(payment), body, payment::toString);
+      assertArrayEquals(objectMapper.writeValueAsBytes(GetPaymentResponse.from(payment)), body,
+          payment::toString);
+    }
+  }
+
+  @Test
+  void shouldTagDifferentPaymentsWithDifferentStrongETags() {
+    PaymentJson first = PaymentJson.encode(payment(Instant.parse("2024-01-01T10:15:30Z")));
+    PaymentJson second = PaymentJson.encode(payment(Instant.parse("2024-01-01T10:15:31Z")));
+
+    assertTrue(first.getEtag().matches("\"[0-9a-f]+\""), first.getEtag());
+    assertNotEquals(first.getEtag(), second.getEtag());
+  }
+
+  @Test
+  void shouldEncodePaymentOnceAndKeepItOutOfJsonAndEquality() throws IOException {
+    PostPaymentResponse payment = payment(Instant.parse("2024-01-01T10:15:30Z"));
+    PostPaymentResponse copy = payment(payment.getId(), payment.getCreatedAt());
+
+    PaymentJson json = payment.toJson();
+
+    assertSame(json, payment.toJson());
+    assertEquals(copy, payment);
+    assertEquals(copy.hashCode(), payment.hashCode());
+    assertEquals(payment, objectMapper.readValue(json.getBody(), PostPaymentResponse.class));
+  }
+
+  private static PostPaymentResponse payment(Instant createdAt) {
+    return payment(UUID.randomUUID(), createdAt);
+  }
+
+  private static PostPaymentResponse payment(UUID id, Instant createdAt) {
+    return PostPaymentResponse.builder()
+        .id(id)
+        .status(PaymentStatus.DECLINED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .createdAt(createdAt)
+        .build();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapPaymentStoreTest {
+
+  private static final int KEYS = 20_000;
+
+  private final HeapPaymentStore store = new HeapPaymentStore();
+
+  @Test
+  void shouldReturnStoredPaymentForDuplicateKey() {
+    PostPaymentResponse first = createPayment(Instant.EPOCH);
+    PostPaymentResponse second = createPayment(Instant.EPOCH.plusSeconds(1));
+    store.putIfAbsent(first, "order-1");
+
+    assertEquals(first, store.putIfAbsent(second, "order-1").orElseThrow());
+    assertTrue(store.get(second.getId()).isEmpty());
+    assertEquals(1, store.size());
+  }
+
+  // A snapshot walks forEach while payments are written; the payment of a writer that lost its
+  // key must never be seen, or it could take the key over when the snapshot is restored
+  @Test
+  void shouldNeverShowLosingWriteToSnapshot() throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicBoolean writing = new AtomicBoolean(true);
+    Set<UUID> snapshotted = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      Future<?> first = executor.submit(() -> write(start, Instant.EPOCH));
+      // The second writer's payments are newer, so they would win the key on restore
+      Future<?> second = executor.submit(() -> write(start, Instant.EPOCH.plusSeconds(1)));
+      Future<?> snapshots = executor.submit(() -> {
+        while (writing.get()) {
+          store.forEach((payment, key) -> snapshotted.add(payment.getId()));
+        }
+      });
+      start.countDown();
+      first.get(30, TimeUnit.SECONDS);
+      second.get(30, TimeUnit.SECONDS);
+      writing.set(false);
+      snapshots.get(30, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(KEYS, store.size());
+    for (UUID id : snapshotted) {
+      assertTrue(store.get(id).isPresent(), () -> "Snapshot saw discarded payment " + id);
+    }
+  }
+
+  private Void write(CountDownLatch start, Instant createdAt) throws InterruptedException {
+    start.await();
+    for (int i = 0; i < KEYS; i++) {
+      PostPaymentResponse payment = createPayment(createdAt);
+      store.putIfAbsent(payment, "order-" + i)
+          .ifPresent(winner -> assertNotEquals(payment.getId(), winner.getId()));
+    }
+    return null;
+  }
+
+  private static PostPaymentResponse createPayment(Instant createdAt) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .createdAt(createdAt)
+        .build();
+  }
+}
\ No newline at end of file
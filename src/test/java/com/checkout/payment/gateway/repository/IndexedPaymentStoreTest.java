@@ -0,0 +1,149 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedPaymentStoreTest {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+  private PaymentIndex index;
+  private IndexedPaymentStore store;
+
+  @BeforeEach
+  void setUp() {
+    index = new PaymentIndex();
+    store = new IndexedPaymentStore(new HeapPaymentStore(), index);
+  }
+
+  @Test
+  void shouldCombineFiltersAndReturnNewestFirst() {
+    PostPaymentResponse older = put(PaymentStatus.DECLINED, "GBP", "4242", 60);
+    put(PaymentStatus.AUTHORIZED, "GBP", "4242", 50);
+    put(PaymentStatus.DECLINED, "USD", "4242", 40);
+    PostPaymentResponse newer = put(PaymentStatus.DECLINED, "gbp", "1111", 30);
+
+    List<PostPaymentResponse> declinedGbp = store.query(query()
+        .status(PaymentStatus.DECLINED)
+        .currency("GBP")
+        .build());
+
+    assertEquals(List.of(newer, older), declinedGbp);
+  }
+
+  @Test
+  void shouldFilterByCardLastFourAndTimeRange() {
+    put(PaymentStatus.AUTHORIZED, "GBP", "4242", 7200); // Before 'from'
+    PostPaymentResponse inRange = put(PaymentStatus.AUTHORIZED, "EUR", "4242", 30);
+    put(PaymentStatus.AUTHORIZED, "EUR", "1111", 30);
+    put(PaymentStatus.AUTHORIZED, "EUR", "4242", 0); // 'to' is exclusive
+
+    List<PostPaymentResponse> lastHour = store.query(query()
+        .cardLastFour("4242")
+        .from(NOW.minusSeconds(3600))
+        .to(NOW)
+        .build());
+
+    assertEquals(List.of(inRange), lastHour);
+  }
+
+  @Test
+  void shouldResumeAfterCursorWithoutGapsOrRepeats() {
+    put(PaymentStatus.AUTHORIZED, "GBP", "4242", 10);
+    put(PaymentStatus.AUTHORIZED, "GBP", "4242", 20);
+    put(PaymentStatus.AUTHORIZED, "GBP", "4242", 20); // Same instant, ordered by id
+    put(PaymentStatus.AUTHORIZED, "GBP", "4242", 30);
+
+    List<PostPaymentResponse> paged = new ArrayList<>();
+    List<PostPaymentResponse> page = store.query(query().limit(1).build());
+    while (!page.isEmpty()) {
+      paged.addAll(page);
+      PostPaymentResponse last = page.get(page.size() - 1);
+      page = store.query(query()
+          .limit(1)
+          .afterCreatedAt(last.getCreatedAt())
+          .afterId(last.getId())
+          .build());
+    }
+
+    assertEquals(store.query(query().build()), paged);
+    assertEquals(4, paged.size());
+  }
+
+  @Test
+  void shouldNotIndexDiscardedDuplicate() {
+    PostPaymentResponse stored = payment(PaymentStatus.AUTHORIZED, "GBP", "4242", 10);
+    store.putIfAbsent(stored, "order-1");
+
+    store.putIfAbsent(payment(PaymentStatus.DECLINED, "GBP", "4242", 5), "order-1");
+
+    assertEquals(1, index.size());
+    assertTrue(store.query(query().status(PaymentStatus.DECLINED).build()).isEmpty());
+  }
+
+  @Test
+  void shouldUnindexRemovedAndClearedPayments() {
+    PostPaymentResponse removed = put(PaymentStatus.AUTHORIZED, "GBP", "4242", 10);
+    PostPaymentResponse kept = put(PaymentStatus.AUTHORIZED, "GBP", "4242", 20);
+
+    assertTrue(store.remove(removed.getId()));
+    assertFalse(store.remove(removed.getId()));
+    assertEquals(List.of(kept), store.query(query().currency("GBP").build()));
+
+    store.clear();
+    assertEquals(0, index.size());
+    assertTrue(store.query(query().build()).isEmpty());
+  }
+
+  @Test
+  void shouldIndexRestoredPaymentsOnce() {
+    PostPaymentResponse payment = payment(PaymentStatus.AUTHORIZED, "GBP", "4242", 10);
+
+    store.restore(payment, "order-1");
+    store.restore(payment, "order-1");
+
+    assertEquals(1, index.size());
+    assertEquals(List.of(payment), store.query(query().cardLastFour("4242").build()));
+  }
+
+  @Test
+  void shouldReturnNothingForUnknownFilterValue() {
+    put(PaymentStatus.AUTHORIZED, "GBP", "4242", 10);
+
+    assertTrue(store.query(query().cardLastFour("0000").build()).isEmpty());
+  }
+
+  private PaymentQuery.PaymentQueryBuilder query() {
+    return PaymentQuery.builder().limit(100);
+  }
+
+  private PostPaymentResponse put(PaymentStatus status, String currency, String lastFour,
+      long secondsAgo) {
+    PostPaymentResponse payment = payment(status, currency, lastFour, secondsAgo);
+    assertTrue(store.putIfAbsent(payment, UUID.randomUUID().toString()).isEmpty());
+    return payment;
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status, String currency,
+      String lastFour, long secondsAgo) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(status)
+        .cardNumberLastFour(lastFour)
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .currency(currency)
+        .amount(100)
+        .createdAt(NOW.minusSeconds(secondsAgo))
+        .build();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapPaymentStoreTest {
+
+  private static final String IDEMPOTENCY_KEY = "order-123";
+
+  private OffHeapPaymentStore store;
+
+  @BeforeEach
+  void setUp() {
+    store = new OffHeapPaymentStore(1_000);
+  }
+
+  @Test
+  void shouldDecodeStoredPaymentById() {
+    PostPaymentResponse payment = createPayment("0042");
+
+    store.putIfAbsent(payment, IDEMPOTENCY_KEY);
+
+    assertEquals(payment, store.get(payment.getId()).orElseThrow());
+  }
+
+  @Test
+  void shouldFindPaymentByIdempotencyKey() {
+    PostPaymentResponse payment = createPayment("8877");
+
+    store.putIfAbsent(payment, IDEMPOTENCY_KEY);
+
+    assertEquals(payment, store.getByIdempotencyKey(IDEMPOTENCY_KEY).orElseThrow());
+    assertTrue(store.getByIdempotencyKey("order-456").isEmpty());
+  }
+
+  @Test
+  void shouldReturnStoredPaymentForDuplicateKey() {
+    PostPaymentResponse first = createPayment("8877");
+    PostPaymentResponse second = createPayment("1111");
+    store.putIfAbsent(first, IDEMPOTENCY_KEY);
+
+    assertEquals(first, store.putIfAbsent(second, IDEMPOTENCY_KEY).orElseThrow());
+    assertTrue(store.get(second.getId()).isEmpty());
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  void shouldKeepEveryPaymentReachableAtFullCapacity() {
+    List<PostPaymentResponse> payments = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      PostPaymentResponse payment = createPayment(String.format("%04d", i));
+      payments.add(payment);
+      store.putIfAbsent(payment, "order-" + i);
+    }
+
+    for (int i = 0; i < payments.size(); i++) {
+      assertEquals(payments.get(i), store.get(payments.get(i).getId()).orElseThrow());
+      assertEquals(payments.get(i), store.getByIdempotencyKey("order-" + i).orElseThrow());
+    }
+    assertThrows(IllegalStateException.class,
+        () -> store.putIfAbsent(createPayment("8877"), "order-overflow"));
+  }
+
+  @Test
+  void shouldReuseRemovedRecords() {
+    for (int i = 0; i < 1_000; i++) {
+      store.putIfAbsent(createPayment("8877"), "order-" + i);
+    }
+    PostPaymentResponse removed = store.getByIdempotencyKey("order-7").orElseThrow();
+
+    assertTrue(store.remove(removed.getId()));
+    PostPaymentResponse replacement = createPayment("1111");
+    store.putIfAbsent(replacement, "order-new");
+
+    assertTrue(store.get(removed.getId()).isEmpty());
+    assertTrue(store.getByIdempotencyKey("order-7").isEmpty());
+    assertEquals(replacement, store.getByIdempotencyKey("order-new").orElseThrow());
+    assertEquals(1_000, store.size());
+  }
+
+  @Test
+  void shouldKeepPaymentReadableAfterItsKeyIsRemoved() {
+    PostPaymentResponse payment = createPayment("8877");
+    store.putIfAbsent(payment, IDEMPOTENCY_KEY);
+
+    assertFalse(store.removeIdempotencyKey(UUID.randomUUID()));
+    assertTrue(store.removeIdempotencyKey(payment.getId()));
+    assertFalse(store.removeIdempotencyKey(payment.getId()));
+
+    assertTrue(store.getByIdempotencyKey(IDEMPOTENCY_KEY).isEmpty());
+    assertEquals(payment, store.get(payment.getId()).orElseThrow());
+    PostPaymentResponse retry = createPayment("1111");
+    assertTrue(store.putIfAbsent(retry, IDEMPOTENCY_KEY).isEmpty());
+  }
+
+  @Test
+  void shouldStayConsistentThroughManyRemovals() {
+    // Far more tombstones than index slots, forcing several index rebuilds
+    for (int i = 0; i < 50_000; i++) {
+      PostPaymentResponse payment = createPayment("8877");
+      store.putIfAbsent(payment, "order-" + i);
+      if (i >= 500) {
+        UUID oldest = store.getByIdempotencyKey("order-" + (i - 500)).orElseThrow().getId();
+        assertTrue(store.remove(oldest));
+      }
+    }
+
+    assertEquals(500, store.size());
+    assertTrue(store.getByIdempotencyKey("order-49499").isEmpty());
+    assertTrue(store.getByIdempotencyKey("order-49500").isPresent());
+    assertTrue(store.getByIdempotencyKey("order-49999").isPresent());
+  }
+
+  @Test
+  void shouldGiveRestoredKeyToNewestPayment() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    PostPaymentResponse older = createPayment("8877", now.minusSeconds(60));
+    PostPaymentResponse newer = createPayment("1111", now);
+
+    store.restore(newer, IDEMPOTENCY_KEY);
+    store.restore(older, IDEMPOTENCY_KEY);
+    store.restore(newer, IDEMPOTENCY_KEY);
+
+    assertEquals(newer, store.getByIdempotencyKey(IDEMPOTENCY_KEY).orElseThrow());
+    assertEquals(older, store.get(older.getId()).orElseThrow());
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  void shouldRejectKeysThatDoNotFitTheRecord() {
+    String longKey = "k".repeat(OffHeapPaymentStore.MAX_KEY_LENGTH + 1);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> store.putIfAbsent(createPayment("8877"), longKey));
+  }
+
+  @Test
+  void shouldForgetEverythingOnClear() {
+    PostPaymentResponse payment = createPayment("8877");
+    store.putIfAbsent(payment, IDEMPOTENCY_KEY);
+
+    store.clear();
+
+    assertEquals(0, store.size());
+    assertTrue(store.get(payment.getId()).isEmpty());
+    assertTrue(store.getByIdempotencyKey(IDEMPOTENCY_KEY).isEmpty());
+  }
+
+  private PostPaymentResponse createPayment(String lastFour) {
+    return createPayment(lastFour, null);
+  }
+
+  private PostPaymentResponse createPayment(String lastFour, Instant createdAt) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.DECLINED)
+        .cardNumberLastFour(lastFour)
+        .expiryMonth(4)
+        .expiryYear(2031)
+        .currency("EUR")
+        .amount(12_345)
+        .createdAt(createdAt)
+        .build();
+  }
+}
@@ -0,0 +1,150 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentExpiryTest {
+
+  private static final long TICK_MS = 1_000;
+  private static final long KEY_TTL_MS = 10_000;
+  private static final long PAYMENT_TTL_MS = 15_000;
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private HeapPaymentStore store;
+  private PaymentExpiry expiry;
+
+  @BeforeEach
+  void setUp() {
+    store = new HeapPaymentStore();
+    expiry = new PaymentExpiry(store, clock, KEY_TTL_MS, PAYMENT_TTL_MS, TICK_MS, meterRegistry);
+  }
+
+  @Test
+  void shouldForgetIdempotencyKeyButKeepPaymentAfterKeyTtl() {
+    PostPaymentResponse payment = storeAndTrack("order-1");
+
+    clock.advance(KEY_TTL_MS + TICK_MS);
+    expiry.sweep();
+
+    assertTrue(store.getByIdempotencyKey("order-1").isEmpty());
+    assertEquals(payment, store.get(payment.getId()).orElseThrow());
+    assertEquals(1.0, expired("idempotency_key"));
+    assertEquals(0.0, expired("payment"));
+  }
+
+  @Test
+  void shouldRemovePaymentAfterPaymentTtl() {
+    PostPaymentResponse payment = storeAndTrack("order-1");
+
+    clock.advance(PAYMENT_TTL_MS + TICK_MS);
+    expiry.sweep();
+
+    assertTrue(store.get(payment.getId()).isEmpty());
+    assertEquals(0, store.size());
+    assertEquals(1.0, expired("payment"));
+  }
+
+  @Test
+  void shouldNotExpireBeforeDeadline() {
+    PostPaymentResponse payment = storeAndTrack("order-1");
+
+    clock.advance(KEY_TTL_MS - TICK_MS);
+    expiry.sweep();
+
+    assertEquals(payment, store.getByIdempotencyKey("order-1").orElseThrow());
+    assertEquals(0.0, expired("idempotency_key"));
+  }
+
+  @Test
+  void shouldNotUnmapKeyTakenOverByNewerPayment() {
+    PostPaymentResponse first = storeAndTrack("order-1");
+    clock.advance(KEY_TTL_MS + TICK_MS);
+    expiry.sweep();
+
+    PostPaymentResponse second = storeAndTrack("order-1");
+    clock.advance(PAYMENT_TTL_MS - KEY_TTL_MS);
+    expiry.sweep();
+
+    assertTrue(store.get(first.getId()).isEmpty());
+    assertEquals(second, store.getByIdempotencyKey("order-1").orElseThrow());
+  }
+
+  @Test
+  void shouldUnmapKeyAndRemovePaymentInOneSweepWhenBothTtlsEnd() {
+    expiry = new PaymentExpiry(store, clock, KEY_TTL_MS, KEY_TTL_MS, TICK_MS, meterRegistry);
+    PostPaymentResponse payment = storeAndTrack("order-1");
+
+    clock.advance(KEY_TTL_MS + TICK_MS);
+    expiry.sweep();
+
+    assertTrue(store.get(payment.getId()).isEmpty());
+    assertEquals(1.0, expired("idempotency_key"));
+    assertEquals(1.0, expired("payment"));
+  }
+
+  @Test
+  void shouldRejectPaymentTtlShorterThanKeyTtl() {
+    assertThrows(IllegalArgumentException.class, () -> new PaymentExpiry(store, clock,
+        KEY_TTL_MS, KEY_TTL_MS - 1, TICK_MS, meterRegistry));
+  }
+
+  private PostPaymentResponse storeAndTrack(String idempotencyKey) {
+    PostPaymentResponse payment = PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .createdAt(clock.instant())
+        .build();
+    assertTrue(store.putIfAbsent(payment, idempotencyKey).isEmpty());
+    expiry.track(payment);
+    return payment;
+  }
+
+  private double expired(String type) {
+    return meterRegistry.get("payments.expired").tag("type", type).counter().count();
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(long millis) {
+      now = now.plusMillis(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentNotStoredException;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PaymentsRepositoryTest {
+
+  private static final String IDEMPOTENCY_KEY = "order-123";
+
+  private PaymentsRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new PaymentsRepository(
+        new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()), Optional.empty(),
+        Optional.empty(), Optional.empty());
+  }
+
+  @Test
+  void shouldStorePaymentAndIndexTogether() {
+    PostPaymentResponse payment = createPayment();
+
+    Optional<PostPaymentResponse> existing = repository.addWithIdempotencyKey(payment, IDEMPOTENCY_KEY);
+
+    assertTrue(existing.isEmpty());
+    assertEquals(payment, repository.get(payment.getId()).orElseThrow());
+    assertEquals(payment, repository.getByIdempotencyKey(IDEMPOTENCY_KEY).orElseThrow());
+  }
+
+  @Test
+  void shouldNotStorePaymentWithoutIdempotencyKey() {
+    PostPaymentResponse payment = createPayment();
+
+    repository.addWithIdempotencyKey(payment, " ");
+
+    assertTrue(repository.get(payment.getId()).isEmpty());
+  }
+
+  @Test
+  void shouldKeepFirstPaymentForDuplicateKey() {
+    PostPaymentResponse first = createPayment();
+    PostPaymentResponse second = createPayment();
+    repository.addWithIdempotencyKey(first, IDEMPOTENCY_KEY);
+
+    Optional<PostPaymentResponse> existing = repository.addWithIdempotencyKey(second, IDEMPOTENCY_KEY);
+
+    assertEquals(first, existing.orElseThrow());
+    assertEquals(first, repository.getByIdempotencyKey(IDEMPOTENCY_KEY).orElseThrow());
+    assertTrue(repository.get(second.getId()).isEmpty());
+  }
+
+  @Test
+  void shouldAgreeOnSingleWinnerUnderConcurrentWrites() throws Exception {
+    int writers = 16;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    try {
+      List<Future<PostPaymentResponse>> results = new ArrayList<>();
+      for (int i = 0; i < writers; i++) {
+        results.add(executor.submit(() -> {
+          PostPaymentResponse payment = createPayment();
+          start.await();
+          return repository.addWithIdempotencyKey(payment, IDEMPOTENCY_KEY).orElse(payment);
+        }));
+      }
+      start.countDown();
+
+      List<UUID> seenIds = new ArrayList<>();
+      for (Future<PostPaymentResponse> result : results) {
+        seenIds.add(result.get(5, TimeUnit.SECONDS).getId());
+      }
+
+      UUID winnerId = repository.getByIdempotencyKey(IDEMPOTENCY_KEY).orElseThrow().getId();
+      assertTrue(seenIds.stream().allMatch(winnerId::equals));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldKeepKeyOfPaymentTheJournalCannotTake() {
+    PaymentJournal journal = mock(PaymentJournal.class);
+    PaymentExpiry expiry = mock(PaymentExpiry.class);
+    when(journal.append(any(), eq(IDEMPOTENCY_KEY)))
+        .thenReturn(CompletableFuture.failedFuture(
+            new UncheckedIOException(new IOException("No space left on device"))));
+    repository = new PaymentsRepository(
+        new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()), Optional.of(journal),
+        Optional.empty(), Optional.of(expiry));
+    PostPaymentResponse payment = createPayment();
+
+    assertThrows(PaymentNotStoredException.class,
+        () -> repository.addWithIdempotencyKey(payment, IDEMPOTENCY_KEY));
+
+    // Its record may still reach the disk, so the key is not handed to a second payment
+    assertEquals(payment, repository.getByIdempotencyKey(IDEMPOTENCY_KEY).orElseThrow());
+    assertEquals(payment, repository.addWithIdempotencyKey(createPayment(), IDEMPOTENCY_KEY)
+        .orElseThrow());
+    verify(expiry).track(payment);
+    verify(journal).append(any(), any());
+  }
+
+  @Test
+  void shouldKeepKeyWhenJournalRefusesAppend() {
+    PaymentJournal journal = mock(PaymentJournal.class);
+    when(journal.append(any(), any()))
+        .thenThrow(new IllegalStateException("Journal is not open for appends"));
+    repository = new PaymentsRepository(
+        new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()), Optional.of(journal),
+        Optional.empty(), Optional.empty());
+    PostPaymentResponse payment = createPayment();
+
+    CompletableFuture<Optional<PostPaymentResponse>> stored =
+        repository.addWithIdempotencyKeyAsync(payment, IDEMPOTENCY_KEY);
+
+    CompletionException failure = assertThrows(CompletionException.class, stored::join);
+    assertInstanceOf(PaymentNotStoredException.class, failure.getCause());
+    assertEquals(payment, repository.getByIdempotencyKey(IDEMPOTENCY_KEY).orElseThrow());
+  }
+
+  @Test
+  void shouldRefuseNewPaymentsOnceJournalHasFailed() {
+    PaymentJournal journal = mock(PaymentJournal.class);
+    repository = new PaymentsRepository(
+        new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()), Optional.of(journal),
+        Optional.empty(), Optional.empty());
+    repository.checkWritable(IDEMPOTENCY_KEY);
+
+    when(journal.failure()).thenReturn(new UncheckedIOException(new IOException("I/O error")));
+
+    assertThrows(PaymentNotStoredException.class,
+        () -> repository.checkWritable(IDEMPOTENCY_KEY));
+  }
+
+  @Test
+  void shouldNotRecoverKeysPastTheirTtl() throws IOException {
+    Instant now = Instant.parse("2024-01-10T00:00:00Z");
+    PostPaymentResponse expiredKey = createPayment(now.minus(Duration.ofDays(2)));
+    PostPaymentResponse liveKey = createPayment(now.minus(Duration.ofHours(1)));
+    PostPaymentResponse expiredPayment = createPayment(now.minus(Duration.ofDays(31)));
+    PaymentJournal journal = mock(PaymentJournal.class);
+    when(journal.replayFrom(any(), any())).thenAnswer(invocation -> {
+      BiConsumer<PostPaymentResponse, String> consumer = invocation.getArgument(1);
+      consumer.accept(expiredKey, "order-1");
+      consumer.accept(liveKey, "order-2");
+      consumer.accept(expiredPayment, "order-3");
+      return 3L;
+    });
+    IndexedPaymentStore store = new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex());
+    PaymentExpiry expiry = new PaymentExpiry(store, Clock.fixed(now, ZoneOffset.UTC),
+        Duration.ofDays(1).toMillis(), Duration.ofDays(30).toMillis(), 60_000,
+        new SimpleMeterRegistry());
+    repository = new PaymentsRepository(store, Optional.of(journal), Optional.empty(),
+        Optional.of(expiry));
+
+    try (expiry) {
+      repository.recover();
+    }
+
+    // The sweep had not reached the first key when it was written, it stays forgotten
+    assertEquals(expiredKey, repository.get(expiredKey.getId()).orElseThrow());
+    assertTrue(repository.getByIdempotencyKey("order-1").isEmpty());
+    assertEquals(liveKey, repository.getByIdempotencyKey("order-2").orElseThrow());
+    assertTrue(repository.get(expiredPayment.getId()).isEmpty());
+  }
+
+  private PostPaymentResponse createPayment() {
+    return createPayment(null);
+  }
+
+  private PostPaymentResponse createPayment(Instant createdAt) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .createdAt(createdAt)
+        .build();
+  }
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentJournalTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldReplayAppendedPaymentsInOrder() throws IOException {
+    PostPaymentResponse first = createPayment();
+    PostPaymentResponse second = createPayment();
+    try (PaymentJournal journal = openJournal(FsyncPolicy.ALWAYS)) {
+      journal.replay((payment, key) -> fail("Journal should start empty"));
+      journal.append(first, "order-1");
+      journal.append(second, "order-2");
+    }
+
+    Map<String, PostPaymentResponse> replayed = replay(FsyncPolicy.ALWAYS);
+
+    assertEquals(List.of("order-1", "order-2"), List.copyOf(replayed.keySet()));
+    assertEquals(first, replayed.get("order-1"));
+    assertEquals(second, replayed.get("order-2"));
+  }
+
+  @Test
+  void shouldRollOverToNewSegmentsWhenFull() throws IOException {
+    try (PaymentJournal journal = openJournal(FsyncPolicy.OS)) {
+      journal.replay((payment, key) -> { });
+      for (int i = 0; i < 200; i++) {
+        journal.append(createPayment(), "order-" + i);
+      }
+    }
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertTrue(files.count() > 1);
+    }
+    assertEquals(200, replay(FsyncPolicy.OS).size());
+  }
+
+  @Test
+  void shouldContinueAppendingAfterRecovery() throws IOException {
+    try (PaymentJournal journal = openJournal(FsyncPolicy.OS)) {
+      journal.replay((payment, key) -> { });
+      journal.append(createPayment(), "order-1");
+    }
+    try (PaymentJournal journal = openJournal(FsyncPolicy.OS)) {
+      journal.replay((payment, key) -> { });
+      journal.append(createPayment(), "order-2");
+    }
+
+    assertEquals(2, replay(FsyncPolicy.OS).size());
+  }
+
+  @Test
+  void shouldStopAtTornRecordAndOverwriteIt() throws IOException {
+    try (PaymentJournal journal = openJournal(FsyncPolicy.OS)) {
+      journal.replay((payment, key) -> { });
+      journal.append(createPayment(), "order-1");
+      journal.append(createPayment(), "order-2");
+    }
+    corruptLastByteOfSecondRecord();
+
+    assertEquals(1, replay(FsyncPolicy.OS).size());
+    try (PaymentJournal journal = openJournal(FsyncPolicy.OS)) {
+      journal.replay((payment, key) -> { });
+      journal.append(createPayment(), "order-3");
+    }
+
+    assertEquals(List.of("order-1", "order-3"), List.copyOf(replay(FsyncPolicy.OS).keySet()));
+  }
+
+  @Test
+  void shouldAcknowledgeAppendsUnderGroupCommit() throws Exception {
+    try (PaymentJournal journal = openJournal(FsyncPolicy.GROUP)) {
+      journal.replay((payment, key) -> { });
+      journal.append(createPayment(), "order-1").get(5, TimeUnit.SECONDS);
+    }
+
+    assertEquals(1, replay(FsyncPolicy.GROUP).size());
+  }
+
+  @Test
+  void shouldNotHoldAppenderUntilGroupCommit() throws IOException {
+    CompletableFuture<Void> durable;
+    try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE, FsyncPolicy.GROUP,
+        TimeUnit.HOURS.toMillis(1))) {
+      journal.replay((payment, key) -> { });
+      durable = journal.append(createPayment(), "order-1");
+
+      assertFalse(durable.isDone());
+    }
+
+    // Closing forces what was appended
+    assertTrue(durable.isDone());
+    assertFalse(durable.isCompletedExceptionally());
+  }
+
+  @Test
+  void shouldCompletePendingAppendsWhenSegmentRollsOver() throws IOException {
+    try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE, FsyncPolicy.GROUP,
+        TimeUnit.HOURS.toMillis(1))) {
+      journal.replay((payment, key) -> { });
+      CompletableFuture<Void> first = journal.append(createPayment(), "order-0");
+      CompletableFuture<Void> last = first;
+      for (int i = 1; !first.isDone() && i < 200; i++) {
+        last = journal.append(createPayment(), "order-" + i);
+      }
+
+      assertTrue(first.isDone());
+      assertFalse(last.isDone());
+    }
+  }
+
+  private PaymentJournal openJournal(FsyncPolicy policy) throws IOException {
+    return new PaymentJournal(directory, SEGMENT_SIZE, policy, 1);
+  }
+
+  private Map<String, PostPaymentResponse> replay(FsyncPolicy policy) throws IOException {
+    Map<String, PostPaymentResponse> replayed = new LinkedHashMap<>();
+    try (PaymentJournal journal = openJournal(policy)) {
+      journal.replay((payment, key) -> replayed.put(key, payment));
+    }
+    return replayed;
+  }
+
+  private void corruptLastByteOfSecondRecord() throws IOException {
+    try (Stream<Path> files = Files.list(directory);
+        RandomAccessFile file = new RandomAccessFile(files.findFirst().orElseThrow().toFile(), "rw")) {
+      int firstLength = file.readInt();
+      long secondStart = 8L + firstLength;
+      file.seek(secondStart);
+      int secondLength = file.readInt();
+      long lastByte = secondStart + 8 + secondLength - 1;
+      file.seek(lastByte);
+      int value = file.read();
+      file.seek(lastByte);
+      file.write(value ^ 0xFF);
+    }
+  }
+
+  private PostPaymentResponse createPayment() {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("0042")
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .currency("USD")
+        .amount(2_500)
+        .createdAt(Instant.now().truncatedTo(ChronoUnit.MILLIS))
+        .build();
+  }
+}
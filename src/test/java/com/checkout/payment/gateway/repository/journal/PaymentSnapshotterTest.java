@@ -0,0 +1,137 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentSnapshotterTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldRecoverFromSnapshotPlusJournalTail() throws IOException {
+    HeapPaymentStore store = new HeapPaymentStore();
+    try (PaymentJournal journal = openJournal()) {
+      journal.replay(store::putIfAbsent);
+      storeAndAppend(store, journal, "order-1");
+      storeAndAppend(store, journal, "order-2");
+      new PaymentSnapshotter(directory, journal, store, 2, 60_000).snapshot();
+      storeAndAppend(store, journal, "order-3");
+    }
+
+    HeapPaymentStore recovered = new HeapPaymentStore();
+    AtomicInteger tail = new AtomicInteger();
+    try (PaymentJournal journal = openJournal()) {
+      PaymentSnapshotter snapshotter = new PaymentSnapshotter(directory, journal, recovered, 2,
+          60_000);
+      JournalPosition from = snapshotter.loadLatest(recovered::putIfAbsent, recovered::clear);
+      journal.replayFrom(from, (payment, key) -> {
+        recovered.putIfAbsent(payment, key);
+        tail.incrementAndGet();
+      });
+    }
+
+    assertEquals(3, recovered.size());
+    assertEquals(1, tail.get());
+    for (String key : List.of("order-1", "order-2", "order-3")) {
+      assertEquals(store.getByIdempotencyKey(key), recovered.getByIdempotencyKey(key));
+    }
+  }
+
+  @Test
+  void shouldDeleteSegmentsNoRetainedSnapshotNeeds() throws IOException {
+    HeapPaymentStore store = new HeapPaymentStore();
+    try (PaymentJournal journal = openJournal()) {
+      journal.replay(store::putIfAbsent);
+      PaymentSnapshotter snapshotter = new PaymentSnapshotter(directory, journal, store, 1,
+          60_000);
+      for (int i = 0; i < 200; i++) {
+        storeAndAppend(store, journal, "order-" + i);
+      }
+      snapshotter.snapshot();
+      snapshotter.compact();
+
+      assertEquals(1, countFiles(".log"));
+      assertEquals(1, countFiles(".snap"));
+    }
+
+    HeapPaymentStore recovered = new HeapPaymentStore();
+    try (PaymentJournal journal = openJournal()) {
+      PaymentSnapshotter snapshotter = new PaymentSnapshotter(directory, journal, recovered, 1,
+          60_000);
+      journal.replayFrom(snapshotter.loadLatest(recovered::putIfAbsent, recovered::clear),
+          recovered::putIfAbsent);
+    }
+    assertEquals(200, recovered.size());
+  }
+
+  @Test
+  void shouldFallBackToFullReplayWhenSnapshotIsCorrupt() throws IOException {
+    HeapPaymentStore store = new HeapPaymentStore();
+    try (PaymentJournal journal = openJournal()) {
+      journal.replay(store::putIfAbsent);
+      storeAndAppend(store, journal, "order-1");
+      new PaymentSnapshotter(directory, journal, store, 2, 60_000).snapshot();
+    }
+    Path snapshot = findFile(".snap");
+    byte[] bytes = Files.readAllBytes(snapshot);
+    bytes[bytes.length / 2] ^= 0xFF;
+    Files.write(snapshot, bytes);
+
+    HeapPaymentStore recovered = new HeapPaymentStore();
+    try (PaymentJournal journal = openJournal()) {
+      PaymentSnapshotter snapshotter = new PaymentSnapshotter(directory, journal, recovered, 2,
+          60_000);
+      JournalPosition from = snapshotter.loadLatest(recovered::putIfAbsent, recovered::clear);
+
+      assertEquals(JournalPosition.START, from);
+      journal.replayFrom(from, recovered::putIfAbsent);
+    }
+    assertEquals(1, recovered.size());
+  }
+
+  private PaymentJournal openJournal() throws IOException {
+    return new PaymentJournal(directory, SEGMENT_SIZE, FsyncPolicy.OS, 0);
+  }
+
+  private void storeAndAppend(HeapPaymentStore store, PaymentJournal journal, String key) {
+    PostPaymentResponse payment = PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.DECLINED)
+        .cardNumberLastFour("4242")
+        .expiryMonth(6)
+        .expiryYear(2029)
+        .currency("GBP")
+        .amount(999)
+        .build();
+    store.putIfAbsent(payment, key);
+    journal.append(payment, key);
+  }
+
+  private long countFiles(String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.toString().endsWith(suffix)).count();
+    }
+  }
+
+  private Path findFile(String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.toString().endsWith(suffix)).findFirst().orElseThrow();
+    }
+  }
+}
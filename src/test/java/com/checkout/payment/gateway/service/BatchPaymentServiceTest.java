@@ -0,0 +1,158 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.BankUnavailableException;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.BatchPaymentItemResponse;
+import com.checkout.payment.gateway.model.response.PostBatchPaymentResponse;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.validation.PaymentRequestValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchPaymentServiceTest {
+
+  @Mock
+  private PaymentGatewayService paymentGatewayService;
+
+  @Test
+  void shouldReturnResultsInRequestOrderWithSummary() {
+    BatchPaymentService service = new BatchPaymentService(paymentGatewayService,
+        new PaymentRequestValidator(), 4);
+    PostPaymentRequest authorized = request("order-0001");
+    PostPaymentRequest declined = request("order-0002");
+    PostPaymentRequest rejected = request("order-0003");
+    PostPaymentRequest failed = request("order-0004");
+    when(paymentGatewayService.processPayment(authorized)).thenReturn(CompletableFuture
+        .completedFuture(PaymentResult.authorized(payment(PaymentStatus.AUTHORIZED))));
+    when(paymentGatewayService.processPayment(declined)).thenReturn(CompletableFuture
+        .completedFuture(PaymentResult.declined(payment(PaymentStatus.DECLINED))));
+    when(paymentGatewayService.processPayment(rejected)).thenReturn(CompletableFuture
+        .completedFuture(PaymentResult.rejected(List.of("Card has expired"))));
+    when(paymentGatewayService.processPayment(failed)).thenReturn(
+        CompletableFuture.failedFuture(new BankUnavailableException("Bank down")));
+
+    PostBatchPaymentResponse response = service.processBatch(
+        List.of(authorized, declined, rejected, failed)).join();
+
+    List<BatchPaymentItemResponse> results = response.getResults();
+    assertEquals(List.of("order-0001", "order-0002", "order-0003", "order-0004"),
+        results.stream().map(BatchPaymentItemResponse::getIdempotencyKey).toList());
+    assertEquals(List.of(201, 200, 400, 502),
+        results.stream().map(BatchPaymentItemResponse::getStatusCode).toList());
+    assertEquals(List.of("Card has expired"), results.get(2).getErrors());
+    assertNull(results.get(3).getStatus());
+
+    PostBatchPaymentResponse.Summary summary = response.getSummary();
+    assertEquals(4, summary.getTotal());
+    assertEquals(1, summary.getAuthorized());
+    assertEquals(1, summary.getDeclined());
+    assertEquals(1, summary.getRejected());
+    assertEquals(1, summary.getFailed());
+  }
+
+  @Test
+  void shouldKeepAtMostMaxConcurrencyPaymentsInProgress() {
+    BatchPaymentService service = new BatchPaymentService(paymentGatewayService,
+        new PaymentRequestValidator(), 2);
+    List<CompletableFuture<PaymentResult>> pending = new ArrayList<>();
+    when(paymentGatewayService.processPayment(any())).thenAnswer(invocation -> {
+      CompletableFuture<PaymentResult> result = new CompletableFuture<>();
+      pending.add(result);
+      return result;
+    });
+    List<PostPaymentRequest> requests = IntStream.range(0, 5)
+        .mapToObj(i -> request("order-000" + i))
+        .toList();
+
+    CompletableFuture<PostBatchPaymentResponse> response = service.processBatch(requests);
+
+    assertEquals(2, pending.size());
+    pending.get(1).complete(PaymentResult.authorized(payment(PaymentStatus.AUTHORIZED)));
+    assertEquals(3, pending.size());
+    for (int i = 0; i < 5; i++) {
+      pending.get(i).complete(PaymentResult.declined(payment(PaymentStatus.DECLINED)));
+    }
+
+    assertEquals(5, response.join().getResults().size());
+    assertEquals(1, response.join().getSummary().getAuthorized());
+    verify(paymentGatewayService, times(5)).processPayment(any());
+  }
+
+  @Test
+  void shouldRejectInvalidPaymentOnItsOwnAndProcessTheRest() {
+    BatchPaymentService service = new BatchPaymentService(paymentGatewayService,
+        new PaymentRequestValidator(), 4);
+    PostPaymentRequest first = request("order-0001");
+    PostPaymentRequest invalid = request("order-0002");
+    invalid.setCvv("12");
+    invalid.setAmount(0);
+    PostPaymentRequest last = request("order-0003");
+    when(paymentGatewayService.processPayment(any())).thenReturn(CompletableFuture
+        .completedFuture(PaymentResult.authorized(payment(PaymentStatus.AUTHORIZED))));
+
+    PostBatchPaymentResponse response = service.processBatch(
+        List.of(first, invalid, last)).join();
+
+    List<BatchPaymentItemResponse> results = response.getResults();
+    assertEquals(List.of(201, 400, 201),
+        results.stream().map(BatchPaymentItemResponse::getStatusCode).toList());
+    assertEquals("order-0002", results.get(1).getIdempotencyKey());
+    assertEquals(PaymentStatus.REJECTED, results.get(1).getStatus());
+    assertEquals(List.of("amount: Amount must be greater than 0",
+        "cvv: CVV must be 3 or 4 digits"), results.get(1).getErrors());
+    assertEquals(2, response.getSummary().getAuthorized());
+    assertEquals(1, response.getSummary().getRejected());
+    verify(paymentGatewayService).processPayment(first);
+    verify(paymentGatewayService).processPayment(last);
+    verify(paymentGatewayService, never()).processPayment(invalid);
+  }
+
+  @Test
+  void shouldRejectNullPaymentOnItsOwn() {
+    BatchPaymentService service = new BatchPaymentService(paymentGatewayService,
+        new PaymentRequestValidator(), 4);
+    when(paymentGatewayService.processPayment(any())).thenReturn(CompletableFuture
+        .completedFuture(PaymentResult.authorized(payment(PaymentStatus.AUTHORIZED))));
+
+    PostBatchPaymentResponse response = service.processBatch(
+        Arrays.asList(null, request("order-0001"))).join();
+
+    BatchPaymentItemResponse rejected = response.getResults().get(0);
+    assertEquals(400, rejected.getStatusCode());
+    assertEquals(PaymentStatus.REJECTED, rejected.getStatus());
+    assertEquals(List.of("payment: must not be null"), rejected.getErrors());
+    assertEquals(201, response.getResults().get(1).getStatusCode());
+  }
+
+  private PostPaymentRequest request(String idempotencyKey) {
+    return PostPaymentRequest.builder()
+        .idempotencyKey(idempotencyKey)
+        .cardNumber("2222405343248877")
+        .expiryMonth(12)
+        .expiryYear(2099)
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .build();
+  }
+
+  private PostPaymentResponse payment(PaymentStatus status) {
+    return PostPaymentResponse.builder().id(UUID.randomUUID()).status(status).build();
+  }
+}
\ No newline at end of file
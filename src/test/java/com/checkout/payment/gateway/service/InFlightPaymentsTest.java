@@ -0,0 +1,102 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.exception.BankUnavailableException;
+import com.checkout.payment.gateway.exception.PaymentInProgressException;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.util.Futures;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightPaymentsTest {
+
+  private static final String IDEMPOTENCY_KEY = "order-123";
+
+  @Test
+  void shouldGiveOwnershipToFirstCallerOnly() {
+    InFlightPayments inFlight = new InFlightPayments(10, 30_000, 1_000);
+
+    InFlightPayments.Reservation first = inFlight.reserve(IDEMPOTENCY_KEY);
+    InFlightPayments.Reservation second = inFlight.reserve(IDEMPOTENCY_KEY);
+
+    assertTrue(first.isOwner());
+    assertFalse(second.isOwner());
+  }
+
+  @Test
+  void shouldHandFollowersTheOwnersResult() {
+    InFlightPayments inFlight = new InFlightPayments(10, 30_000, 1_000);
+    InFlightPayments.Reservation owner = inFlight.reserve(IDEMPOTENCY_KEY);
+    InFlightPayments.Reservation follower = inFlight.reserve(IDEMPOTENCY_KEY);
+    PaymentResult result = PaymentResult.authorized(
+        PostPaymentResponse.builder().id(UUID.randomUUID()).build());
+
+    owner.complete(result);
+
+    assertSame(result, inFlight.await(follower, IDEMPOTENCY_KEY).join());
+  }
+
+  @Test
+  void shouldPropagateOwnerFailureToFollowers() {
+    InFlightPayments inFlight = new InFlightPayments(10, 30_000, 1_000);
+    InFlightPayments.Reservation owner = inFlight.reserve(IDEMPOTENCY_KEY);
+    InFlightPayments.Reservation follower = inFlight.reserve(IDEMPOTENCY_KEY);
+
+    owner.fail(new BankUnavailableException("Bank down"));
+
+    assertThrows(BankUnavailableException.class,
+        () -> Futures.join(inFlight.await(follower, IDEMPOTENCY_KEY)));
+  }
+
+  @Test
+  void shouldTimeOutWaitingFollowers() {
+    InFlightPayments inFlight = new InFlightPayments(10, 30_000, 10);
+    inFlight.reserve(IDEMPOTENCY_KEY);
+    InFlightPayments.Reservation follower = inFlight.reserve(IDEMPOTENCY_KEY);
+
+    assertThrows(PaymentInProgressException.class,
+        () -> Futures.join(inFlight.await(follower, IDEMPOTENCY_KEY)));
+  }
+
+  @Test
+  void shouldTakeOverAbandonedOwner() throws Exception {
+    InFlightPayments inFlight = new InFlightPayments(10, 1, 1_000);
+    InFlightPayments.Reservation abandoned = inFlight.reserve(IDEMPOTENCY_KEY);
+    InFlightPayments.Reservation follower = inFlight.reserve(IDEMPOTENCY_KEY);
+    Thread.sleep(5);
+
+    InFlightPayments.Reservation takeover = inFlight.reserve(IDEMPOTENCY_KEY);
+
+    assertTrue(abandoned.isOwner());
+    assertTrue(takeover.isOwner());
+    assertThrows(PaymentInProgressException.class,
+        () -> Futures.join(inFlight.await(follower, IDEMPOTENCY_KEY)));
+  }
+
+  @Test
+  void shouldReleaseKeyOnceOwnerFinishes() {
+    InFlightPayments inFlight = new InFlightPayments(10, 30_000, 1_000);
+    InFlightPayments.Reservation owner = inFlight.reserve(IDEMPOTENCY_KEY);
+
+    owner.complete(PaymentResult.rejected(List.of()));
+    inFlight.release(IDEMPOTENCY_KEY, owner);
+
+    assertEquals(0, inFlight.size());
+    assertTrue(inFlight.reserve(IDEMPOTENCY_KEY).isOwner());
+  }
+
+  @Test
+  void shouldStopCoalescingWhenTableIsFull() {
+    InFlightPayments inFlight = new InFlightPayments(1, 30_000, 1_000);
+    inFlight.reserve("order-aaa");
+
+    InFlightPayments.Reservation overflow = inFlight.reserve("order-bbb");
+
+    assertTrue(overflow.isOwner());
+    assertEquals(1, inFlight.size());
+  }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PaymentStatsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentAggregatesTest {
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private final PaymentAggregates aggregates =
+      new PaymentAggregates(clock, Set.of("USD", "GBP", "EUR"));
+
+  @Test
+  void shouldSumCountsAndAmountsPerCurrencyAndStatus() {
+    aggregates.record(PaymentStatus.AUTHORIZED, "GBP", 100);
+    aggregates.record(PaymentStatus.AUTHORIZED, "gbp", 250);
+    aggregates.record(PaymentStatus.DECLINED, "GBP", 40);
+    aggregates.record(PaymentStatus.DECLINED, "USD", 10);
+    aggregates.record(PaymentStatus.REJECTED, "XYZ", -5);
+
+    PaymentStatsResponse.Window window = window("1m");
+    assertEquals(5, window.getCount());
+    assertEquals(0.5, window.getAuthorizationRate());
+    assertEquals(2L, window.getByStatus().get("Declined"));
+
+    PaymentStatsResponse.CurrencyTotals gbp = window.getByCurrency().get("GBP");
+    assertEquals(3, gbp.getCount());
+    assertEquals(2.0 / 3, gbp.getAuthorizationRate(), 1e-9);
+    assertEquals(350, gbp.getByStatus().get("Authorized").getAmount());
+    assertEquals(0, window.getByCurrency().get(PaymentAggregates.OTHER_CURRENCY)
+        .getByStatus().get("Rejected").getAmount());
+    assertNull(window.getByCurrency().get(PaymentAggregates.OTHER_CURRENCY)
+        .getAuthorizationRate());
+    assertFalse(window.getByCurrency().containsKey("EUR"));
+  }
+
+  @Test
+  void shouldRollOutOfEachWindowInTurn() {
+    aggregates.record(PaymentStatus.AUTHORIZED, "GBP", 100);
+
+    clock.advance(61_000);
+    assertEquals(0, window("1m").getCount());
+    assertEquals(1, window("5m").getCount());
+
+    clock.advance(240_000);
+    assertEquals(0, window("5m").getCount());
+    assertEquals(1, window("1h").getCount());
+
+    clock.advance(3_600_000);
+    assertEquals(0, window("1h").getCount());
+    assertEquals(1, window("lifetime").getCount());
+  }
+
+  @Test
+  void shouldResetBucketReusedAfterOneRevolution() {
+    aggregates.record(PaymentStatus.AUTHORIZED, "GBP", 100);
+
+    clock.advance(300_000); // Same one-second bucket, five minutes later
+    aggregates.record(PaymentStatus.DECLINED, "GBP", 100);
+
+    PaymentStatsResponse.Window window = window("5m");
+    assertEquals(1, window.getCount());
+    assertEquals(0.0, window.getAuthorizationRate());
+  }
+
+  @Test
+  void shouldNotLoseConcurrentUpdates() throws Exception {
+    int threads = 8;
+    int perThread = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            aggregates.record(PaymentStatus.AUTHORIZED, "EUR", 1);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    PaymentStatsResponse.Window window = window("1m");
+    assertEquals((long) threads * perThread, window.getCount());
+    assertEquals((long) threads * perThread,
+        window.getByCurrency().get("EUR").getByStatus().get("Authorized").getAmount());
+  }
+
+  private PaymentStatsResponse.Window window(String name) {
+    return aggregates.snapshot().getWindows().get(name);
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(long millis) {
+      now = now.plusMillis(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
\ No newline at end of file
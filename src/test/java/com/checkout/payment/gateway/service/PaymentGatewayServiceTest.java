@@ -1,24 +1,38 @@
 package com.checkout.payment.gateway.service;
 
 import com.checkout.payment.gateway.client.BankClient;
+import com.checkout.payment.gateway.client.BankRequest;
 import com.checkout.payment.gateway.client.BankResponse;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.BankUnavailableException;
 import com.checkout.payment.gateway.exception.PaymentNotFoundException;
+import com.checkout.payment.gateway.exception.PaymentNotStoredException;
+import com.checkout.payment.gateway.logging.PaymentLog;
+import com.checkout.payment.gateway.metrics.PaymentOutcome;
+import com.checkout.payment.gateway.metrics.PaymentStageMetrics;
 import com.checkout.payment.gateway.model.PaymentResult;
 import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.PaymentStatsResponse;
 import com.checkout.payment.gateway.model.response.PostPaymentResponse;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
 import com.checkout.payment.gateway.validation.PaymentValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,20 +57,34 @@ class PaymentGatewayServiceTest {
   @Mock
   private PaymentValidator paymentValidator;
 
+  @Mock
+  private PaymentLog paymentLog;
+
+  private InFlightPayments inFlightPayments;
+  private PaymentAggregates paymentAggregates;
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
   private PaymentGatewayService service;
 
   @BeforeEach
   void setUp() {
-    service = new PaymentGatewayService(paymentsRepository, bankClient, paymentValidator);
+    inFlightPayments = new InFlightPayments(100, 30_000, 5_000);
+    paymentAggregates = new PaymentAggregates(Clock.systemUTC(), Set.of("GBP", "USD", "EUR"));
+    service = new PaymentGatewayService(paymentsRepository, bankClient, paymentValidator,
+        inFlightPayments, paymentAggregates, new PaymentStageMetrics(meterRegistry),
+        new TimeOrderedPaymentIdGenerator(Clock.systemUTC(), 0), paymentLog);
+    // Stored at once, as without a journal; not every test gets as far as the bank
+    lenient().when(paymentsRepository.addWithIdempotencyKeyAsync(any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
   }
 
   @Test
   void shouldReturnAuthorizedWhenBankAuthorizes() {
     PostPaymentRequest request = createValidRequest();
     when(paymentValidator.validate(any())).thenReturn(List.of());
-    when(bankClient.processPayment(any())).thenReturn(authorizedResponse());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
 
-    PaymentResult result = service.processPayment(request);
+    PaymentResult result = service.processPayment(request).join();
 
     assertEquals(PaymentStatus.AUTHORIZED, result.getStatus());
     assertNotNull(result.getResponse().getId());
@@ -66,9 +94,10 @@ class PaymentGatewayServiceTest {
   void shouldReturnDeclinedWhenBankDeclines() {
     PostPaymentRequest request = createValidRequest();
     when(paymentValidator.validate(any())).thenReturn(List.of());
-    when(bankClient.processPayment(any())).thenReturn(declinedResponse());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(declinedResponse()));
 
-    PaymentResult result = service.processPayment(request);
+    PaymentResult result = service.processPayment(request).join();
 
     assertEquals(PaymentStatus.DECLINED, result.getStatus());
   }
@@ -78,10 +107,69 @@ class PaymentGatewayServiceTest {
     PostPaymentRequest request = createValidRequest();
     when(paymentValidator.validate(any())).thenReturn(List.of("Card has expired"));
 
-    PaymentResult result = service.processPayment(request);
+    PaymentResult result = service.processPayment(request).join();
 
     assertEquals(PaymentStatus.REJECTED, result.getStatus());
-    verify(bankClient, never()).processPayment(any());
+    verify(bankClient, never()).processPaymentAsync(any());
+  }
+
+  @Test
+  void shouldRecordNewOutcomesButNotCachedOnesInAggregates() {
+    when(paymentValidator.validate(any())).thenReturn(List.of())
+        .thenReturn(List.of("Card has expired"));
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+    service.processPayment(createValidRequest()).join();
+    service.processPayment(createValidRequest()).join();
+
+    PostPaymentResponse cached = PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.DECLINED)
+        .build();
+    when(paymentsRepository.getByIdempotencyKey(IDEMPOTENCY_KEY)).thenReturn(Optional.of(cached));
+    service.processPayment(createValidRequest()).join();
+
+    PaymentStatsResponse.Window lifetime = paymentAggregates.snapshot().getWindows()
+        .get("lifetime");
+    assertEquals(2, lifetime.getCount());
+    assertEquals(1L, lifetime.getByStatus().get("Authorized"));
+    assertEquals(1L, lifetime.getByStatus().get("Rejected"));
+    assertEquals(VALID_AMOUNT, lifetime.getByCurrency().get("GBP").getByStatus()
+        .get("Authorized").getAmount());
+  }
+
+  @Test
+  void shouldTimeStagesByOutcome() {
+    when(paymentValidator.validate(any())).thenReturn(List.of());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+    service.processPayment(createValidRequest()).join();
+
+    PostPaymentResponse cached = PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .build();
+    when(paymentsRepository.getByIdempotencyKey(IDEMPOTENCY_KEY)).thenReturn(Optional.of(cached));
+    service.processPayment(createValidRequest()).join();
+
+    assertEquals(1, stageCount("bank", "authorized"));
+    assertEquals(1, stageCount("store", "authorized"));
+    assertEquals(1, stageCount("total", "authorized"));
+    assertEquals(1, stageCount("idempotency_lookup", "replayed"));
+    assertEquals(0, stageCount("validation", "replayed"));
+  }
+
+  @Test
+  void shouldLogPaymentOnceWithItsOutcome() {
+    when(paymentValidator.validate(any())).thenReturn(List.of());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.failedFuture(new BankUnavailableException("Bank down")));
+
+    PostPaymentRequest request = createValidRequest();
+    service.processPayment(request);
+
+    verify(paymentLog).record(eq(request), any(), eq(PaymentOutcome.BANK_UNAVAILABLE), isNull(),
+        any());
   }
 
   @Test
@@ -97,10 +185,10 @@ class PaymentGatewayServiceTest {
     when(paymentsRepository.getByIdempotencyKey(IDEMPOTENCY_KEY))
         .thenReturn(Optional.of(cached));
 
-    PaymentResult result = service.processPayment(request);
+    PaymentResult result = service.processPayment(request).join();
 
     assertEquals(cached.getId(), result.getResponse().getId());
-    verify(bankClient, never()).processPayment(any());
+    verify(bankClient, never()).processPaymentAsync(any());
   }
 
   @Test
@@ -109,11 +197,97 @@ class PaymentGatewayServiceTest {
     request.setIdempotencyKey(IDEMPOTENCY_KEY);
 
     when(paymentValidator.validate(any())).thenReturn(List.of());
-    when(bankClient.processPayment(any())).thenReturn(authorizedResponse());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
 
-    service.processPayment(request);
+    service.processPayment(request).join();
+
+    verify(paymentsRepository).addWithIdempotencyKeyAsync(any(), eq(IDEMPOTENCY_KEY));
+  }
+
+  @Test
+  void shouldSendBankStableRequestReferenceForIdempotencyKey() {
+    when(paymentValidator.validate(any())).thenReturn(List.of());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+    ArgumentCaptor<BankRequest> bankRequests = ArgumentCaptor.forClass(BankRequest.class);
+
+    service.processPayment(createValidRequest()).join();
+    service.processPayment(createValidRequest()).join();
+
+    verify(bankClient, times(2)).processPaymentAsync(bankRequests.capture());
+    String reference = bankRequests.getAllValues().get(0).getRequestReference();
+    assertNotNull(reference);
+    assertEquals(reference, bankRequests.getAllValues().get(1).getRequestReference());
+  }
+
+  @Test
+  void shouldCallBankOnceForConcurrentRequestsWithSameIdempotencyKey() {
+    CompletableFuture<BankResponse> bankResponse = new CompletableFuture<>();
+    AtomicReference<PostPaymentResponse> stored = new AtomicReference<>();
+
+    when(paymentsRepository.getByIdempotencyKey(IDEMPOTENCY_KEY))
+        .thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+    doAnswer(invocation -> {
+      stored.set(invocation.getArgument(0));
+      return CompletableFuture.completedFuture(Optional.empty());
+    }).when(paymentsRepository).addWithIdempotencyKeyAsync(any(), eq(IDEMPOTENCY_KEY));
+    when(paymentValidator.validate(any())).thenReturn(List.of());
+    when(bankClient.processPaymentAsync(any())).thenReturn(bankResponse);
+
+    // Both requests are accepted while the bank call is still outstanding
+    CompletableFuture<PaymentResult> owner = service.processPayment(createValidRequest());
+    CompletableFuture<PaymentResult> follower = service.processPayment(createValidRequest());
+    assertFalse(owner.isDone());
+    assertFalse(follower.isDone());
 
-    verify(paymentsRepository).addWithIdempotencyKey(any(), eq(IDEMPOTENCY_KEY));
+    bankResponse.complete(authorizedResponse());
+
+    assertEquals(owner.join().getResponse().getId(), follower.join().getResponse().getId());
+    verify(bankClient, times(1)).processPaymentAsync(any());
+  }
+
+  @Test
+  void shouldFailFollowersWhenBankCallFails() {
+    when(paymentValidator.validate(any())).thenReturn(List.of());
+    when(bankClient.processPaymentAsync(any())).thenReturn(
+        CompletableFuture.failedFuture(new BankUnavailableException("Bank down")));
+
+    CompletableFuture<PaymentResult> result = service.processPayment(createValidRequest());
+
+    CompletionException failure = assertThrows(CompletionException.class, result::join);
+    assertInstanceOf(BankUnavailableException.class, failure.getCause());
+    // The key is free again, so a retry gets to call the bank
+    assertEquals(0, inFlightPayments.size());
+  }
+
+  @Test
+  void shouldAnswerOnlyOnceTheStoredPaymentIsJournaled() {
+    CompletableFuture<Optional<PostPaymentResponse>> journaled = new CompletableFuture<>();
+    when(paymentsRepository.addWithIdempotencyKeyAsync(any(), eq(IDEMPOTENCY_KEY)))
+        .thenReturn(journaled);
+    when(paymentValidator.validate(any())).thenReturn(List.of());
+    when(bankClient.processPaymentAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(authorizedResponse()));
+
+    CompletableFuture<PaymentResult> result = service.processPayment(createValidRequest());
+    assertFalse(result.isDone());
+
+    journaled.complete(Optional.empty());
+    assertEquals(PaymentStatus.AUTHORIZED, result.join().getStatus());
+  }
+
+  @Test
+  void shouldNotCallBankOnceJournalHasFailed() {
+    when(paymentValidator.validate(any())).thenReturn(List.of());
+    doThrow(new PaymentNotStoredException(IDEMPOTENCY_KEY, new IllegalStateException("failed")))
+        .when(paymentsRepository).checkWritable(IDEMPOTENCY_KEY);
+
+    CompletableFuture<PaymentResult> result = service.processPayment(createValidRequest());
+
+    CompletionException failure = assertThrows(CompletionException.class, result::join);
+    assertInstanceOf(PaymentNotStoredException.class, failure.getCause());
+    verifyNoInteractions(bankClient);
   }
 
   @Test
@@ -124,6 +298,11 @@ class PaymentGatewayServiceTest {
     assertThrows(PaymentNotFoundException.class, () -> service.getPaymentById(id));
   }
 
+  private long stageCount(String stage, String outcome) {
+    return meterRegistry.get("payment.stage").tag("stage", stage).tag("outcome", outcome)
+        .timer().count();
+  }
+
   private PostPaymentRequest createValidRequest() {
     return PostPaymentRequest.builder()
         .idempotencyKey(IDEMPOTENCY_KEY)
@@ -0,0 +1,113 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import com.checkout.payment.gateway.repository.IndexedPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentIndex;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentLookupServiceTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  private PaymentsRepository repository;
+  private PaymentLookupService service;
+
+  @BeforeEach
+  void setUp() {
+    repository = new PaymentsRepository(
+        new IndexedPaymentStore(new HeapPaymentStore(), new PaymentIndex()), Optional.empty(),
+        Optional.empty(), Optional.empty());
+    service = new PaymentLookupService(repository);
+  }
+
+  @Test
+  void shouldReturnFoundPaymentsInRequestOrderAndListMissingIds() throws Exception {
+    PostPaymentResponse first = store("order-1");
+    PostPaymentResponse second = store("order-2");
+    UUID unknown = UUID.randomUUID();
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    int found = service.lookup(List.of(second.getId(), unknown, first.getId()), output);
+
+    JsonNode response = objectMapper.readTree(output.toByteArray());
+    assertEquals(2, found);
+    assertEquals(2, response.get("payments").size());
+    assertEquals(second.getId().toString(), response.get("payments").get(0).get("id").asText());
+    assertEquals(first.getId().toString(), response.get("payments").get(1).get("id").asText());
+    assertEquals("8877", response.get("payments").get(0).get("card_number_last_four").asText());
+    assertEquals(second.getCreatedAt().toString(),
+        response.get("payments").get(0).get("created_at").asText());
+    assertEquals(1, response.get("missing").size());
+    assertEquals(unknown.toString(), response.get("missing").get(0).asText());
+  }
+
+  @Test
+  void shouldWriteEachPaymentAsItsStoredBody() throws Exception {
+    PostPaymentResponse first = store("order-1");
+    PostPaymentResponse second = store("order-2");
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    service.lookup(List.of(first.getId(), second.getId()), output);
+
+    String expected = "{\"payments\":[" + body(first) + "," + body(second) + "],\"missing\":[]}";
+    assertEquals(expected, output.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldLookUpDuplicateIdsOnce() throws Exception {
+    PostPaymentResponse payment = store("order-1");
+    UUID unknown = UUID.randomUUID();
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    service.lookup(List.of(payment.getId(), unknown, payment.getId(), unknown), output);
+
+    JsonNode response = objectMapper.readTree(output.toByteArray());
+    assertEquals(1, response.get("payments").size());
+    assertEquals(1, response.get("missing").size());
+  }
+
+  @Test
+  void shouldWriteEmptyArraysWhenNothingIsFound() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    int found = service.lookup(List.of(UUID.randomUUID()), output);
+
+    JsonNode response = objectMapper.readTree(output.toByteArray());
+    assertEquals(0, found);
+    assertTrue(response.get("payments").isEmpty());
+    assertEquals(1, response.get("missing").size());
+  }
+
+  private String body(PostPaymentResponse payment) {
+    return new String(payment.toJson().getBody(), StandardCharsets.UTF_8);
+  }
+
+  private PostPaymentResponse store(String idempotencyKey) {
+    PostPaymentResponse payment = PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100)
+        .createdAt(Instant.now())
+        .build();
+    repository.addWithIdempotencyKey(payment, idempotencyKey);
+    return payment;
+  }
+}
\ No newline at end of file
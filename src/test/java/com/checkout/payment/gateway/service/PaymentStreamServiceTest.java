@@ -0,0 +1,230 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PaymentResult;
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import com.checkout.payment.gateway.model.response.PostPaymentResponse;
+import com.checkout.payment.gateway.validation.PaymentRequestValidator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentStreamServiceTest {
+
+  private static final int WINDOW = 8;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+  private final ExecutorService bank = Executors.newFixedThreadPool(4);
+
+  @Mock
+  private PaymentGatewayService paymentGatewayService;
+
+  private PaymentStreamService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new PaymentStreamService(new BatchPaymentService(paymentGatewayService,
+        new PaymentRequestValidator(), WINDOW), objectMapper, WINDOW);
+  }
+
+  @AfterEach
+  void tearDown() {
+    bank.shutdownNow();
+  }
+
+  @Test
+  void shouldWriteOneResultLinePerRecordInInputOrder() throws Exception {
+    when(paymentGatewayService.processPayment(any())).thenAnswer(invocation -> authorizeLater());
+    String input = record("order-0001") + "\n" + record("order-0002") + "\n"
+        + record("order-0003") + "\n";
+
+    List<JsonNode> lines = process(input);
+
+    assertEquals(3, lines.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals("order-000" + (i + 1), lines.get(i).get("idempotency_key").asText());
+      assertEquals(201, lines.get(i).get("status_code").asInt());
+    }
+  }
+
+  @Test
+  void shouldRejectRecordFailingBeanValidationWithoutCallingService() throws Exception {
+    String input = "{\"idempotency_key\": \"order-0001\", \"amount\": 100}\n";
+
+    List<JsonNode> lines = process(input);
+
+    assertEquals(400, lines.get(0).get("status_code").asInt());
+    assertEquals("Rejected", lines.get(0).get("status").asText());
+    assertTrue(lines.get(0).get("errors").toString().contains("cardNumber"));
+    verify(paymentGatewayService, never()).processPayment(any());
+  }
+
+  @Test
+  void shouldRejectNullRecordAndCarryOn() throws Exception {
+    when(paymentGatewayService.processPayment(any())).thenAnswer(invocation -> authorizeLater());
+    String input = "null\n" + record("order-0001") + "\n";
+
+    List<JsonNode> lines = process(input);
+
+    assertEquals(2, lines.size());
+    assertEquals(400, lines.get(0).get("status_code").asInt());
+    assertEquals("Rejected", lines.get(0).get("status").asText());
+    assertEquals(201, lines.get(1).get("status_code").asInt());
+  }
+
+  @Test
+  void shouldWriteAnsweredResultsBeforeReadingNextRecord() throws Exception {
+    when(paymentGatewayService.processPayment(any())).thenReturn(
+        CompletableFuture.completedFuture(PaymentResult.authorized(authorized())));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    AtomicLong linesBeforeSecondRecord = new AtomicLong(-1);
+    List<String> records = List.of(record("order-0001") + "\n", record("order-0002") + "\n");
+    InputStream input = new SequenceInputStream(new Enumeration<>() {
+      private int next;
+
+      @Override
+      public boolean hasMoreElements() {
+        return next < records.size();
+      }
+
+      @Override
+      public InputStream nextElement() {
+        if (next == 1) {
+          linesBeforeSecondRecord.set(output.toString(StandardCharsets.UTF_8).lines().count());
+        }
+        return new ByteArrayInputStream(records.get(next++).getBytes(StandardCharsets.UTF_8));
+      }
+    });
+
+    service.processStream(input, output);
+
+    // The first answer went out while the stream was still open, not at its end
+    assertEquals(1, linesBeforeSecondRecord.get());
+  }
+
+  @Test
+  void shouldAnswerForRecordsReadBeforeMalformedOne() throws Exception {
+    when(paymentGatewayService.processPayment(any())).thenAnswer(invocation -> authorizeLater());
+    String input = record("order-0001") + "\n{\"idempotency_key\": \n";
+
+    List<JsonNode> lines = process(input);
+
+    assertEquals(2, lines.size());
+    assertEquals(201, lines.get(0).get("status_code").asInt());
+    assertEquals(400, lines.get(1).get("status_code").asInt());
+  }
+
+  @Test
+  void shouldStreamWithBoundedPaymentsInProgress() throws Exception {
+    int records = 20_000;
+    AtomicInteger inProgress = new AtomicInteger();
+    AtomicInteger maxInProgress = new AtomicInteger();
+    when(paymentGatewayService.processPayment(any())).thenAnswer(invocation -> {
+      maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+      return authorizeLater().whenComplete((result, failure) -> inProgress.decrementAndGet());
+    });
+    LineCountingOutputStream output = new LineCountingOutputStream();
+
+    // Neither the input nor the output is ever held in memory as a whole
+    long processed = service.processStream(generate(records), output);
+
+    assertEquals(records, processed);
+    assertEquals(records, output.lines.get());
+    assertTrue(maxInProgress.get() <= WINDOW, "in progress: " + maxInProgress.get());
+  }
+
+  private CompletableFuture<PaymentResult> authorizeLater() {
+    return CompletableFuture.supplyAsync(() -> PaymentResult.authorized(authorized()), bank);
+  }
+
+  private static PostPaymentResponse authorized() {
+    return PostPaymentResponse.builder().id(UUID.randomUUID()).status(PaymentStatus.AUTHORIZED)
+        .build();
+  }
+
+  private List<JsonNode> process(String input) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    service.processStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+        output);
+    return output.toString(StandardCharsets.UTF_8).lines()
+        .map(line -> {
+          try {
+            return objectMapper.readTree(line);
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        })
+        .toList();
+  }
+
+  private static String record(String idempotencyKey) throws Exception {
+    return new ObjectMapper().writeValueAsString(PostPaymentRequest.builder()
+        .idempotencyKey(idempotencyKey)
+        .cardNumber("2222405343248877")
+        .expiryMonth(12)
+        .expiryYear(2099)
+        .currency("GBP")
+        .amount(100)
+        .cvv("123")
+        .build());
+  }
+
+  // Records produced on demand, one line at a time
+  private static InputStream generate(int records) {
+    return new SequenceInputStream(new Enumeration<>() {
+      private int next;
+
+      @Override
+      public boolean hasMoreElements() {
+        return next < records;
+      }
+
+      @Override
+      public InputStream nextElement() {
+        try {
+          String line = record("order-" + String.format("%08d", next++)) + "\n";
+          return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    });
+  }
+
+  private static final class LineCountingOutputStream extends OutputStream {
+
+    private final AtomicLong lines = new AtomicLong();
+
+    @Override
+    public void write(int b) {
+      if (b == '\n') {
+        lines.incrementAndGet();
+      }
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.checkout.payment.gateway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedPaymentIdGeneratorTest {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T10:15:30.123456789Z");
+
+  @Test
+  void shouldEncodeTimeVersionVariantAndNode() {
+    TimeOrderedPaymentIdGenerator generator =
+        new TimeOrderedPaymentIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC), 5);
+
+    UUID id = generator.next();
+
+    assertEquals(7, id.version());
+    assertEquals(2, id.variant());
+    assertEquals(NOW.toEpochMilli(), id.getMostSignificantBits() >>> 16);
+    assertEquals(456_789L * 4096 / 1_000_000, id.getMostSignificantBits() & 0xfff);
+    assertEquals(5, id.getLeastSignificantBits() >>> 52 & 0x3ff);
+  }
+
+  @Test
+  void shouldSortByCreationTime() {
+    MutableClock clock = new MutableClock(NOW);
+    TimeOrderedPaymentIdGenerator generator = new TimeOrderedPaymentIdGenerator(clock, 0);
+
+    // Steps just over the 244 ns the sub-millisecond bits resolve, across millisecond ticks
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      ids.add(generator.next());
+      clock.advance(Duration.ofNanos(250));
+    }
+
+    for (int i = 1; i < ids.size(); i++) {
+      assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0, "id " + i + " sorts out of order");
+    }
+  }
+
+  @Test
+  void shouldNotCollideAcrossThreadsWithinOneInstant() throws Exception {
+    TimeOrderedPaymentIdGenerator generator =
+        new TimeOrderedPaymentIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC), 0);
+    Set<UUID> ids = ConcurrentHashMap.newKeySet();
+    int threads = 4;
+    int perThread = 50_000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        tasks.add(executor.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            ids.add(generator.next());
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(threads * perThread, ids.size());
+  }
+
+  @Test
+  void shouldRejectNodeOutOfRange() {
+    Clock clock = Clock.systemUTC();
+    assertThrows(IllegalArgumentException.class,
+        () -> new TimeOrderedPaymentIdGenerator(clock, -1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new TimeOrderedPaymentIdGenerator(clock, TimeOrderedPaymentIdGenerator.MAX_NODE + 1));
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.checkout.payment.gateway.validation;
+
+import com.checkout.payment.gateway.model.request.PostPaymentRequest;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentRequestValidatorTest {
+
+  private static final String[] IDEMPOTENCY_KEYS = {"order-12345678", null, "", "   ", "short",
+      "x".repeat(64), "x".repeat(65), "order_1234-ABCD", "order 12345678", "order-1234567\n",
+      "\t\t\t\t\t\t\t\t", "ord\u00e9r-12345678"};
+  private static final String[] CARD_NUMBERS = {"2222405343248877", null, "", "1234567890123",
+      "12345678901234", "1234567890123456789", "12345678901234567890", "2222 4053 4324 8877",
+      "222240534324887a", "\u0662".repeat(16)};
+  private static final Integer[] EXPIRY_MONTHS = {12, null, 0, 1, 13, -1, Integer.MIN_VALUE};
+  private static final Integer[] EXPIRY_YEARS = {2030, null, 1999, 2000, 0, Integer.MAX_VALUE};
+  private static final String[] CURRENCIES = {"GBP", null, "", "gbp", "GB", "GBPX", "G1P",
+      "\u00c4BC", "JPY"};
+  private static final Integer[] AMOUNTS = {100, null, 0, -1, 1, Integer.MAX_VALUE};
+  private static final String[] CVVS = {"123", null, "", "12", "1234", "12345", "12a", " 123"};
+
+  private static ValidatorFactory validatorFactory;
+  private static Validator beanValidator;
+
+  private final PaymentRequestValidator validator = new PaymentRequestValidator();
+
+  @BeforeAll
+  static void setUpBeanValidation() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    beanValidator = validatorFactory.getValidator();
+  }
+
+  @AfterAll
+  static void closeBeanValidation() {
+    validatorFactory.close();
+  }
+
+  @Test
+  void shouldAcceptValidRequestWithoutErrors() {
+    assertTrue(validator.validate(validRequest()).isEmpty());
+  }
+
+  @Test
+  void shouldMatchBeanValidationForEachFieldValue() {
+    assertMatchesEachValue(IDEMPOTENCY_KEYS, PostPaymentRequest::setIdempotencyKey);
+    assertMatchesEachValue(CARD_NUMBERS, PostPaymentRequest::setCardNumber);
+    assertMatchesEachValue(EXPIRY_MONTHS, PostPaymentRequest::setExpiryMonth);
+    assertMatchesEachValue(EXPIRY_YEARS, PostPaymentRequest::setExpiryYear);
+    assertMatchesEachValue(CURRENCIES, PostPaymentRequest::setCurrency);
+    assertMatchesEachValue(AMOUNTS, PostPaymentRequest::setAmount);
+    assertMatchesEachValue(CVVS, PostPaymentRequest::setCvv);
+  }
+
+  @Test
+  void shouldMatchBeanValidationForCombinedFailures() {
+    Random random = new Random(42);
+    for (int i = 0; i < 2_000; i++) {
+      PostPaymentRequest request = PostPaymentRequest.builder()
+          .idempotencyKey(pick(random, IDEMPOTENCY_KEYS))
+          .cardNumber(pick(random, CARD_NUMBERS))
+          .expiryMonth(pick(random, EXPIRY_MONTHS))
+          .expiryYear(pick(random, EXPIRY_YEARS))
+          .currency(pick(random, CURRENCIES))
+          .amount(pick(random, AMOUNTS))
+          .cvv(pick(random, CVVS))
+          .build();
+      assertMatchesBeanValidation(request);
+    }
+  }
+
+  @Test
+  void shouldRejectFieldsOnSpringErrors() {
+    PostPaymentRequest request = validRequest();
+    request.setCardNumber("1234");
+    request.setAmount(null);
+    Errors errors = new BeanPropertyBindingResult(request, "postPaymentRequest");
+
+    validator.validate(request, errors);
+
+    assertEquals(2, errors.getFieldErrorCount());
+    assertEquals("Card number must be 14-19 digits",
+        errors.getFieldError("cardNumber").getDefaultMessage());
+    assertEquals("Amount is required", errors.getFieldError("amount").getDefaultMessage());
+  }
+
+  private <T> void assertMatchesEachValue(T[] values,
+      BiConsumer<PostPaymentRequest, T> setter) {
+    for (T value : values) {
+      PostPaymentRequest request = validRequest();
+      setter.accept(request, value);
+      assertMatchesBeanValidation(request);
+    }
+  }
+
+  private void assertMatchesBeanValidation(PostPaymentRequest request) {
+    List<String> expected = new ArrayList<>(beanValidator.validate(request).stream()
+        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+        .sorted()
+        .toList());
+    List<String> actual = new ArrayList<>(validator.validate(request));
+    actual.sort(null);
+    assertEquals(expected, actual, () -> "For " + Arrays.asList(request.getIdempotencyKey(),
+        request.getCardNumber(), request.getExpiryMonth(), request.getExpiryYear(),
+        request.getCurrency(), request.getAmount(), request.getCvv()));
+  }
+
+  private static <T> T pick(Random random, T[] values) {
+    // Mostly valid values, so most requests fail on one or two fields
+    return random.nextInt(3) == 0 ? values[random.nextInt(values.length)] : values[0];
+  }
+
+  private static PostPaymentRequest validRequest() {
+    return PostPaymentRequest.builder()
+        .idempotencyKey(IDEMPOTENCY_KEYS[0])
+        .cardNumber(CARD_NUMBERS[0])
+        .expiryMonth(EXPIRY_MONTHS[0])
+        .expiryYear(EXPIRY_YEARS[0])
+        .currency(CURRENCIES[0])
+        .amount(AMOUNTS[0])
+        .cvv(CVVS[0])
+        .build();
+  }
+}
\ No newline at end of file
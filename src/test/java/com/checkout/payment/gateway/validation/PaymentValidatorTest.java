@@ -6,7 +6,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,7 +25,7 @@ class PaymentValidatorTest {
 
   @BeforeEach
   void setUp() {
-    validator = new PaymentValidator();
+    validator = new PaymentValidator(List.of("USD", "GBP", "EUR"));
   }
 
   @Test
@@ -69,6 +72,30 @@ class PaymentValidatorTest {
     assertTrue(errors.get(0).contains("expired"));
   }
 
+  @Test
+  void shouldTreatCardAsExpiredFromStartOfExpiryMonth() {
+    Clock clock = Clock.fixed(Instant.parse("2030-06-15T12:00:00Z"), ZoneOffset.UTC);
+    PaymentValidator validator = new PaymentValidator(clock, List.of("GBP"));
+
+    assertTrue(validator.isExpired(5, 2030));
+    assertTrue(validator.isExpired(6, 2030));
+    assertFalse(validator.isExpired(7, 2030));
+    assertFalse(validator.isExpired(1, 2031));
+  }
+
+  @Test
+  void shouldOnlyAcceptConfiguredCurrencies() {
+    PaymentValidator validator = new PaymentValidator(Clock.systemUTC(), List.of("JPY"));
+    PostPaymentRequest request = createValidRequest();
+
+    request.setCurrency("jpy");
+    assertTrue(validator.validate(request).isEmpty());
+
+    request.setCurrency("GBP");
+    assertEquals(List.of("Currency 'GBP' is not supported. Allowed: [JPY]"),
+        validator.validate(request));
+  }
+
   private PostPaymentRequest createValidRequest() {
     return PostPaymentRequest.builder()
         .cardNumber(VALID_CARD)